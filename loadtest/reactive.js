@@ -0,0 +1,79 @@
+// Compares the servlet and reactive serving modes with 10k concurrent connections (closed model: each
+// virtual user keeps one connection busy, issuing its next request as soon as the previous one returns).
+//
+//   java -jar target/SpringToDo-0.0.1-SNAPSHOT.jar
+//   k6 run -e MODE=servlet loadtest/reactive.js
+//   SPRING_PROFILES_ACTIVE=reactive java -jar target/SpringToDo-0.0.1-SNAPSHOT.jar
+//   k6 run -e MODE=reactive loadtest/reactive.js
+//
+// Each run writes summary-<mode>.json with throughput and p99 latency. The load generator needs
+// `ulimit -n` well above VUS, and so does the server.
+import http from 'k6/http';
+import { check, sleep } from 'k6';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8080';
+const MODE = __ENV.MODE || 'unknown';
+const VUS = parseInt(__ENV.VUS || '10000');
+// Pause between a user's requests; models slow clients holding connections open
+const THINK_TIME = parseFloat(__ENV.THINK_TIME || '0.5');
+
+export const options = {
+    scenarios: {
+        connections: {
+            executor: 'ramping-vus',
+            startVUs: 0,
+            stages: [
+                { duration: __ENV.RAMP_UP || '30s', target: VUS },
+                { duration: __ENV.DURATION || '2m', target: VUS },
+                { duration: '10s', target: 0 },
+            ],
+            gracefulRampDown: '10s',
+        },
+    },
+    thresholds: {
+        http_req_failed: ['rate<0.01'],
+        'http_req_duration{type:read}': ['p(99)<500'],
+        'http_req_duration{type:write}': ['p(99)<1000'],
+    },
+    summaryTrendStats: ['avg', 'med', 'p(90)', 'p(99)', 'max'],
+};
+
+export function setup() {
+    const todos = [];
+    for (let i = 0; i < 500; i++) {
+        todos.push({ title: `Load ${i}`, description: 'Seeded by loadtest/reactive.js' });
+    }
+    const res = http.post(`${BASE_URL}/api/v1/todos/batch`, JSON.stringify({ todos }),
+        { headers: { 'Content-Type': 'application/json' } });
+    return { ids: res.json().map((todo) => todo.id) };
+}
+
+export default function (data) {
+    const roll = Math.random();
+    let res;
+    if (roll < 0.5) {
+        const page = Math.floor(Math.random() * 20);
+        res = http.get(`${BASE_URL}/api/v1/todos?page=${page}&size=20`, { tags: { type: 'read' } });
+    } else if (roll < 0.7) {
+        res = http.get(`${BASE_URL}/api/v1/todos/filter?completed=false&size=20&cursor=`, { tags: { type: 'read' } });
+    } else if (roll < 0.9) {
+        const id = data.ids[Math.floor(Math.random() * data.ids.length)];
+        res = http.get(`${BASE_URL}/api/v1/todos/${id}`, { tags: { type: 'read' } });
+    } else {
+        res = http.post(`${BASE_URL}/api/v1/todos`, JSON.stringify({ title: `k6 ${__VU}-${__ITER}` }),
+            { headers: { 'Content-Type': 'application/json' }, tags: { type: 'write' } });
+    }
+    check(res, { 'status is 2xx': (r) => r.status >= 200 && r.status < 300 });
+    sleep(THINK_TIME);
+}
+
+export function handleSummary(data) {
+    const duration = data.metrics.http_req_duration.values;
+    const line = `${MODE}: ${data.metrics.http_reqs.values.rate.toFixed(1)} req/s, ` +
+        `p99 ${duration['p(99)'].toFixed(1)} ms, failed ${(data.metrics.http_req_failed.values.rate * 100).toFixed(2)}%, ` +
+        `max VUs ${data.metrics.vus_max.values.max}\n`;
+    return {
+        stdout: line,
+        [`summary-${MODE}.json`]: JSON.stringify(data, null, 2),
+    };
+}
@@ -0,0 +1,70 @@
+// Compares platform-thread and virtual-thread request handling under the same open-model load.
+//
+//   VIRTUAL_THREADS_ENABLED=false java -jar target/SpringToDo-0.0.1-SNAPSHOT.jar
+//   k6 run -e MODE=platform loadtest/threading.js
+//   VIRTUAL_THREADS_ENABLED=true java -jar target/SpringToDo-0.0.1-SNAPSHOT.jar
+//   k6 run -e MODE=virtual loadtest/threading.js
+//
+// Each run writes summary-<mode>.json with throughput and p99 latency. To reproduce a Redis outage,
+// run `docker pause todo-redis` (or `redis-cli DEBUG SLEEP 30`) during the test: after a few commands
+// hit the 100ms Redis timeout the cache circuit opens and latency drops back to database-only levels
+// until `docker unpause todo-redis`.
+import http from 'k6/http';
+import { check } from 'k6';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8080';
+const MODE = __ENV.MODE || 'unknown';
+const RATE = parseInt(__ENV.RATE || '2000');
+
+export const options = {
+    scenarios: {
+        mixed: {
+            executor: 'constant-arrival-rate',
+            rate: RATE,
+            timeUnit: '1s',
+            duration: __ENV.DURATION || '2m',
+            preAllocatedVUs: 500,
+            maxVUs: 5000,
+        },
+    },
+    thresholds: {
+        http_req_failed: ['rate<0.01'],
+        'http_req_duration{type:read}': ['p(99)<250'],
+        'http_req_duration{type:write}': ['p(99)<500'],
+    },
+    summaryTrendStats: ['avg', 'med', 'p(90)', 'p(99)', 'max'],
+};
+
+export function setup() {
+    const todos = [];
+    for (let i = 0; i < 500; i++) {
+        todos.push({ title: `Load ${i}`, description: 'Seeded by loadtest/threading.js' });
+    }
+    http.post(`${BASE_URL}/api/v1/todos/batch`, JSON.stringify({ todos }),
+        { headers: { 'Content-Type': 'application/json' } });
+}
+
+export default function () {
+    const roll = Math.random();
+    let res;
+    if (roll < 0.6) {
+        const page = Math.floor(Math.random() * 20);
+        res = http.get(`${BASE_URL}/api/v1/todos?page=${page}&size=20`, { tags: { type: 'read' } });
+    } else if (roll < 0.9) {
+        res = http.get(`${BASE_URL}/api/v1/todos/filter?completed=false&size=20&cursor=`, { tags: { type: 'read' } });
+    } else {
+        res = http.post(`${BASE_URL}/api/v1/todos`, JSON.stringify({ title: `k6 ${__VU}-${__ITER}` }),
+            { headers: { 'Content-Type': 'application/json' }, tags: { type: 'write' } });
+    }
+    check(res, { 'status is 2xx': (r) => r.status >= 200 && r.status < 300 });
+}
+
+export function handleSummary(data) {
+    const duration = data.metrics.http_req_duration.values;
+    const line = `${MODE}: ${data.metrics.http_reqs.values.rate.toFixed(1)} req/s, ` +
+        `p99 ${duration['p(99)'].toFixed(1)} ms, failed ${(data.metrics.http_req_failed.values.rate * 100).toFixed(2)}%\n`;
+    return {
+        stdout: line,
+        [`summary-${MODE}.json`]: JSON.stringify(data, null, 2),
+    };
+}
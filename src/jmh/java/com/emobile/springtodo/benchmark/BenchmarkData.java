@@ -0,0 +1,41 @@
+package com.emobile.springtodo.benchmark;
+
+import com.emobile.springtodo.model.Todo;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+final class BenchmarkData {
+
+    private BenchmarkData() {
+    }
+
+    static List<Todo> generateTodos(int count, int descriptionLength) {
+        Random random = new Random(42);
+        LocalDateTime createdAt = LocalDateTime.of(2024, 1, 1, 9, 0);
+        List<Todo> todos = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Todo todo = new Todo();
+            todo.setId(100_000L + i);
+            todo.setTitle("Prepare quarterly report section " + i);
+            todo.setDescription(text(random, descriptionLength));
+            todo.setCompleted(random.nextInt(4) == 0);
+            todo.setCreatedAt(createdAt.plusMinutes(i));
+            todo.setUpdatedAt(createdAt.plusMinutes(i).plusSeconds(random.nextInt(3_600)));
+            todos.add(todo);
+        }
+        return todos;
+    }
+
+    private static String text(Random random, int length) {
+        String[] words = {"review", "draft", "customer", "invoice", "deploy", "meeting", "notes", "follow",
+                "up", "with", "the", "team", "about", "release", "budget", "и", "задача", "проверить"};
+        StringBuilder text = new StringBuilder(length + 16);
+        while (text.length() < length) {
+            text.append(words[random.nextInt(words.length)]).append(' ');
+        }
+        return text.substring(0, length);
+    }
+}
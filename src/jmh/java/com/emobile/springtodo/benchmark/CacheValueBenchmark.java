@@ -0,0 +1,72 @@
+package com.emobile.springtodo.benchmark;
+
+import com.emobile.springtodo.config.RedisConfig;
+import com.emobile.springtodo.model.Todo;
+import com.emobile.springtodo.model.TodoPage;
+import com.emobile.springtodo.model.TodoStats;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Redis cache value round trip for each serializer format. Entry sizes are not measured here: the application
+ * records them as {@code cache.value.size}, and CacheSerializationIntegrationTest compares both formats.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CacheValueBenchmark {
+
+    @Param({"json", "binary"})
+    private String cacheFormat;
+
+    @Param({"10", "100"})
+    private int pageSize;
+
+    @Param({"120", "1000"})
+    private int descriptionLength;
+
+    private RedisSerializer<Object> cacheSerializer;
+    private TodoPage todoPage;
+    private byte[] cachedPage;
+    private byte[] cachedTodo;
+
+    @Setup
+    public void setUp() {
+        cacheSerializer = RedisConfig.cacheValueSerializer(cacheFormat, 512);
+        List<Todo> todos = BenchmarkData.generateTodos(pageSize, descriptionLength);
+        todoPage = new TodoPage(todos, new TodoStats(5_000, 1_250));
+        cachedPage = cacheSerializer.serialize(todoPage);
+        cachedTodo = cacheSerializer.serialize(todos.get(0));
+    }
+
+    @Benchmark
+    public byte[] serializePage() {
+        return cacheSerializer.serialize(todoPage);
+    }
+
+    @Benchmark
+    public Object deserializePage() {
+        return cacheSerializer.deserialize(cachedPage);
+    }
+
+    @Benchmark
+    public Object roundTripTodo() {
+        return cacheSerializer.serialize(cacheSerializer.deserialize(cachedTodo));
+    }
+}
@@ -0,0 +1,119 @@
+package com.emobile.springtodo.benchmark;
+
+import com.emobile.springtodo.dto.response.PageResponse;
+import com.emobile.springtodo.dto.response.TodoResponse;
+import com.emobile.springtodo.mapper.TodoMapper;
+import com.emobile.springtodo.model.Todo;
+import com.emobile.springtodo.repository.TodoRowMapper;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.mapstruct.factory.Mappers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.sql.rowset.CachedRowSet;
+import javax.sql.rowset.RowSetMetaDataImpl;
+import javax.sql.rowset.RowSetProvider;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CPU and allocation cost of each stage a list request goes through on a cache miss: mapping JDBC rows,
+ * mapping entities to responses and writing the HTTP body. Run with {@code -prof gc} (the default in the
+ * jmh profile) to get allocation rates next to the timings.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HotPathBenchmark {
+
+    // Default page, and the largest page clients request in practice
+    @Param({"10", "100"})
+    private int pageSize;
+
+    // Typical description, and the longest one CreateTodoRequest allows
+    @Param({"120", "1000"})
+    private int descriptionLength;
+
+    private final TodoRowMapper rowMapper = TodoRowMapper.INSTANCE;
+    private final TodoMapper todoMapper = Mappers.getMapper(TodoMapper.class);
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    private CachedRowSet rows;
+    private List<Todo> todos;
+    private PageResponse<TodoResponse> pageResponse;
+
+    @Setup
+    public void setUp() throws SQLException {
+        todos = BenchmarkData.generateTodos(pageSize, descriptionLength);
+        rows = toRowSet(todos);
+
+        List<TodoResponse> content = todoMapper.toResponseList(todos);
+        pageResponse = new PageResponse<>(content, 0, pageSize, 5_000L, 5_000 / pageSize, false);
+    }
+
+    @Benchmark
+    public List<Todo> mapRows() throws SQLException {
+        rows.beforeFirst();
+        List<Todo> result = new ArrayList<>(pageSize);
+        while (rows.next()) {
+            result.add(rowMapper.mapRow(rows, result.size()));
+        }
+        return result;
+    }
+
+    @Benchmark
+    public List<TodoResponse> mapToResponses() {
+        return todoMapper.toResponseList(todos);
+    }
+
+    @Benchmark
+    public byte[] writePageResponse() throws Exception {
+        return objectMapper.writeValueAsBytes(pageResponse);
+    }
+
+    private static CachedRowSet toRowSet(List<Todo> todos) throws SQLException {
+        RowSetMetaDataImpl metaData = new RowSetMetaDataImpl();
+        metaData.setColumnCount(6);
+        String[] names = {"id", "title", "description", "completed", "created_at", "updated_at"};
+        int[] types = {Types.BIGINT, Types.VARCHAR, Types.VARCHAR, Types.BOOLEAN, Types.TIMESTAMP, Types.TIMESTAMP};
+        for (int i = 0; i < names.length; i++) {
+            metaData.setColumnName(i + 1, names[i]);
+            metaData.setColumnType(i + 1, types[i]);
+        }
+
+        CachedRowSet rowSet = RowSetProvider.newFactory().createCachedRowSet();
+        rowSet.setMetaData(metaData);
+        for (Todo todo : todos) {
+            rowSet.moveToInsertRow();
+            rowSet.updateLong(1, todo.getId());
+            rowSet.updateString(2, todo.getTitle());
+            rowSet.updateString(3, todo.getDescription());
+            rowSet.updateBoolean(4, todo.getCompleted());
+            rowSet.updateTimestamp(5, Timestamp.valueOf(todo.getCreatedAt()));
+            rowSet.updateTimestamp(6, Timestamp.valueOf(todo.getUpdatedAt()));
+            rowSet.insertRow();
+            rowSet.moveToCurrentRow();
+        }
+        return rowSet;
+    }
+}
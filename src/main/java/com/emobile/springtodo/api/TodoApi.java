@@ -1,38 +1,61 @@
 package com.emobile.springtodo.api;
 
+import com.emobile.springtodo.dto.request.BatchCreateTodoRequest;
+import com.emobile.springtodo.dto.request.BulkTodosRequest;
+import com.emobile.springtodo.dto.request.BulkUpdateTodosRequest;
 import com.emobile.springtodo.dto.request.CreateTodoRequest;
 import com.emobile.springtodo.dto.request.UpdateTodoRequest;
+import com.emobile.springtodo.dto.response.BulkOperationResponse;
+import com.emobile.springtodo.dto.response.ImportResponse;
 import com.emobile.springtodo.dto.response.PageResponse;
 import com.emobile.springtodo.dto.response.TodoResponse;
+import com.emobile.springtodo.dto.response.TodoStatsResponse;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
 
 @Tag(name = "Todo Management", description = "APIs for managing todo items")
 public interface TodoApi {
 
-    @Operation(summary = "Get all todos", description = "Retrieve a paginated list of all todos")
+    @Operation(summary = "Get all todos", description = "Retrieve a paginated list of all todos, by page number or by keyset cursor")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Successfully retrieved todos"),
+            @ApiResponse(responseCode = "304", description = "Nothing changed since the ETag in If-None-Match"),
             @ApiResponse(responseCode = "400", description = "Invalid pagination parameters")
     })
     PageResponse<TodoResponse> getAllTodos(
             @Parameter(description = "Page number (0-based)") @RequestParam(defaultValue = "0") int page,
-            @Parameter(description = "Page size") @RequestParam(defaultValue = "10") int size
+            @Parameter(description = "Page size") @RequestParam(defaultValue = "10") int size,
+            @Parameter(description = "Keyset cursor; pass an empty value for the first page, then the returned nextCursor")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "List archived todos instead; totals are not reported for the archive")
+            @RequestParam(defaultValue = "false") boolean archived,
+            @Parameter(hidden = true) WebRequest webRequest
     );
 
     @Operation(summary = "Get todo by ID", description = "Retrieve a specific todo by its ID")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Successfully retrieved todo"),
+            @ApiResponse(responseCode = "304", description = "Todo unchanged since If-None-Match or If-Modified-Since"),
             @ApiResponse(responseCode = "404", description = "Todo not found")
     })
-    TodoResponse getTodoById(@Parameter(description = "Todo ID") @PathVariable Long id);
+    TodoResponse getTodoById(@Parameter(description = "Todo ID") @PathVariable Long id,
+                             @Parameter(hidden = true) WebRequest webRequest);
 
     @Operation(summary = "Create a new todo", description = "Create a new todo item")
     @ApiResponses(value = {
@@ -41,6 +64,13 @@ public interface TodoApi {
     })
     TodoResponse createTodo(@Valid @RequestBody CreateTodoRequest request);
 
+    @Operation(summary = "Create todos in bulk", description = "Create up to 1000 todo items in a single transaction")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "201", description = "Successfully created todos"),
+            @ApiResponse(responseCode = "400", description = "Invalid input data")
+    })
+    List<TodoResponse> createTodos(@Valid @RequestBody BatchCreateTodoRequest request);
+
     @Operation(summary = "Update a todo", description = "Update an existing todo item")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Successfully updated todo"),
@@ -52,6 +82,17 @@ public interface TodoApi {
             @Valid @RequestBody UpdateTodoRequest request
     );
 
+    @Operation(summary = "Partially update a todo", description = "Change only the supplied fields of an existing todo item")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully updated todo"),
+            @ApiResponse(responseCode = "404", description = "Todo not found"),
+            @ApiResponse(responseCode = "400", description = "Invalid input data")
+    })
+    TodoResponse patchTodo(
+            @Parameter(description = "Todo ID") @PathVariable Long id,
+            @Valid @RequestBody UpdateTodoRequest request
+    );
+
     @Operation(summary = "Delete a todo", description = "Delete a todo item by ID")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "204", description = "Successfully deleted todo"),
@@ -59,14 +100,85 @@ public interface TodoApi {
     })
     void deleteTodo(@Parameter(description = "Todo ID") @PathVariable Long id);
 
-    @Operation(summary = "Get todos by completion status", description = "Retrieve paginated todos filtered by completion status")
+    @Operation(summary = "Update todos in bulk", description = "Set the completion status of todos selected by ids or by current status in one statement")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully updated todos"),
+            @ApiResponse(responseCode = "400", description = "Invalid input data")
+    })
+    BulkOperationResponse updateTodos(@Valid @RequestBody BulkUpdateTodosRequest request);
+
+    @Operation(summary = "Delete todos in bulk", description = "Delete todos selected by ids or by completion status in one statement")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully deleted todos"),
+            @ApiResponse(responseCode = "400", description = "Invalid input data")
+    })
+    BulkOperationResponse deleteTodos(@Valid @RequestBody BulkTodosRequest request);
+
+    @Operation(summary = "Get todos by completion status", description = "Retrieve paginated todos filtered by completion status, by page number or by keyset cursor")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Successfully retrieved todos"),
+            @ApiResponse(responseCode = "304", description = "Nothing changed since the ETag in If-None-Match"),
             @ApiResponse(responseCode = "400", description = "Invalid pagination parameters")
     })
     PageResponse<TodoResponse> getTodosByCompleted(
             @Parameter(description = "Completion status") @RequestParam boolean completed,
             @Parameter(description = "Page number (0-based)") @RequestParam(defaultValue = "0") int page,
-            @Parameter(description = "Page size") @RequestParam(defaultValue = "10") int size
+            @Parameter(description = "Page size") @RequestParam(defaultValue = "10") int size,
+            @Parameter(description = "Keyset cursor; pass an empty value for the first page, then the returned nextCursor")
+            @RequestParam(required = false) String cursor,
+            @Parameter(hidden = true) WebRequest webRequest
+    );
+
+    @Operation(summary = "Search todos", description = "Full-text search over title and description, best matches first, with keyset pagination. Supports quoted phrases, OR and -exclusions")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved matching todos"),
+            @ApiResponse(responseCode = "304", description = "Nothing changed since the ETag in If-None-Match"),
+            @ApiResponse(responseCode = "400", description = "Blank or too long query, or invalid pagination parameters")
+    })
+    PageResponse<TodoResponse> searchTodos(
+            @Parameter(description = "Search query") @RequestParam String q,
+            @Parameter(description = "Only todos with this completion status") @RequestParam(required = false) Boolean completed,
+            @Parameter(description = "Page size") @RequestParam(defaultValue = "10") int size,
+            @Parameter(description = "Keyset cursor from the previous page's nextCursor")
+            @RequestParam(required = false) String cursor,
+            @Parameter(hidden = true) WebRequest webRequest
+    );
+
+    @Operation(summary = "Get todo statistics", description = "Retrieve total, completed and open todo counts")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved statistics"),
+            @ApiResponse(responseCode = "304", description = "Nothing changed since the ETag in If-None-Match")
+    })
+    TodoStatsResponse getTodoStats(@Parameter(hidden = true) WebRequest webRequest);
+
+    @Operation(summary = "Export all todos", description = "Stream every todo as NDJSON or CSV, bypassing pagination and the cache")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Export stream"),
+            @ApiResponse(responseCode = "400", description = "Unsupported export format")
+    })
+    ResponseEntity<StreamingResponseBody> exportTodos(
+            @Parameter(description = "Export format: ndjson or csv") @RequestParam(defaultValue = "ndjson") String format
+    );
+
+    @Operation(summary = "Import todos", description = "Stream NDJSON or CSV records into the table with COPY; invalid records are skipped and reported by line")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Import finished"),
+            @ApiResponse(responseCode = "400", description = "Unreadable CSV header"),
+            @ApiResponse(responseCode = "415", description = "Unsupported content type")
+    })
+    ImportResponse importTodos(
+            @Parameter(description = "application/x-ndjson or text/csv") @RequestHeader("Content-Type") String contentType,
+            @io.swagger.v3.oas.annotations.parameters.RequestBody(description = "NDJSON objects or CSV rows with a header; fields as in CreateTodoRequest, plus an optional completed flag")
+            InputStream body
+    ) throws IOException;
+
+    @Operation(summary = "Stream todo changes", description = "Server-Sent Events named created, updated or deleted, each carrying the todo and the event id; "
+            + "reconnecting with Last-Event-ID replays what was missed, or sends a reset event if that is no longer possible or too much was missed. "
+            + "A change to many todos at once is sent as a single reset event, after which the todos should be reloaded")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Event stream opened")
+    })
+    SseEmitter streamTodoEvents(
+            @Parameter(description = "Id of the last event received, to resume after it") @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId
     );
 }
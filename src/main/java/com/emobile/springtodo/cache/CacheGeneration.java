@@ -0,0 +1,169 @@
+package com.emobile.springtodo.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cluster-wide change generation of the todo data set. List cache keys embed the current value, so a write
+ * only has to bump the counter and stale pages are never read again; they simply expire.
+ * <p>
+ * A write while Redis is unreachable still moves this node to a new generation, but that value is only local:
+ * another node may reach the same number for a different data set. Until Redis issues a fresh generation the
+ * node is not {@linkplain #isShared() shared}, and nothing should be cached or validated under it.
+ */
+@Component
+public class CacheGeneration implements MessageListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(CacheGeneration.class);
+
+    // Both scripts keep the shared counter at or above every generation this node has seen, so a value that
+    // already keys cached pages is never handed out again, even after Redis lost or rolled back the key
+    private static final RedisScript<Long> INCREMENT_SCRIPT = new DefaultRedisScript<>(
+            "local next = redis.call('INCR', KEYS[1]) " +
+            "local floor = tonumber(ARGV[1]) " +
+            "if next <= floor then next = floor + 1 redis.call('SET', KEYS[1], next) end " +
+            "return next", Long.class);
+    private static final RedisScript<Long> SYNC_SCRIPT = new DefaultRedisScript<>(
+            "local value = tonumber(redis.call('GET', KEYS[1])) " +
+            "local floor = tonumber(ARGV[1]) " +
+            "if value == nil or value < floor then value = floor redis.call('SET', KEYS[1], value) end " +
+            "return value", Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final RedisCircuitBreaker circuitBreaker;
+    private final String key;
+    private final String channel;
+    private final long syncIntervalNanos;
+
+    private final AtomicLong current = new AtomicLong();
+    private final AtomicBoolean syncing = new AtomicBoolean();
+    private volatile boolean localOnly;
+    private volatile long lastSyncNanos;
+    private volatile long lastChangeNanos = System.nanoTime();
+
+    public CacheGeneration(StringRedisTemplate redisTemplate,
+                           RedisCircuitBreaker circuitBreaker,
+                           @Value("${todo.cache.generation.key:todo:cache:generation}") String key,
+                           @Value("${todo.cache.generation.channel:todo:cache:generation}") String channel,
+                           @Value("${todo.cache.generation.sync-interval:1s}") Duration syncInterval) {
+        this.redisTemplate = redisTemplate;
+        this.circuitBreaker = circuitBreaker;
+        this.key = key;
+        this.channel = channel;
+        this.syncIntervalNanos = syncInterval.toNanos();
+        // Seeding from the clock keeps generations increasing even if Redis loses the counter.
+        this.current.set(System.currentTimeMillis());
+        sync();
+    }
+
+    public long current() {
+        if (System.nanoTime() - lastSyncNanos > syncIntervalNanos && syncing.compareAndSet(false, true)) {
+            try {
+                sync();
+            } finally {
+                syncing.set(false);
+            }
+        }
+        return current.get();
+    }
+
+    /**
+     * Moves to a new generation once the surrounding transaction, if any, has committed,
+     * so that readers of the new generation can already see the write.
+     */
+    public void bump() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    increment();
+                }
+            });
+        } else {
+            increment();
+        }
+    }
+
+    /**
+     * Whether the current generation was issued by Redis, so it names the same data set on every node.
+     */
+    public boolean isShared() {
+        return !localOnly;
+    }
+
+    /**
+     * Whether this node has seen the generation move within the given window, from its own writes or others'.
+     */
+    public boolean changedWithin(Duration window) {
+        return System.nanoTime() - lastChangeNanos < window.toNanos();
+    }
+
+    public String getChannel() {
+        return channel;
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        advance(Long.parseLong(new String(message.getBody(), StandardCharsets.UTF_8)));
+    }
+
+    private void increment() {
+        if (!incrementShared()) {
+            // Still moves this node on; the next sync asks Redis for a generation above it
+            logger.warn("Could not increment cache generation in Redis, advancing locally");
+            localOnly = true;
+            current.incrementAndGet();
+            lastChangeNanos = System.nanoTime();
+        }
+    }
+
+    private boolean incrementShared() {
+        Long next = circuitBreaker.execute(
+                () -> redisTemplate.execute(INCREMENT_SCRIPT, List.of(key), String.valueOf(current.get())), () -> null);
+        if (next == null) {
+            return false;
+        }
+        advance(next);
+        if (current.get() == next) {
+            localOnly = false;
+        }
+        circuitBreaker.run(() -> redisTemplate.convertAndSend(channel, String.valueOf(next)));
+        return true;
+    }
+
+    private void sync() {
+        if (localOnly) {
+            // Adopting the shared value could reuse a number another node issued for a different data set
+            incrementShared();
+        } else {
+            Long value = circuitBreaker.execute(
+                    () -> redisTemplate.execute(SYNC_SCRIPT, List.of(key), String.valueOf(current.get())), () -> null);
+            if (value != null) {
+                advance(value);
+            }
+        }
+        // Also after a failure, so an unreachable Redis is not retried on every read
+        lastSyncNanos = System.nanoTime();
+    }
+
+    private void advance(long generation) {
+        if (current.getAndAccumulate(generation, Math::max) < generation) {
+            lastChangeNanos = System.nanoTime();
+        }
+    }
+}
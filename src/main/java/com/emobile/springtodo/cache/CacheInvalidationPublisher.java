@@ -0,0 +1,12 @@
+package com.emobile.springtodo.cache;
+
+import java.util.Collection;
+
+public interface CacheInvalidationPublisher {
+
+    void publishEviction(String cacheName, String key);
+
+    void publishEvictions(String cacheName, Collection<String> keys);
+
+    void publishClear(String cacheName);
+}
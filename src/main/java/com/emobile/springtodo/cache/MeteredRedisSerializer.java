@@ -0,0 +1,78 @@
+package com.emobile.springtodo.cache;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records the encoded size and the encode/decode time of every cache value, tagged with the
+ * serializer format and the value type, so formats can be compared per entry type.
+ */
+public class MeteredRedisSerializer implements RedisSerializer<Object> {
+
+    private final RedisSerializer<Object> delegate;
+    private final String format;
+    private final MeterRegistry registry;
+    private final Map<Class<?>, Meters> meters = new ConcurrentHashMap<>();
+
+    public MeteredRedisSerializer(RedisSerializer<Object> delegate, String format, MeterRegistry registry) {
+        this.delegate = delegate;
+        this.format = format;
+        this.registry = registry;
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        long start = System.nanoTime();
+        byte[] bytes = delegate.serialize(value);
+        Meters valueMeters = meters(value);
+        valueMeters.encode.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        if (bytes != null) {
+            valueMeters.size.record(bytes.length);
+        }
+        return bytes;
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        long start = System.nanoTime();
+        Object value = delegate.deserialize(bytes);
+        meters(value).decode.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return value;
+    }
+
+    private Meters meters(Object value) {
+        Class<?> type = value != null ? value.getClass() : Void.class;
+        return meters.computeIfAbsent(type, this::createMeters);
+    }
+
+    private Meters createMeters(Class<?> type) {
+        String typeName = type == Void.class ? "null" : type.getSimpleName();
+        DistributionSummary size = DistributionSummary.builder("cache.value.size")
+                .description("Serialized size of cache values")
+                .baseUnit("bytes")
+                .tag("format", format)
+                .tag("type", typeName)
+                .register(registry);
+        Timer encode = Timer.builder("cache.value.encode")
+                .description("Time to serialize a cache value")
+                .tag("format", format)
+                .tag("type", typeName)
+                .register(registry);
+        Timer decode = Timer.builder("cache.value.decode")
+                .description("Time to deserialize a cache value")
+                .tag("format", format)
+                .tag("type", typeName)
+                .register(registry);
+        return new Meters(size, encode, decode);
+    }
+
+    private record Meters(DistributionSummary size, Timer encode, Timer decode) {
+    }
+}
@@ -0,0 +1,123 @@
+package com.emobile.springtodo.cache;
+
+import com.emobile.springtodo.config.RedisConfig;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.redis.connection.ReactiveRedisConnectionFactory;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Redis-only view of the {@code todos} and {@code todoPages} caches for the reactive serving mode. Entries use
+ * the keys, serializer and TTLs of {@link TwoLevelCacheManager}, so both modes can share one Redis, and every
+ * write publishes the same invalidation messages, so servlet nodes drop their local copies.
+ * <p>
+ * There is no local tier: the per-node copy exists to save Redis round trips for blocked threads, which a
+ * non-blocking node does not have. Concurrent misses on one key still share a single load.
+ */
+@Component
+@Profile("reactive")
+public class ReactiveTodoCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReactiveTodoCache.class);
+
+    public static final String TODOS = "todos";
+    public static final String PAGES = "todoPages";
+
+    private final ReactiveRedisTemplate<String, Object> redisTemplate;
+    private final ReactiveStringRedisTemplate stringRedisTemplate;
+    private final RedisCircuitBreaker circuitBreaker;
+    private final String invalidationChannel;
+    private final Duration pageTtl;
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final ConcurrentMap<String, Mono<Object>> loads = new ConcurrentHashMap<>();
+
+    public ReactiveTodoCache(ReactiveRedisConnectionFactory connectionFactory,
+                             ReactiveStringRedisTemplate stringRedisTemplate,
+                             RedisCircuitBreaker circuitBreaker,
+                             MeterRegistry meterRegistry,
+                             @Value("${todo.cache.invalidation-channel:todo:cache:invalidation}") String invalidationChannel,
+                             @Value("${todo.cache.page-ttl:2m}") Duration pageTtl,
+                             @Value("${todo.cache.serializer:binary}") String serializerFormat,
+                             @Value("${todo.cache.compression-threshold:512}") int compressionThreshold) {
+        RedisSerializer<Object> serializer = new MeteredRedisSerializer(
+                RedisConfig.cacheValueSerializer(serializerFormat, compressionThreshold), serializerFormat, meterRegistry);
+        this.redisTemplate = new ReactiveRedisTemplate<>(connectionFactory,
+                RedisSerializationContext.<String, Object>newSerializationContext(RedisSerializer.string())
+                        .value(serializer)
+                        .build());
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.circuitBreaker = circuitBreaker;
+        this.invalidationChannel = invalidationChannel;
+        this.pageTtl = pageTtl;
+    }
+
+    /**
+     * Returns the cached value, or subscribes to the loader and caches what it emits. An empty loader caches nothing.
+     */
+    public <T> Mono<T> get(String cacheName, String key, Class<T> type, Mono<T> loader) {
+        String redisKey = redisKey(cacheName, key);
+        return circuitBreaker.execute(redisTemplate.opsForValue().get(redisKey), Mono.empty())
+                .filter(type::isInstance)
+                .switchIfEmpty(Mono.defer(() -> loads.computeIfAbsent(redisKey, k -> loader.cast(Object.class)
+                        .flatMap(value -> write(k, value, ttl(cacheName)).thenReturn(value))
+                        .doFinally(signal -> loads.remove(k))
+                        .cache())))
+                .map(type::cast);
+    }
+
+    public Mono<Void> put(String cacheName, String key, Object value) {
+        String redisKey = redisKey(cacheName, key);
+        return write(redisKey, value, ttl(cacheName))
+                .then(publish(TwoLevelCacheManager.evictionMessage(nodeId, cacheName, key)));
+    }
+
+    public Mono<Void> evict(String cacheName, String key) {
+        return circuitBreaker.execute(redisTemplate.delete(redisKey(cacheName, key)), Mono.empty())
+                .then(publish(TwoLevelCacheManager.evictionMessage(nodeId, cacheName, key)));
+    }
+
+    /**
+     * Deletes the keys with one {@code DEL} and announces them in one message.
+     */
+    public Mono<Void> evictAll(String cacheName, List<String> keys) {
+        if (keys.isEmpty()) {
+            return Mono.empty();
+        }
+        String[] redisKeys = keys.stream().map(key -> redisKey(cacheName, key)).toArray(String[]::new);
+        return circuitBreaker.execute(redisTemplate.delete(redisKeys), Mono.empty())
+                .then(publish(TwoLevelCacheManager.evictionMessage(nodeId, cacheName, keys)));
+    }
+
+    private Mono<Void> write(String redisKey, Object value, Duration ttl) {
+        return circuitBreaker.execute(redisTemplate.opsForValue().set(redisKey, value, ttl), Mono.just(false)).then();
+    }
+
+    private Mono<Void> publish(String message) {
+        return circuitBreaker.execute(stringRedisTemplate.convertAndSend(invalidationChannel, message), Mono.empty())
+                .doOnNext(receivers -> logger.trace("Published cache invalidation {}", message))
+                .then();
+    }
+
+    private Duration ttl(String cacheName) {
+        return PAGES.equals(cacheName) ? pageTtl : RedisConfig.TODO_TTL;
+    }
+
+    private static String redisKey(String cacheName, String key) {
+        return cacheName + "::" + key;
+    }
+}
@@ -0,0 +1,178 @@
+package com.emobile.springtodo.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Keeps Redis trouble out of the request path. Redis errors are treated as cache misses or skipped writes,
+ * and after enough consecutive failures Redis is bypassed entirely for a while. Once that period is over a
+ * single call probes Redis again; if it succeeds, normal operation resumes and recovery listeners run.
+ * <p>
+ * Any runtime failure of a Redis call counts, including serialization errors, which are logged with their
+ * stack trace since they point at a bug rather than at Redis. A probe that ends without a verdict, such as
+ * one cancelled or failed with an {@link Error}, reopens the circuit instead of leaving it half-open.
+ */
+@Component
+public class RedisCircuitBreaker {
+
+    private static final Logger logger = LoggerFactory.getLogger(RedisCircuitBreaker.class);
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private enum Admission { ALLOWED, PROBE, BYPASSED }
+
+    private final int failureThreshold;
+    private final long openNanos;
+
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private final AtomicBoolean probing = new AtomicBoolean();
+    private final List<Runnable> recoveryListeners = new CopyOnWriteArrayList<>();
+    private volatile State state = State.CLOSED;
+    private volatile long openedAt;
+
+    private final Counter failures;
+    private final Counter bypassed;
+
+    public RedisCircuitBreaker(MeterRegistry meterRegistry,
+                               @Value("${todo.cache.redis.failure-threshold:5}") int failureThreshold,
+                               @Value("${todo.cache.redis.open-duration:5s}") Duration openDuration) {
+        this.failureThreshold = failureThreshold;
+        this.openNanos = openDuration.toNanos();
+
+        this.failures = Counter.builder("cache.redis.failures")
+                .description("Redis operations that failed or timed out")
+                .register(meterRegistry);
+        this.bypassed = Counter.builder("cache.redis.bypassed")
+                .description("Redis operations skipped while the circuit was open")
+                .register(meterRegistry);
+        Gauge.builder("cache.redis.circuit.state", this, breaker -> breaker.getState().ordinal())
+                .description("0 = closed, 1 = open, 2 = half-open")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Runs a Redis operation, or returns the fallback if Redis is bypassed or the operation fails.
+     */
+    public <T> T execute(Supplier<T> operation, Supplier<T> fallback) {
+        Admission admission = admit();
+        if (admission == Admission.BYPASSED) {
+            bypassed.increment();
+            return fallback.get();
+        }
+        try {
+            T result = operation.get();
+            recordSuccess();
+            return result;
+        } catch (RuntimeException e) {
+            recordFailure(e);
+            return fallback.get();
+        } finally {
+            if (admission == Admission.PROBE) {
+                abandonProbe();
+            }
+        }
+    }
+
+    /**
+     * Runs a Redis operation and reports whether it actually happened.
+     */
+    public boolean run(Runnable operation) {
+        return execute(() -> {
+            operation.run();
+            return true;
+        }, () -> false);
+    }
+
+    /**
+     * Reactive variant of {@link #execute(Supplier, Supplier)}. A half-open probe that is cancelled before it
+     * completes releases the probe slot, so the next call can probe again.
+     */
+    public <T> Mono<T> execute(Mono<T> operation, Mono<T> fallback) {
+        return Mono.defer(() -> {
+            Admission admission = admit();
+            if (admission == Admission.BYPASSED) {
+                bypassed.increment();
+                return fallback;
+            }
+            Mono<T> guarded = operation
+                    .doOnSuccess(result -> recordSuccess())
+                    .onErrorResume(RuntimeException.class, e -> {
+                        recordFailure(e);
+                        return fallback;
+                    });
+            return admission == Admission.PROBE ? guarded.doFinally(signal -> abandonProbe()) : guarded;
+        });
+    }
+
+    public void addRecoveryListener(Runnable listener) {
+        recoveryListeners.add(listener);
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    private Admission admit() {
+        State current = state;
+        if (current == State.CLOSED) {
+            return Admission.ALLOWED;
+        }
+        if (current == State.OPEN && System.nanoTime() - openedAt >= openNanos && probing.compareAndSet(false, true)) {
+            state = State.HALF_OPEN;
+            return Admission.PROBE;
+        }
+        return Admission.BYPASSED;
+    }
+
+    // A probe that settled has already closed or reopened the circuit; this only catches one that did not
+    private void abandonProbe() {
+        if (state == State.HALF_OPEN) {
+            openedAt = System.nanoTime();
+            state = State.OPEN;
+            probing.set(false);
+        }
+    }
+
+    private void recordSuccess() {
+        if (consecutiveFailures.get() != 0) {
+            consecutiveFailures.set(0);
+        }
+        if (state != State.CLOSED) {
+            state = State.CLOSED;
+            probing.set(false);
+            logger.info("Redis is reachable again, closing the cache circuit");
+            recoveryListeners.forEach(Runnable::run);
+        }
+    }
+
+    private void recordFailure(RuntimeException e) {
+        failures.increment();
+        if (!(e instanceof DataAccessException)) {
+            logger.warn("Redis operation failed unexpectedly", e);
+        }
+        if (state == State.HALF_OPEN || consecutiveFailures.incrementAndGet() >= failureThreshold) {
+            openedAt = System.nanoTime();
+            if (state != State.OPEN) {
+                logger.warn("Bypassing Redis for {} ms after repeated failures: {}", openNanos / 1_000_000, e.getMessage());
+            }
+            state = State.OPEN;
+            probing.set(false);
+        } else {
+            logger.debug("Redis operation failed: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,408 @@
+package com.emobile.springtodo.cache;
+
+import com.emobile.springtodo.model.Todo;
+import com.emobile.springtodo.model.TodoPage;
+import com.emobile.springtodo.model.TodoSearchPage;
+import com.emobile.springtodo.model.TodoStats;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compact cache value format for the todo model. Layout: magic byte, schema version, type tag, then the
+ * fields as varints and length-prefixed UTF-8 without any field names or class names. Strings at or
+ * above the compression threshold (in UTF-8 bytes, 0 disables it) are deflated when that makes them smaller;
+ * in practice only descriptions get that long.
+ * <p>
+ * Values of other types, and entries that do not start with the magic byte (such as JSON written by
+ * earlier versions), go through the fallback serializer. Entries with an unknown schema version read
+ * as a cache miss, so they are simply recomputed during a rolling upgrade.
+ */
+public class TodoBinaryRedisSerializer implements RedisSerializer<Object> {
+
+    // Never the first byte of a JSON document
+    static final byte MAGIC = (byte) 0xB7;
+    static final byte VERSION = 1;
+
+    private static final byte TYPE_TODO = 1;
+    private static final byte TYPE_TODO_LIST = 2;
+    private static final byte TYPE_OPTIONAL_TODO = 3;
+    private static final byte TYPE_TODO_PAGE = 4;
+    private static final byte TYPE_TODO_STATS = 5;
+    private static final byte TYPE_TODO_SEARCH_PAGE = 6;
+
+    private static final byte STRING_PLAIN = 0;
+    private static final byte STRING_DEFLATED = 1;
+
+    private static final int HAS_ID = 1;
+    private static final int HAS_TITLE = 1 << 1;
+    private static final int HAS_DESCRIPTION = 1 << 2;
+    private static final int HAS_COMPLETED = 1 << 3;
+    private static final int COMPLETED = 1 << 4;
+    private static final int HAS_CREATED_AT = 1 << 5;
+    private static final int HAS_UPDATED_AT = 1 << 6;
+
+    private final RedisSerializer<Object> fallback;
+    private final int compressionThreshold;
+
+    public TodoBinaryRedisSerializer(RedisSerializer<Object> fallback, int compressionThreshold) {
+        this.fallback = fallback;
+        this.compressionThreshold = compressionThreshold;
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        Output out = new Output();
+        try {
+            return encode(out, value);
+        } finally {
+            out.release();
+        }
+    }
+
+    private byte[] encode(Output out, Object value) {
+        out.write(MAGIC);
+        out.write(VERSION);
+        switch (value) {
+            case Todo todo -> {
+                out.write(TYPE_TODO);
+                writeTodo(out, todo);
+            }
+            case TodoPage page -> {
+                out.write(TYPE_TODO_PAGE);
+                out.write((page.getTodos() != null ? 1 : 0) | (page.getStats() != null ? 2 : 0));
+                if (page.getTodos() != null) {
+                    writeTodos(out, page.getTodos());
+                }
+                if (page.getStats() != null) {
+                    writeStats(out, page.getStats());
+                }
+            }
+            case TodoStats stats -> {
+                out.write(TYPE_TODO_STATS);
+                writeStats(out, stats);
+            }
+            case TodoSearchPage page -> {
+                out.write(TYPE_TODO_SEARCH_PAGE);
+                out.write((page.getTodos() != null ? 1 : 0) | (page.getNextCursor() != null ? 2 : 0));
+                if (page.getTodos() != null) {
+                    writeTodos(out, page.getTodos());
+                }
+                if (page.getNextCursor() != null) {
+                    writeString(out, page.getNextCursor());
+                }
+            }
+            case List<?> list when list.stream().allMatch(Todo.class::isInstance) -> {
+                out.write(TYPE_TODO_LIST);
+                writeTodos(out, list);
+            }
+            case Optional<?> optional when optional.isEmpty() || optional.get() instanceof Todo -> {
+                out.write(TYPE_OPTIONAL_TODO);
+                out.write(optional.isPresent() ? 1 : 0);
+                if (optional.isPresent()) {
+                    writeTodo(out, (Todo) optional.get());
+                }
+            }
+            case null, default -> {
+                return fallback.serialize(value);
+            }
+        }
+        return out.toByteArray();
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0 || bytes[0] != MAGIC) {
+            return fallback.deserialize(bytes);
+        }
+        if (bytes.length < 3 || bytes[1] != VERSION) {
+            return null;
+        }
+
+        Input in = new Input(bytes, 3);
+        try {
+            return decode(in, bytes[2]);
+        } finally {
+            in.release();
+        }
+    }
+
+    private static Object decode(Input in, byte type) {
+        return switch (type) {
+            case TYPE_TODO -> readTodo(in);
+            case TYPE_TODO_PAGE -> {
+                int present = in.read();
+                List<Todo> todos = (present & 1) != 0 ? readTodos(in) : null;
+                TodoStats stats = (present & 2) != 0 ? readStats(in) : null;
+                yield new TodoPage(todos, stats);
+            }
+            case TYPE_TODO_STATS -> readStats(in);
+            case TYPE_TODO_SEARCH_PAGE -> {
+                int present = in.read();
+                List<Todo> todos = (present & 1) != 0 ? readTodos(in) : null;
+                String nextCursor = (present & 2) != 0 ? readString(in) : null;
+                yield new TodoSearchPage(todos, nextCursor);
+            }
+            case TYPE_TODO_LIST -> readTodos(in);
+            case TYPE_OPTIONAL_TODO -> in.read() != 0 ? Optional.of(readTodo(in)) : Optional.empty();
+            default -> throw new SerializationException("Unknown cache value type " + type);
+        };
+    }
+
+    private void writeTodos(Output out, List<?> todos) {
+        out.writeVarLong(todos.size());
+        for (Object todo : todos) {
+            writeTodo(out, (Todo) todo);
+        }
+    }
+
+    private void writeTodo(Output out, Todo todo) {
+        int flags = (todo.getId() != null ? HAS_ID : 0)
+                | (todo.getTitle() != null ? HAS_TITLE : 0)
+                | (todo.getDescription() != null ? HAS_DESCRIPTION : 0)
+                | (todo.getCompleted() != null ? HAS_COMPLETED : 0)
+                | (Boolean.TRUE.equals(todo.getCompleted()) ? COMPLETED : 0)
+                | (todo.getCreatedAt() != null ? HAS_CREATED_AT : 0)
+                | (todo.getUpdatedAt() != null ? HAS_UPDATED_AT : 0);
+        out.write(flags);
+        if (todo.getId() != null) {
+            out.writeZigZag(todo.getId());
+        }
+        if (todo.getTitle() != null) {
+            writeString(out, todo.getTitle());
+        }
+        if (todo.getDescription() != null) {
+            writeString(out, todo.getDescription());
+        }
+        if (todo.getCreatedAt() != null) {
+            writeDateTime(out, todo.getCreatedAt());
+        }
+        if (todo.getUpdatedAt() != null) {
+            writeDateTime(out, todo.getUpdatedAt());
+        }
+    }
+
+    private static void writeStats(Output out, TodoStats stats) {
+        out.writeZigZag(stats.getTotal());
+        out.writeZigZag(stats.getCompleted());
+    }
+
+    private void writeString(Output out, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (compressionThreshold > 0 && bytes.length >= compressionThreshold) {
+            byte[] deflated = out.deflate(bytes);
+            if (deflated.length < bytes.length) {
+                out.write(STRING_DEFLATED);
+                out.writeVarLong(bytes.length);
+                out.writeVarLong(deflated.length);
+                out.write(deflated);
+                return;
+            }
+        }
+        out.write(STRING_PLAIN);
+        out.writeVarLong(bytes.length);
+        out.write(bytes);
+    }
+
+    private static void writeDateTime(Output out, LocalDateTime dateTime) {
+        out.writeZigZag(dateTime.toEpochSecond(ZoneOffset.UTC));
+        out.writeVarLong(dateTime.getNano());
+    }
+
+    private static List<Todo> readTodos(Input in) {
+        int size = (int) in.readVarLong();
+        List<Todo> todos = new ArrayList<>(Math.min(size, 1024));
+        for (int i = 0; i < size; i++) {
+            todos.add(readTodo(in));
+        }
+        return todos;
+    }
+
+    private static Todo readTodo(Input in) {
+        int flags = in.read();
+        Todo todo = new Todo();
+        if ((flags & HAS_ID) != 0) {
+            todo.setId(in.readZigZag());
+        }
+        if ((flags & HAS_TITLE) != 0) {
+            todo.setTitle(readString(in));
+        }
+        if ((flags & HAS_DESCRIPTION) != 0) {
+            todo.setDescription(readString(in));
+        }
+        if ((flags & HAS_COMPLETED) != 0) {
+            todo.setCompleted((flags & COMPLETED) != 0);
+        }
+        if ((flags & HAS_CREATED_AT) != 0) {
+            todo.setCreatedAt(readDateTime(in));
+        }
+        if ((flags & HAS_UPDATED_AT) != 0) {
+            todo.setUpdatedAt(readDateTime(in));
+        }
+        return todo;
+    }
+
+    private static TodoStats readStats(Input in) {
+        return new TodoStats(in.readZigZag(), in.readZigZag());
+    }
+
+    private static String readString(Input in) {
+        int encoding = in.read();
+        int length = (int) in.readVarLong();
+        if (encoding == STRING_PLAIN) {
+            return in.readString(length);
+        }
+        int deflatedLength = (int) in.readVarLong();
+        return new String(in.inflate(deflatedLength, length), StandardCharsets.UTF_8);
+    }
+
+    private static LocalDateTime readDateTime(Input in) {
+        long epochSecond = in.readZigZag();
+        int nano = (int) in.readVarLong();
+        return LocalDateTime.ofEpochSecond(epochSecond, nano, ZoneOffset.UTC);
+    }
+
+    private static final class Output extends ByteArrayOutputStream {
+
+        // Created on first use and shared by all strings of one value; zlib setup dominates short inputs
+        private Deflater deflater;
+        private byte[] deflateBuffer;
+
+        Output() {
+            super(256);
+        }
+
+        byte[] deflate(byte[] bytes) {
+            if (deflater == null) {
+                deflater = new Deflater(Deflater.BEST_SPEED, true);
+                deflateBuffer = new byte[4096];
+            } else {
+                deflater.reset();
+            }
+            deflater.setInput(bytes);
+            deflater.finish();
+            ByteArrayOutputStream deflated = new ByteArrayOutputStream(bytes.length / 2);
+            while (!deflater.finished()) {
+                deflated.write(deflateBuffer, 0, deflater.deflate(deflateBuffer));
+            }
+            return deflated.toByteArray();
+        }
+
+        void release() {
+            if (deflater != null) {
+                deflater.end();
+            }
+        }
+
+        void writeVarLong(long value) {
+            while ((value & ~0x7FL) != 0) {
+                write((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            write((int) value);
+        }
+
+        void writeZigZag(long value) {
+            writeVarLong((value << 1) ^ (value >> 63));
+        }
+
+        @Override
+        public void write(byte[] bytes) {
+            write(bytes, 0, bytes.length);
+        }
+    }
+
+    private static final class Input {
+
+        private final byte[] bytes;
+        private int position;
+        private Inflater inflater;
+
+        Input(byte[] bytes, int position) {
+            this.bytes = bytes;
+            this.position = position;
+        }
+
+        int read() {
+            if (position >= bytes.length) {
+                throw new SerializationException("Truncated cache value");
+            }
+            return bytes[position++] & 0xFF;
+        }
+
+        long readVarLong() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = read();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new SerializationException("Malformed varint in cache value");
+        }
+
+        long readZigZag() {
+            long value = readVarLong();
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        String readString(int length) {
+            checkAvailable(length);
+            String value = new String(bytes, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+
+        byte[] inflate(int deflatedLength, int length) {
+            checkAvailable(deflatedLength);
+            if (inflater == null) {
+                inflater = new Inflater(true);
+            } else {
+                inflater.reset();
+            }
+            inflater.setInput(bytes, position, deflatedLength);
+            position += deflatedLength;
+
+            byte[] result = new byte[length];
+            int offset = 0;
+            try {
+                while (offset < length && !inflater.finished()) {
+                    int inflated = inflater.inflate(result, offset, length - offset);
+                    if (inflated == 0 && inflater.needsInput()) {
+                        break;
+                    }
+                    offset += inflated;
+                }
+            } catch (DataFormatException e) {
+                throw new SerializationException("Corrupt compressed string in cache value", e);
+            }
+            if (offset != length) {
+                throw new SerializationException("Truncated compressed string in cache value");
+            }
+            return result;
+        }
+
+        void release() {
+            if (inflater != null) {
+                inflater.end();
+            }
+        }
+
+        private void checkAvailable(int length) {
+            if (length < 0 || position + length > bytes.length) {
+                throw new SerializationException("Truncated cache value");
+            }
+        }
+    }
+}
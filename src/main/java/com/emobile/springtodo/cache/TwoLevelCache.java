@@ -0,0 +1,636 @@
+package com.emobile.springtodo.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-process L1 (Caffeine) in front of a shared L2 (Redis) cache.
+ * Local modifications are broadcast so that other nodes drop their L1 copy.
+ * <p>
+ * Loads through {@link #get(Object, Callable)} are coalesced: concurrent misses on one key run a single
+ * loader on this node and share its result. Entries are also refreshed probabilistically before their TTL runs
+ * out (XFetch), with a probability that grows as expiry nears and with the cost of the load, so hot keys are
+ * recomputed ahead of time instead of by every request at expiry. The expiry and load time travel with the
+ * entry in a sibling Redis key, so nodes that read the entry from Redis refresh it as eagerly as the node that
+ * loaded it; the refresh itself runs on a separate executor while the request returns the cached value.
+ * <p>
+ * Redis is reached only through the {@link RedisCircuitBreaker}: failures read as misses, and while the circuit
+ * is open this cache is L1 plus the database. Writes to Redis and the invalidation broadcast that follows them
+ * run in order on a background writer; until a key's write has been applied, reads of that key skip Redis so
+ * this node never reads back the value it just replaced. Writes that could not reach Redis leave their keys
+ * marked stale, and those are evicted by the next write that gets through, or when the circuit closes again.
+ * <p>
+ * Lookups, evictions and load times are also recorded per key family, the part of the key before the first
+ * separator ({@code all}, {@code completed}, {@code stats}, ...; plain ids are {@code id}).
+ */
+public class TwoLevelCache implements Cache {
+
+    private static final Logger logger = LoggerFactory.getLogger(TwoLevelCache.class);
+    private static final String ALL_KEYS = "*";
+    private static final String TIMING_SUFFIX = "#timing";
+    // Keys per DEL and per broadcast; each key also has its timing key deleted
+    private static final int EVICTION_CHUNK_SIZE = 250;
+
+    private final String name;
+    private final com.github.benmanes.caffeine.cache.Cache<String, Object> localCache;
+    private final Cache redisCache;
+    private final BulkEviction redisBulkEviction;
+    private final CacheInvalidationPublisher invalidationPublisher;
+    private final long ttlMillis;
+    private final double earlyRefreshBeta;
+    private final RedisCircuitBreaker circuitBreaker;
+    private final Executor redisWriter;
+    private final Executor refresher;
+    private final long maximumSize;
+    private final MeterRegistry meterRegistry;
+    private final ConcurrentMap<String, FamilyMeters> familyMeters = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<String, CompletableFuture<Object>> loads = new ConcurrentHashMap<>();
+    private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+    private final com.github.benmanes.caffeine.cache.Cache<String, LoadTiming> loadTimings;
+    private final ConcurrentMap<String, Integer> pendingWrites = new ConcurrentHashMap<>();
+    private final AtomicInteger pendingClears = new AtomicInteger();
+    private final Set<String> staleKeys = ConcurrentHashMap.newKeySet();
+    private volatile boolean allStale;
+
+    private final LongAdder localHits = new LongAdder();
+    private final LongAdder redisHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder coalescedLoads = new LongAdder();
+    private final LongAdder earlyRefreshes = new LongAdder();
+
+    public TwoLevelCache(String name,
+                         com.github.benmanes.caffeine.cache.Cache<String, Object> localCache,
+                         Cache redisCache,
+                         BulkEviction redisBulkEviction,
+                         CacheInvalidationPublisher invalidationPublisher,
+                         Duration ttl,
+                         long maximumSize,
+                         double earlyRefreshBeta,
+                         RedisCircuitBreaker circuitBreaker,
+                         Executor redisWriter,
+                         Executor refresher,
+                         MeterRegistry meterRegistry) {
+        this.name = name;
+        this.localCache = localCache;
+        this.redisCache = redisCache;
+        this.redisBulkEviction = redisBulkEviction;
+        this.invalidationPublisher = invalidationPublisher;
+        this.ttlMillis = ttl.toMillis();
+        this.earlyRefreshBeta = earlyRefreshBeta;
+        this.circuitBreaker = circuitBreaker;
+        this.redisWriter = redisWriter;
+        this.refresher = refresher;
+        this.maximumSize = maximumSize;
+        this.meterRegistry = meterRegistry;
+        this.loadTimings = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return redisCache.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        return lookup(key, localKey(key), false);
+    }
+
+    private ValueWrapper lookup(Object key, String localKey, boolean readTiming) {
+        Object localValue = localCache.getIfPresent(localKey);
+        if (localValue != null) {
+            localHits.increment();
+            meters(localKey).localHits().increment();
+            return new SimpleValueWrapper(localValue);
+        }
+
+        ValueWrapper wrapper = readsRedis(localKey) ? circuitBreaker.execute(() -> redisCache.get(key), () -> null) : null;
+        if (wrapper != null && wrapper.get() != null) {
+            redisHits.increment();
+            meters(localKey).redisHits().increment();
+            localCache.put(localKey, wrapper.get());
+            if (readTiming && earlyRefreshBeta > 0) {
+                readTiming(localKey);
+            }
+            return wrapper;
+        }
+
+        misses.increment();
+        meters(localKey).misses().increment();
+        return null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper wrapper = get(key);
+        Object value = wrapper != null ? wrapper.get() : null;
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException(
+                    "Cached value is not of required type [" + type.getName() + "]: " + value);
+        }
+        return (T) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        String localKey = localKey(key);
+        ValueWrapper wrapper = lookup(key, localKey, true);
+        if (wrapper != null) {
+            if (shouldRefreshEarly(localKey)) {
+                refreshEarly(key, localKey, valueLoader);
+            }
+            return (T) wrapper.get();
+        }
+
+        CompletableFuture<Object> load = new CompletableFuture<>();
+        CompletableFuture<Object> inFlight = loads.putIfAbsent(localKey, load);
+        if (inFlight != null) {
+            coalescedLoads.increment();
+            return (T) await(inFlight);
+        }
+
+        try {
+            // A load that finished between our miss and registering has already filled L1
+            Object value = localCache.getIfPresent(localKey);
+            if (value == null) {
+                value = loadAndStore(key, localKey, valueLoader);
+            }
+            load.complete(value);
+            return (T) value;
+        } catch (RuntimeException | Error ex) {
+            load.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            loads.remove(localKey, load);
+        }
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        String localKey = localKey(key);
+        loadTimings.invalidate(localKey);
+        localCache.put(localKey, value);
+        writeBehind(localKey, () -> {
+            redisCache.put(key, value);
+            redisCache.evict(timingKey(localKey));
+        }, true);
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        String localKey = localKey(key);
+        Optional<ValueWrapper> existing = circuitBreaker.execute(
+                () -> Optional.ofNullable(redisCache.putIfAbsent(key, value)), () -> null);
+        if (existing == null) {
+            // Redis could not tell us, so only this node sees the value
+            localCache.asMap().putIfAbsent(localKey, value);
+            return null;
+        }
+        if (existing.isEmpty()) {
+            localCache.put(localKey, value);
+            invalidationPublisher.publishEviction(name, localKey);
+        }
+        return existing.orElse(null);
+    }
+
+    @Override
+    public void evict(Object key) {
+        String localKey = localKey(key);
+        loadTimings.invalidate(localKey);
+        localCache.invalidate(localKey);
+        meters(localKey).evictions().increment();
+        writeBehind(localKey, () -> evictRedis(localKey), true);
+    }
+
+    /**
+     * Evicts several keys in chunks of {@value #EVICTION_CHUNK_SIZE}, each one background write issuing a single
+     * multi-key {@code DEL} and one broadcast, so a bulk change costs a round trip per chunk rather than per key,
+     * and other nodes drop only these keys instead of their whole L1.
+     */
+    public void evictAll(Collection<?> keys) {
+        List<String> localKeys = keys.stream().map(TwoLevelCache::localKey).toList();
+        for (String localKey : localKeys) {
+            loadTimings.invalidate(localKey);
+            localCache.invalidate(localKey);
+            meters(localKey).evictions().increment();
+        }
+        for (int from = 0; from < localKeys.size(); from += EVICTION_CHUNK_SIZE) {
+            evictChunk(localKeys.subList(from, Math.min(from + EVICTION_CHUNK_SIZE, localKeys.size())));
+        }
+    }
+
+    private void evictChunk(List<String> localKeys) {
+        localKeys.forEach(localKey -> pendingWrites.merge(localKey, 1, Integer::sum));
+        try {
+            redisWriter.execute(() -> {
+                try {
+                    List<String> redisKeys = new ArrayList<>(localKeys.size() * 2);
+                    for (String localKey : localKeys) {
+                        redisKeys.add(localKey);
+                        redisKeys.add(timingKey(localKey));
+                    }
+                    if (circuitBreaker.run(() -> redisBulkEviction.evictAll(redisKeys))) {
+                        invalidationPublisher.publishEvictions(name, localKeys);
+                        repairIfStale();
+                    } else {
+                        localKeys.forEach(this::markStale);
+                    }
+                } catch (RuntimeException e) {
+                    logger.warn("Redis eviction of {} keys in {} failed: {}", localKeys.size(), name, e.getMessage());
+                    localKeys.forEach(this::markStale);
+                } finally {
+                    localKeys.forEach(this::completeWrite);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            localKeys.forEach(this::completeWrite);
+            localKeys.forEach(this::markStale);
+        }
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        String localKey = localKey(key);
+        loadTimings.invalidate(localKey);
+        boolean evictedLocally = localCache.asMap().remove(localKey) != null;
+        meters(localKey).evictions().increment();
+        boolean evicted = circuitBreaker.execute(() -> {
+            redisCache.evict(timingKey(localKey));
+            return redisCache.evictIfPresent(key);
+        }, () -> {
+            markStale(localKey);
+            return false;
+        });
+        invalidationPublisher.publishEviction(name, localKey);
+        return evicted || evictedLocally;
+    }
+
+    @Override
+    public void clear() {
+        loadTimings.invalidateAll();
+        localCache.invalidateAll();
+        familyMeters(ALL_KEYS).evictions().increment();
+        pendingClears.incrementAndGet();
+        try {
+            redisWriter.execute(() -> {
+                try {
+                    clearRedis();
+                } finally {
+                    pendingClears.decrementAndGet();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            pendingClears.decrementAndGet();
+            allStale = true;
+        }
+    }
+
+    @Override
+    public boolean invalidate() {
+        loadTimings.invalidateAll();
+        localCache.invalidateAll();
+        boolean invalidated = circuitBreaker.execute(redisCache::invalidate, () -> {
+            allStale = true;
+            return false;
+        });
+        invalidationPublisher.publishClear(name);
+        return invalidated;
+    }
+
+    /**
+     * Evicts from Redis whatever writes could not reach it while it was unavailable.
+     * Runs on the Redis writer after the circuit closes again or a later write succeeded.
+     */
+    void repairStaleEntries() {
+        if (allStale) {
+            clearRedis();
+            return;
+        }
+        for (String localKey : staleKeys) {
+            staleKeys.remove(localKey);
+            if (circuitBreaker.run(() -> evictRedis(localKey))) {
+                invalidationPublisher.publishEviction(name, localKey);
+            } else {
+                markStale(localKey);
+                return;
+            }
+        }
+    }
+
+    private void evictRedis(String localKey) {
+        redisCache.evict(localKey);
+        redisCache.evict(timingKey(localKey));
+    }
+
+    // Forgotten before the command, so keys marked stale while it runs stay marked
+    private void clearRedis() {
+        allStale = false;
+        staleKeys.clear();
+        if (circuitBreaker.run(redisCache::clear)) {
+            invalidationPublisher.publishClear(name);
+        } else {
+            allStale = true;
+        }
+    }
+
+    // A single failed command does not open the circuit, so a write that got through is what shows Redis is back
+    private void repairIfStale() {
+        if (allStale || !staleKeys.isEmpty()) {
+            repairStaleEntries();
+        }
+    }
+
+    /**
+     * Applies a Redis write on the background writer, then tells other nodes to drop their L1 copy. A write
+     * that replaces or removes a value leaves the key stale in Redis if it cannot be applied.
+     */
+    private void writeBehind(String localKey, Runnable write, boolean replacesValue) {
+        pendingWrites.merge(localKey, 1, Integer::sum);
+        try {
+            redisWriter.execute(() -> {
+                try {
+                    if (circuitBreaker.run(write)) {
+                        if (replacesValue) {
+                            invalidationPublisher.publishEviction(name, localKey);
+                        }
+                        repairIfStale();
+                    } else if (replacesValue) {
+                        markStale(localKey);
+                    }
+                } catch (RuntimeException e) {
+                    logger.warn("Redis write for {}::{} failed: {}", name, localKey, e.getMessage());
+                    if (replacesValue) {
+                        markStale(localKey);
+                    }
+                } finally {
+                    completeWrite(localKey);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            completeWrite(localKey);
+            if (replacesValue) {
+                markStale(localKey);
+            }
+        }
+    }
+
+    private void completeWrite(String localKey) {
+        pendingWrites.computeIfPresent(localKey, (k, count) -> count == 1 ? null : count - 1);
+    }
+
+    private boolean readsRedis(String localKey) {
+        return pendingClears.get() == 0 && !pendingWrites.containsKey(localKey)
+                && !allStale && !staleKeys.contains(localKey);
+    }
+
+    private void markStale(String localKey) {
+        if (staleKeys.size() >= maximumSize) {
+            allStale = true;
+        } else {
+            staleKeys.add(localKey);
+        }
+    }
+
+    private boolean shouldRefreshEarly(String localKey) {
+        if (earlyRefreshBeta <= 0) {
+            return false;
+        }
+        LoadTiming timing = loadTimings.getIfPresent(localKey);
+        if (timing == null) {
+            return false;
+        }
+        double gapMillis = timing.loadNanos() * earlyRefreshBeta
+                * -Math.log(1.0 - ThreadLocalRandom.current().nextDouble()) / 1_000_000;
+        return System.currentTimeMillis() + gapMillis >= timing.expiresAtMillis();
+    }
+
+    // Whoever wins the slot has the entry recomputed in the background; every request, the winner's included,
+    // keeps getting the current value. With all refreshers busy the refresh is skipped, not queued
+    private void refreshEarly(Object key, String localKey, Callable<?> valueLoader) {
+        if (!refreshing.add(localKey)) {
+            return;
+        }
+        try {
+            refresher.execute(() -> {
+                CompletableFuture<Object> load = new CompletableFuture<>();
+                try {
+                    // A miss already loading the key refreshes it as well
+                    if (loads.putIfAbsent(localKey, load) == null) {
+                        load.complete(loadAndStore(key, localKey, valueLoader));
+                    }
+                } catch (RuntimeException ex) {
+                    logger.warn("Early refresh of {}::{} failed, keeping the cached value: {}",
+                            name, localKey, ex.getMessage());
+                    load.completeExceptionally(ex);
+                } finally {
+                    loads.remove(localKey, load);
+                    refreshing.remove(localKey);
+                }
+            });
+            earlyRefreshes.increment();
+        } catch (RejectedExecutionException e) {
+            refreshing.remove(localKey);
+        }
+    }
+
+    // Expiry and load time as recorded by whichever node loaded the entry
+    private void readTiming(String localKey) {
+        String encoded = circuitBreaker.execute(() -> redisCache.get(timingKey(localKey), String.class), () -> null);
+        LoadTiming timing = encoded != null ? LoadTiming.decode(encoded) : null;
+        if (timing != null) {
+            loadTimings.put(localKey, timing);
+        } else {
+            loadTimings.invalidate(localKey);
+        }
+    }
+
+    private Object loadAndStore(Object key, String localKey, Callable<?> valueLoader) {
+        long start = System.nanoTime();
+        Object value;
+        try {
+            value = valueLoader.call();
+        } catch (Exception ex) {
+            throw new ValueRetrievalException(key, valueLoader, ex);
+        }
+        long loaded = System.nanoTime();
+        meters(localKey).loads().record(loaded - start, TimeUnit.NANOSECONDS);
+
+        if (value != null) {
+            localCache.put(localKey, value);
+            LoadTiming timing = new LoadTiming(System.currentTimeMillis() + ttlMillis, loaded - start);
+            loadTimings.put(localKey, timing);
+            // Only fills a gap, so losing it costs a later miss at most
+            writeBehind(localKey, () -> {
+                redisCache.put(key, value);
+                redisCache.put(timingKey(localKey), timing.encode());
+            }, false);
+        }
+        return value;
+    }
+
+    private static Object await(CompletableFuture<Object> load) {
+        try {
+            return load.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (ex.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw ex;
+        }
+    }
+
+    void evictLocal(String localKey) {
+        loadTimings.invalidate(localKey);
+        localCache.invalidate(localKey);
+    }
+
+    void clearLocal() {
+        loadTimings.invalidateAll();
+        localCache.invalidateAll();
+    }
+
+    long getLocalSize() {
+        return localCache.estimatedSize();
+    }
+
+    long getLocalHitCount() {
+        return localHits.sum();
+    }
+
+    long getRedisHitCount() {
+        return redisHits.sum();
+    }
+
+    long getMissCount() {
+        return misses.sum();
+    }
+
+    long getCoalescedLoadCount() {
+        return coalescedLoads.sum();
+    }
+
+    long getEarlyRefreshCount() {
+        return earlyRefreshes.sum();
+    }
+
+    double getLocalHitRatio() {
+        long hits = localHits.sum();
+        long total = hits + redisHits.sum() + misses.sum();
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+
+    double getRedisHitRatio() {
+        long hits = redisHits.sum();
+        long lookups = hits + misses.sum();
+        return lookups == 0 ? 0.0 : (double) hits / lookups;
+    }
+
+    private static String localKey(Object key) {
+        return String.valueOf(key);
+    }
+
+    private static String timingKey(String localKey) {
+        return localKey + TIMING_SUFFIX;
+    }
+
+    private static String keyFamily(String localKey) {
+        int end = 0;
+        while (end < localKey.length() && Character.isLetter(localKey.charAt(end))) {
+            end++;
+        }
+        return end == 0 ? "id" : localKey.substring(0, end);
+    }
+
+    private FamilyMeters meters(String localKey) {
+        return familyMeters(keyFamily(localKey));
+    }
+
+    private FamilyMeters familyMeters(String family) {
+        return familyMeters.computeIfAbsent(family, this::registerFamilyMeters);
+    }
+
+    private FamilyMeters registerFamilyMeters(String family) {
+        Tags tags = Tags.of("cache", name, "family", family);
+        return new FamilyMeters(
+                Counter.builder("cache.gets").tags(tags).tag("result", "l1_hit")
+                        .description("Lookups per key family and outcome").register(meterRegistry),
+                Counter.builder("cache.gets").tags(tags).tag("result", "l2_hit")
+                        .description("Lookups per key family and outcome").register(meterRegistry),
+                Counter.builder("cache.gets").tags(tags).tag("result", "miss")
+                        .description("Lookups per key family and outcome").register(meterRegistry),
+                Counter.builder("cache.evictions").tags(tags)
+                        .description("Explicit evictions per key family; clears of the whole cache count under *")
+                        .register(meterRegistry),
+                Timer.builder("cache.load").tags(tags)
+                        .description("Time to compute a missing or refreshed entry")
+                        .publishPercentileHistogram()
+                        .register(meterRegistry));
+    }
+
+    /**
+     * Deletes entries of the Redis tier, given by their keys within the cache, with one command.
+     */
+    @FunctionalInterface
+    public interface BulkEviction {
+
+        void evictAll(Collection<String> keys);
+    }
+
+    private record LoadTiming(long expiresAtMillis, long loadNanos) {
+
+        String encode() {
+            return expiresAtMillis + ":" + loadNanos;
+        }
+
+        static LoadTiming decode(String encoded) {
+            int colon = encoded.indexOf(':');
+            try {
+                return new LoadTiming(Long.parseLong(encoded.substring(0, colon)),
+                        Long.parseLong(encoded.substring(colon + 1)));
+            } catch (RuntimeException e) {
+                return null;
+            }
+        }
+    }
+
+    private record FamilyMeters(Counter localHits, Counter redisHits, Counter misses, Counter evictions, Timer loads) {
+    }
+}
@@ -0,0 +1,261 @@
+package com.emobile.springtodo.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+public class TwoLevelCacheManager implements CacheManager, CacheInvalidationPublisher, MessageListener, SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(TwoLevelCacheManager.class);
+
+    private static final String EVICT = "E";
+    private static final String EVICT_ALL = "A";
+    private static final String CLEAR = "C";
+    private static final String SEPARATOR = "|";
+    // Ids and page keys never contain line breaks
+    private static final String KEY_SEPARATOR = "\n";
+
+    private final RedisCacheManager redisCacheManager;
+    private final StringRedisTemplate redisTemplate;
+    private final MeterRegistry meterRegistry;
+    private final String invalidationChannel;
+    private final long localMaximumSize;
+    private final Duration localExpireAfterWrite;
+    private final double earlyRefreshBeta;
+    private final RedisCircuitBreaker circuitBreaker;
+    private final ThreadPoolExecutor redisWriter;
+    private final ThreadPoolExecutor refresher;
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final ConcurrentMap<String, TwoLevelCache> caches = new ConcurrentHashMap<>();
+
+    public TwoLevelCacheManager(RedisCacheManager redisCacheManager,
+                                StringRedisTemplate redisTemplate,
+                                MeterRegistry meterRegistry,
+                                String invalidationChannel,
+                                long localMaximumSize,
+                                Duration localExpireAfterWrite,
+                                double earlyRefreshBeta,
+                                RedisCircuitBreaker circuitBreaker,
+                                int writeQueueCapacity,
+                                int refreshThreads) {
+        this.redisCacheManager = redisCacheManager;
+        this.redisTemplate = redisTemplate;
+        this.meterRegistry = meterRegistry;
+        this.invalidationChannel = invalidationChannel;
+        this.localMaximumSize = localMaximumSize;
+        this.localExpireAfterWrite = localExpireAfterWrite;
+        this.earlyRefreshBeta = earlyRefreshBeta;
+        this.circuitBreaker = circuitBreaker;
+        // One thread keeps Redis writes and the broadcasts that follow them in submission order
+        this.redisWriter = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(writeQueueCapacity),
+                Thread.ofPlatform().name("redis-cache-writer").daemon().factory());
+        // Early refreshes that find every thread busy are dropped; the entry is still served until it expires
+        this.refresher = new ThreadPoolExecutor(0, refreshThreads, 30, TimeUnit.SECONDS, new SynchronousQueue<>(),
+                Thread.ofPlatform().name("cache-refresher-", 0).daemon().factory());
+        circuitBreaker.addRecoveryListener(this::repairStaleEntries);
+
+        Gauge.builder("cache.redis.write.queue", redisWriter, executor -> executor.getQueue().size())
+                .description("Redis cache writes waiting for the background writer")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public TwoLevelCache getCache(String name) {
+        return caches.computeIfAbsent(name, this::createCache);
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return Collections.unmodifiableSet(caches.keySet());
+    }
+
+    @Override
+    public void publishEviction(String cacheName, String key) {
+        publish(evictionMessage(nodeId, cacheName, key));
+    }
+
+    @Override
+    public void publishEvictions(String cacheName, Collection<String> keys) {
+        publish(evictionMessage(nodeId, cacheName, keys));
+    }
+
+    @Override
+    public void publishClear(String cacheName) {
+        publish(clearMessage(nodeId, cacheName));
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split("\\" + SEPARATOR, 4);
+        if (parts.length < 4 || nodeId.equals(parts[0])) {
+            return;
+        }
+
+        TwoLevelCache cache = caches.get(parts[2]);
+        if (cache == null) {
+            return;
+        }
+
+        if (CLEAR.equals(parts[1])) {
+            cache.clearLocal();
+        } else if (EVICT_ALL.equals(parts[1])) {
+            for (String key : parts[3].split(KEY_SEPARATOR)) {
+                cache.evictLocal(key);
+            }
+        } else {
+            cache.evictLocal(parts[3]);
+        }
+    }
+
+    public String getInvalidationChannel() {
+        return invalidationChannel;
+    }
+
+    @Override
+    public void start() {
+    }
+
+    // Drains pending Redis writes after the web server has stopped and before the Redis client shuts down
+    @Override
+    public void stop() {
+        refresher.shutdownNow();
+        redisWriter.shutdown();
+        try {
+            if (!redisWriter.awaitTermination(5, TimeUnit.SECONDS)) {
+                logger.warn("Dropping {} pending Redis cache writes on shutdown", redisWriter.getQueue().size());
+                redisWriter.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            redisWriter.shutdownNow();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return !redisWriter.isShutdown();
+    }
+
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+
+    static String evictionMessage(String nodeId, String cacheName, String key) {
+        return String.join(SEPARATOR, nodeId, EVICT, cacheName, key);
+    }
+
+    static String evictionMessage(String nodeId, String cacheName, Collection<String> keys) {
+        return String.join(SEPARATOR, nodeId, EVICT_ALL, cacheName, String.join(KEY_SEPARATOR, keys));
+    }
+
+    static String clearMessage(String nodeId, String cacheName) {
+        return String.join(SEPARATOR, nodeId, CLEAR, cacheName, "");
+    }
+
+    private void publish(String message) {
+        if (circuitBreaker.run(() -> redisTemplate.convertAndSend(invalidationChannel, message))) {
+            logger.trace("Published cache invalidation {}", message);
+        }
+    }
+
+    private void repairStaleEntries() {
+        for (TwoLevelCache cache : caches.values()) {
+            try {
+                redisWriter.execute(cache::repairStaleEntries);
+            } catch (RejectedExecutionException e) {
+                logger.warn("Could not schedule repair of stale entries in cache {}", cache.getName());
+            }
+        }
+    }
+
+    private TwoLevelCache createCache(String name) {
+        RedisCache redisCache = (RedisCache) redisCacheManager.getCache(name);
+        if (redisCache == null) {
+            throw new IllegalStateException("No Redis cache configured for name: " + name);
+        }
+        RedisCacheConfiguration configuration = redisCache.getCacheConfiguration();
+        // TTLs are fixed per cache, so the key and value do not matter here
+        Duration ttl = configuration.getTtlFunction().getTimeToLive(name, null);
+
+        String keyPrefix = configuration.usePrefix() ? configuration.getKeyPrefixFor(name) : "";
+        TwoLevelCache.BulkEviction bulkEviction =
+                keys -> redisTemplate.delete(keys.stream().map(key -> keyPrefix + key).toList());
+
+        com.github.benmanes.caffeine.cache.Cache<String, Object> localCache = Caffeine.newBuilder()
+                .maximumSize(localMaximumSize)
+                .expireAfterWrite(localExpireAfterWrite)
+                .build();
+
+        TwoLevelCache cache = new TwoLevelCache(name, localCache, redisCache, bulkEviction, this,
+                ttl, localMaximumSize, earlyRefreshBeta, circuitBreaker, redisWriter, refresher, meterRegistry);
+        bindMetrics(cache);
+        return cache;
+    }
+
+    private void bindMetrics(TwoLevelCache cache) {
+        Tags tags = Tags.of("cache", cache.getName());
+
+        FunctionCounter.builder("cache.l1.hits", cache, TwoLevelCache::getLocalHitCount)
+                .tags(tags)
+                .description("Lookups served from the in-process cache")
+                .register(meterRegistry);
+        FunctionCounter.builder("cache.l2.hits", cache, TwoLevelCache::getRedisHitCount)
+                .tags(tags)
+                .description("Lookups served from Redis after an in-process miss")
+                .register(meterRegistry);
+        FunctionCounter.builder("cache.misses", cache, TwoLevelCache::getMissCount)
+                .tags(tags)
+                .description("Lookups missing both cache tiers")
+                .register(meterRegistry);
+
+        FunctionCounter.builder("cache.loads.coalesced", cache, TwoLevelCache::getCoalescedLoadCount)
+                .tags(tags)
+                .description("Misses that waited for a load already running on this node instead of loading again")
+                .register(meterRegistry);
+        FunctionCounter.builder("cache.refreshes.early", cache, TwoLevelCache::getEarlyRefreshCount)
+                .tags(tags)
+                .description("Entries recomputed ahead of their expiry")
+                .register(meterRegistry);
+
+        Gauge.builder("cache.l1.hit.ratio", cache, TwoLevelCache::getLocalHitRatio)
+                .tags(tags)
+                .description("Share of all lookups served from the in-process cache")
+                .register(meterRegistry);
+        Gauge.builder("cache.l2.hit.ratio", cache, TwoLevelCache::getRedisHitRatio)
+                .tags(tags)
+                .description("Share of in-process misses served from Redis")
+                .register(meterRegistry);
+        Gauge.builder("cache.l1.size", cache, TwoLevelCache::getLocalSize)
+                .tags(tags)
+                .description("Estimated number of entries in the in-process cache")
+                .register(meterRegistry);
+    }
+}
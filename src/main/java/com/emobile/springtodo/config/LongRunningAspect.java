@@ -0,0 +1,27 @@
+package com.emobile.springtodo.config;
+
+import com.emobile.springtodo.jdbc.BulkheadDataSource;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+
+/**
+ * Opens a long-running scope around {@link com.emobile.springtodo.jdbc.LongRunning} methods. Runs outside
+ * any transaction the method starts, so the transaction's connection is already taken in the scope.
+ */
+@Aspect
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class LongRunningAspect {
+
+    @Around("@annotation(com.emobile.springtodo.jdbc.LongRunning)")
+    public Object useLongRunningPermits(ProceedingJoinPoint joinPoint) throws Throwable {
+        boolean previous = BulkheadDataSource.beginLongRunning();
+        try {
+            return joinPoint.proceed();
+        } finally {
+            BulkheadDataSource.endLongRunning(previous);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.emobile.springtodo.config;
+
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import org.springframework.beans.factory.DisposableBean;
+
+/**
+ * Owns the R2DBC connection pool of the reactive mode. The pool is deliberately not a bean itself:
+ * a {@code ConnectionFactory} bean would switch off Boot's JDBC DataSource, which Liquibase,
+ * export, import and the scheduled jobs still use.
+ */
+public class R2dbcPool implements DisposableBean {
+
+    private final ConnectionPool pool;
+
+    public R2dbcPool(String url, String username, String password, int initialSize, int maxSize) {
+        ConnectionFactoryOptions options = ConnectionFactoryOptions.parse(url).mutate()
+                .option(ConnectionFactoryOptions.USER, username)
+                .option(ConnectionFactoryOptions.PASSWORD, password)
+                .build();
+        this.pool = new ConnectionPool(ConnectionPoolConfiguration.builder(ConnectionFactories.get(options))
+                .initialSize(initialSize)
+                .maxSize(maxSize)
+                .build());
+    }
+
+    public ConnectionPool getPool() {
+        return pool;
+    }
+
+    @Override
+    public void destroy() {
+        pool.dispose();
+    }
+}
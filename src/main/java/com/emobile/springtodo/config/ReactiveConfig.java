@@ -0,0 +1,68 @@
+package com.emobile.springtodo.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.r2dbc.pool.PoolMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.r2dbc.connection.R2dbcTransactionManager;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.transaction.reactive.TransactionalOperator;
+
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Active with the {@code reactive} profile: serves the API with WebFlux on Netty, with reads and writes of
+ * todos over R2DBC. The JDBC DataSource stays for Liquibase, export, import and the scheduled archive jobs.
+ */
+@Configuration(proxyBeanMethods = false)
+@Profile("reactive")
+public class ReactiveConfig {
+
+    // Tomcat is on the classpath for the servlet mode and would otherwise be picked for WebFlux too
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+
+    @Bean
+    public R2dbcPool r2dbcPool(@Value("${spring.r2dbc.url:}") String url,
+                               @Value("${spring.datasource.url}") String jdbcUrl,
+                               @Value("${spring.r2dbc.username:${spring.datasource.username}}") String username,
+                               @Value("${spring.r2dbc.password:${spring.datasource.password}}") String password,
+                               @Value("${spring.r2dbc.pool.initial-size:10}") int initialSize,
+                               @Value("${spring.r2dbc.pool.max-size:10}") int maxSize) {
+        // Defaults to the database of the JDBC DataSource
+        String r2dbcUrl = url.isEmpty() ? jdbcUrl.replaceFirst("^jdbc:", "r2dbc:") : url;
+        return new R2dbcPool(r2dbcUrl, username, password, initialSize, maxSize);
+    }
+
+    @Bean
+    public DatabaseClient databaseClient(R2dbcPool r2dbcPool) {
+        return DatabaseClient.create(r2dbcPool.getPool());
+    }
+
+    @Bean
+    public TransactionalOperator transactionalOperator(R2dbcPool r2dbcPool) {
+        return TransactionalOperator.create(new R2dbcTransactionManager(r2dbcPool.getPool()));
+    }
+
+    @Bean
+    public MeterBinder r2dbcPoolMetrics(R2dbcPool r2dbcPool) {
+        return registry -> r2dbcPool.getPool().getMetrics().ifPresent(metrics -> {
+            gauge(registry, metrics, "r2dbc.pool.acquired", "Connections in use", PoolMetrics::acquiredSize);
+            gauge(registry, metrics, "r2dbc.pool.idle", "Idle connections", PoolMetrics::idleSize);
+            gauge(registry, metrics, "r2dbc.pool.pending", "Subscribers waiting for a connection",
+                    PoolMetrics::pendingAcquireSize);
+        });
+    }
+
+    private static void gauge(MeterRegistry registry, PoolMetrics metrics, String name,
+                              String description, ToDoubleFunction<PoolMetrics> value) {
+        Gauge.builder(name, metrics, value).description(description).register(registry);
+    }
+}
@@ -0,0 +1,174 @@
+package com.emobile.springtodo.config;
+
+import com.emobile.springtodo.cache.CacheGeneration;
+import com.emobile.springtodo.jdbc.ReadReplicas;
+import com.emobile.springtodo.jdbc.ReplicaRoutingDataSource;
+import com.emobile.springtodo.jdbc.WalPosition;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.LongSupplier;
+
+/**
+ * Active when {@code todo.datasource.replicas.urls} is set. {@link com.emobile.springtodo.jdbc.ReplicaRead}
+ * methods then read from the replicas. For the sticky window after a write, which should cover the replication
+ * lag, a replica only serves reads once it has replayed that write: the client's own, carried in a cookie, and
+ * the one behind the current cache generation. Replicas use the primary's credentials and pool size.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(prefix = "todo.datasource.replicas", name = "urls")
+public class ReadReplicaConfig {
+
+    @Bean(destroyMethod = "close")
+    public ReadReplicas readReplicas(DataSourceProperties dataSourceProperties, MeterRegistry meterRegistry,
+                                     @Value("${todo.datasource.replicas.urls}") List<String> urls,
+                                     @Value("${todo.datasource.replicas.selection:round-robin}") String selection,
+                                     @Value("${todo.datasource.replicas.connection-timeout:1s}") Duration connectionTimeout,
+                                     @Value("${todo.datasource.replicas.retry-after:5s}") Duration retryAfter,
+                                     @Value("${spring.datasource.hikari.maximum-pool-size:10}") int maximumPoolSize,
+                                     @Value("${spring.datasource.hikari.minimum-idle:${spring.datasource.hikari.maximum-pool-size:10}}") int minimumIdle) {
+        return new ReadReplicas(urls, dataSourceProperties.determineUsername(),
+                dataSourceProperties.determinePassword(), maximumPoolSize, minimumIdle, connectionTimeout,
+                ReadReplicas.Selection.valueOf(selection.toUpperCase(Locale.ROOT).replace('-', '_')), retryAfter, meterRegistry);
+    }
+
+    @Bean
+    public static BeanPostProcessor replicaRoutingPostProcessor(
+            ObjectProvider<ReadReplicas> readReplicas, ObjectProvider<CacheGeneration> cacheGeneration,
+            @Value("${todo.datasource.replicas.sticky-window:2s}") Duration stickyWindow) {
+        return new RoutingPostProcessor(readReplicas, cacheGeneration, stickyWindow);
+    }
+
+    @Bean
+    public ReplicaReadAspect replicaReadAspect() {
+        return new ReplicaReadAspect();
+    }
+
+    @Bean
+    public FilterRegistrationBean<ReadYourWritesFilter> readYourWritesFilter(
+            DataSource dataSource, @Value("${todo.datasource.replicas.sticky-window:2s}") Duration stickyWindow) {
+        JdbcTemplate primary = new JdbcTemplate(dataSource);
+        FilterRegistrationBean<ReadYourWritesFilter> registration =
+                new FilterRegistrationBean<>(new ReadYourWritesFilter(stickyWindow, () -> walPosition(primary)));
+        registration.addUrlPatterns("/api/*");
+        return registration;
+    }
+
+    @Bean
+    public MeterBinder readReplicaMetrics(ReadReplicas readReplicas) {
+        return registry -> {
+            for (String poolName : readReplicas.getPoolNames()) {
+                FunctionCounter.builder("jdbc.replica.reads", readReplicas, replicas -> replicas.getReads(poolName))
+                        .description("Connections handed out by a read replica")
+                        .tag("pool", poolName)
+                        .register(registry);
+                FunctionCounter.builder("jdbc.replica.failures", readReplicas, replicas -> replicas.getFailures(poolName))
+                        .description("Failed attempts to get a connection from a read replica")
+                        .tag("pool", poolName)
+                        .register(registry);
+            }
+            FunctionCounter.builder("jdbc.replica.fallbacks", readReplicas, ReadReplicas::getFallbacks)
+                    .description("Replica reads sent to the primary because no replica was available")
+                    .register(registry);
+            FunctionCounter.builder("jdbc.replica.lagging", readReplicas, ReadReplicas::getLagging)
+                    .description("Replica connections passed over because the replica had not replayed a recent write")
+                    .register(registry);
+        };
+    }
+
+    // Without a position, reads that need one stay on the primary
+    private static long walPosition(JdbcTemplate primary) {
+        try {
+            Long position = primary.execute((ConnectionCallback<Long>) WalPosition::current);
+            return position == null ? Long.MAX_VALUE : position;
+        } catch (DataAccessException e) {
+            return Long.MAX_VALUE;
+        }
+    }
+
+    /**
+     * Runs before the profiler so replica reads are profiled too.
+     */
+    private static final class RoutingPostProcessor implements BeanPostProcessor, Ordered {
+
+        private final ObjectProvider<ReadReplicas> readReplicas;
+        private final ObjectProvider<CacheGeneration> cacheGeneration;
+        private final Duration stickyWindow;
+
+        RoutingPostProcessor(ObjectProvider<ReadReplicas> readReplicas, ObjectProvider<CacheGeneration> cacheGeneration,
+                             Duration stickyWindow) {
+            this.readReplicas = readReplicas;
+            this.cacheGeneration = cacheGeneration;
+            this.stickyWindow = stickyWindow;
+        }
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (bean instanceof DataSource dataSource && !(bean instanceof ReplicaRoutingDataSource)) {
+                return new ReplicaRoutingDataSource(dataSource, readReplicas.getObject(),
+                        new GenerationPosition(cacheGeneration, new JdbcTemplate(dataSource), stickyWindow));
+            }
+            return bean;
+        }
+
+        @Override
+        public int getOrder() {
+            return Ordered.LOWEST_PRECEDENCE - 1;
+        }
+    }
+
+    /**
+     * The primary's WAL position once this node saw the current cache generation, while that was within the
+     * sticky window. The generation moves after the write behind it commits, so the position covers the write;
+     * a replica past it can fill pages cached under the generation. Other nodes' writes therefore only hold
+     * reads back until the replicas have replayed them, not for the whole window.
+     */
+    private static final class GenerationPosition implements LongSupplier {
+
+        private final ObjectProvider<CacheGeneration> cacheGeneration;
+        private final JdbcTemplate primary;
+        private final Duration stickyWindow;
+        private volatile Observed observed;
+
+        GenerationPosition(ObjectProvider<CacheGeneration> cacheGeneration, JdbcTemplate primary, Duration stickyWindow) {
+            this.cacheGeneration = cacheGeneration;
+            this.primary = primary;
+            this.stickyWindow = stickyWindow;
+        }
+
+        @Override
+        public long getAsLong() {
+            CacheGeneration generation = cacheGeneration.getObject();
+            if (!generation.changedWithin(stickyWindow)) {
+                return 0;
+            }
+            long current = generation.current();
+            Observed last = observed;
+            if (last == null || last.generation() != current) {
+                last = new Observed(current, walPosition(primary));
+                observed = last;
+            }
+            return last.position();
+        }
+
+        private record Observed(long generation, long position) {
+        }
+    }
+}
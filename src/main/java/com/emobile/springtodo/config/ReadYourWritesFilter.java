@@ -0,0 +1,89 @@
+package com.emobile.springtodo.config;
+
+import com.emobile.springtodo.jdbc.ReadRouting;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Set;
+import java.util.function.LongSupplier;
+
+/**
+ * Lets a client read what it wrote even if the replicas lag. A successful write hands the client the primary's
+ * WAL position in a cookie; for the sticky window after it, the client's reads only go to a replica that has
+ * replayed up to that position. The position travels with the client, so any instance can honour it, and
+ * other clients' writes do not keep this one off the replicas.
+ */
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+    static final String COOKIE_NAME = "todo-write-position";
+
+    private static final Set<String> WRITE_METHODS = Set.of("POST", "PUT", "PATCH", "DELETE");
+
+    private final Duration stickyWindow;
+    private final LongSupplier writePosition;
+
+    public ReadYourWritesFilter(Duration stickyWindow, LongSupplier writePosition) {
+        this.stickyWindow = stickyWindow;
+        this.writePosition = writePosition;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (!WRITE_METHODS.contains(request.getMethod())) {
+            long position = writtenPosition(request);
+            if (position > 0) {
+                ReadRouting.requirePosition(position);
+            }
+            try {
+                chain.doFilter(request, response);
+            } finally {
+                ReadRouting.unpin();
+            }
+            return;
+        }
+
+        // The body is held back until the outcome is known, since the cookie cannot be added once it is written
+        ContentCachingResponseWrapper buffered = new ContentCachingResponseWrapper(response);
+        ReadRouting.pinToPrimary();
+        try {
+            chain.doFilter(request, buffered);
+        } finally {
+            ReadRouting.unpin();
+        }
+        // A rejected or failed write changed nothing the client needs to wait for
+        if (HttpStatusCode.valueOf(buffered.getStatus()).is2xxSuccessful()) {
+            Cookie cookie = new Cookie(COOKIE_NAME, Long.toString(writePosition.getAsLong()));
+            cookie.setPath("/");
+            cookie.setHttpOnly(true);
+            cookie.setMaxAge((int) Math.max(1, Duration.ofMillis(stickyWindow.toMillis() + 999).toSeconds()));
+            response.addCookie(cookie);
+        }
+        buffered.copyBodyToResponse();
+    }
+
+    private static long writtenPosition(HttpServletRequest request) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies == null) {
+            return 0;
+        }
+        for (Cookie cookie : cookies) {
+            if (COOKIE_NAME.equals(cookie.getName())) {
+                try {
+                    return Long.parseLong(cookie.getValue());
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 0;
+    }
+}
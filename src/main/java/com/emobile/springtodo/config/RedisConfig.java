@@ -1,17 +1,27 @@
 package com.emobile.springtodo.config;
 
+import com.emobile.springtodo.cache.CacheGeneration;
+import com.emobile.springtodo.cache.MeteredRedisSerializer;
+import com.emobile.springtodo.cache.RedisCircuitBreaker;
+import com.emobile.springtodo.cache.TodoBinaryRedisSerializer;
+import com.emobile.springtodo.cache.TwoLevelCacheManager;
 import com.fasterxml.jackson.annotation.JsonTypeInfo;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
-import org.springframework.cache.CacheManager;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
 import java.time.Duration;
@@ -20,22 +30,66 @@ import java.time.Duration;
 @EnableCaching
 public class RedisConfig {
 
-    @Bean
-    public CacheManager cacheManager(RedisConnectionFactory redisConnectionFactory) {
-        ObjectMapper objectMapper = new ObjectMapper();
-        objectMapper.registerModule(new JavaTimeModule())
-                .activateDefaultTyping(objectMapper.getPolymorphicTypeValidator(), ObjectMapper.DefaultTyping.NON_FINAL, JsonTypeInfo.As.PROPERTY);
+    public static final Duration TODO_TTL = Duration.ofMinutes(10);
 
-        GenericJackson2JsonRedisSerializer serializer = new GenericJackson2JsonRedisSerializer(objectMapper);
+    @Bean
+    public TwoLevelCacheManager cacheManager(RedisConnectionFactory redisConnectionFactory,
+                                             StringRedisTemplate stringRedisTemplate,
+                                             MeterRegistry meterRegistry,
+                                             RedisCircuitBreaker circuitBreaker,
+                                             @Value("${todo.cache.local.maximum-size:10000}") long localMaximumSize,
+                                             @Value("${todo.cache.local.expire-after-write:30s}") Duration localExpireAfterWrite,
+                                             @Value("${todo.cache.invalidation-channel:todo:cache:invalidation}") String invalidationChannel,
+                                             @Value("${todo.cache.page-ttl:2m}") Duration pageTtl,
+                                             @Value("${todo.cache.serializer:binary}") String serializerFormat,
+                                             @Value("${todo.cache.compression-threshold:512}") int compressionThreshold,
+                                             @Value("${todo.cache.early-refresh-beta:1.0}") double earlyRefreshBeta,
+                                             @Value("${todo.cache.redis.write-queue-capacity:10000}") int writeQueueCapacity,
+                                             @Value("${todo.cache.refresh-threads:4}") int refreshThreads) {
+        RedisSerializer<Object> serializer = new MeteredRedisSerializer(
+                cacheValueSerializer(serializerFormat, compressionThreshold), serializerFormat, meterRegistry);
 
         RedisCacheConfiguration cacheConfiguration = RedisCacheConfiguration.defaultCacheConfig()
-                .entryTtl(Duration.ofMinutes(10))
+                .entryTtl(TODO_TTL)
                 .disableCachingNullValues()
                 .serializeKeysWith(RedisSerializationContext.SerializationPair.fromSerializer(new StringRedisSerializer()))
                 .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(serializer));
 
-        return RedisCacheManager.builder(redisConnectionFactory)
+        RedisCacheManager redisCacheManager = RedisCacheManager.builder(redisConnectionFactory)
                 .cacheDefaults(cacheConfiguration)
+                .withCacheConfiguration("todoPages", cacheConfiguration.entryTtl(pageTtl))
                 .build();
+        redisCacheManager.afterPropertiesSet();
+
+        return new TwoLevelCacheManager(redisCacheManager, stringRedisTemplate, meterRegistry,
+                invalidationChannel, localMaximumSize, localExpireAfterWrite, earlyRefreshBeta,
+                circuitBreaker, writeQueueCapacity, refreshThreads);
+    }
+
+    public static RedisSerializer<Object> cacheValueSerializer(String format, int compressionThreshold) {
+        return switch (format) {
+            case "binary" -> new TodoBinaryRedisSerializer(jsonCacheValueSerializer(), compressionThreshold);
+            case "json" -> jsonCacheValueSerializer();
+            default -> throw new IllegalArgumentException("Unknown todo.cache.serializer: " + format);
+        };
+    }
+
+    private static RedisSerializer<Object> jsonCacheValueSerializer() {
+        ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.registerModule(new JavaTimeModule())
+                .activateDefaultTyping(objectMapper.getPolymorphicTypeValidator(), ObjectMapper.DefaultTyping.NON_FINAL, JsonTypeInfo.As.PROPERTY);
+
+        return new GenericJackson2JsonRedisSerializer(objectMapper);
+    }
+
+    @Bean
+    public RedisMessageListenerContainer cacheInvalidationListenerContainer(RedisConnectionFactory redisConnectionFactory,
+                                                                            TwoLevelCacheManager cacheManager,
+                                                                            CacheGeneration cacheGeneration) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(redisConnectionFactory);
+        container.addMessageListener(cacheManager, new ChannelTopic(cacheManager.getInvalidationChannel()));
+        container.addMessageListener(cacheGeneration, new ChannelTopic(cacheGeneration.getChannel()));
+        return container;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,23 @@
+package com.emobile.springtodo.config;
+
+import com.emobile.springtodo.jdbc.ReadRouting;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+
+/**
+ * Opens a replica-read scope around {@link com.emobile.springtodo.jdbc.ReplicaRead} methods.
+ */
+@Aspect
+public class ReplicaReadAspect {
+
+    @Around("@annotation(com.emobile.springtodo.jdbc.ReplicaRead)")
+    public Object routeToReplica(ProceedingJoinPoint joinPoint) throws Throwable {
+        boolean previous = ReadRouting.beginReplicaRead();
+        try {
+            return joinPoint.proceed();
+        } finally {
+            ReadRouting.endReplicaRead(previous);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.emobile.springtodo.config;
+
+import com.emobile.springtodo.jdbc.ProfilingDataSource;
+import com.emobile.springtodo.jdbc.SqlProfiler;
+import com.emobile.springtodo.jdbc.SqlProfilerEndpoint;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Active with {@code todo.sql-profiler.enabled=true}, which the {@code profiling} profile sets. Wraps the pooled
+ * DataSource so every statement is profiled; the wrapper sits inside the virtual-thread bulkhead, and plans are
+ * fetched through the finished DataSource bean so EXPLAIN waits for a permit like any other statement.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(prefix = "todo.sql-profiler", name = "enabled", havingValue = "true")
+public class SqlProfilerConfig {
+
+    @Bean(destroyMethod = "shutdown")
+    public SqlProfiler sqlProfiler(@Value("${todo.sql-profiler.slow-threshold:100ms}") Duration slowThreshold,
+                                   @Value("${todo.sql-profiler.slow-capacity:100}") int slowCapacity,
+                                   @Value("${todo.sql-profiler.max-statements:500}") int maxStatements,
+                                   @Value("${todo.sql-profiler.explain:false}") boolean explain) {
+        return new SqlProfiler(slowThreshold, slowCapacity, maxStatements, explain);
+    }
+
+    @Bean
+    public static BeanPostProcessor sqlProfilerPostProcessor(ObjectProvider<SqlProfiler> profiler,
+                                                             BeanFactory beanFactory) {
+        return new ProfilingPostProcessor(profiler, beanFactory);
+    }
+
+    @Bean
+    public SqlProfilerEndpoint sqlProfilerEndpoint(SqlProfiler sqlProfiler) {
+        return new SqlProfilerEndpoint(sqlProfiler);
+    }
+
+    /**
+     * Ordered so it runs before the unordered bulkhead post-processor and wraps the pool itself.
+     */
+    private static final class ProfilingPostProcessor implements BeanPostProcessor, Ordered {
+
+        private final ObjectProvider<SqlProfiler> profiler;
+        private final BeanFactory beanFactory;
+
+        ProfilingPostProcessor(ObjectProvider<SqlProfiler> profiler, BeanFactory beanFactory) {
+            this.profiler = profiler;
+            this.beanFactory = beanFactory;
+        }
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (bean instanceof DataSource dataSource && !(bean instanceof ProfilingDataSource)) {
+                // Looked up on first use, after the later post-processors have wrapped the bean
+                return new ProfilingDataSource(dataSource, profiler.getObject(),
+                        () -> beanFactory.getBean(beanName, DataSource.class));
+            }
+            return bean;
+        }
+
+        @Override
+        public int getOrder() {
+            return Ordered.LOWEST_PRECEDENCE;
+        }
+    }
+}
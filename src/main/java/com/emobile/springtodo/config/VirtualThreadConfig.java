@@ -0,0 +1,77 @@
+package com.emobile.springtodo.config;
+
+import com.emobile.springtodo.jdbc.BulkheadDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.jdbc.DataSourceUnwrapper;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Active with {@code spring.threads.virtual.enabled=true}. Boot then serves requests on virtual threads,
+ * so the database is guarded by a bulkhead sized to the Hikari pool: {@code todo.jdbc.long-running-permits}
+ * connections are kept for {@link com.emobile.springtodo.jdbc.LongRunning} work, the rest serve requests.
+ * Virtual threads pinned to their carrier for longer than {@code todo.threads.pinned-threshold} are logged.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadConfig {
+
+    @Bean
+    public static BeanPostProcessor jdbcBulkheadPostProcessor(
+            @Value("${todo.jdbc.long-running-permits:2}") int longRunningPermits) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof BulkheadDataSource)) {
+                    HikariDataSource hikariDataSource = DataSourceUnwrapper.unwrap(dataSource, HikariDataSource.class);
+                    if (hikariDataSource != null) {
+                        int poolSize = hikariDataSource.getMaximumPoolSize();
+                        int longRunning = Math.min(longRunningPermits, poolSize - 1);
+                        return new BulkheadDataSource(dataSource, poolSize - longRunning, longRunning,
+                                Duration.ofMillis(hikariDataSource.getConnectionTimeout()));
+                    }
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    public PinnedThreadMonitor pinnedThreadMonitor(
+            @Value("${todo.threads.pinned-threshold:20ms}") Duration threshold, MeterRegistry meterRegistry) {
+        return new PinnedThreadMonitor(threshold, meterRegistry);
+    }
+
+    @Bean
+    public LongRunningAspect longRunningAspect() {
+        return new LongRunningAspect();
+    }
+
+    @Bean
+    public MeterBinder jdbcBulkheadMetrics(DataSource dataSource) {
+        return registry -> {
+            if (dataSource instanceof BulkheadDataSource bulkhead) {
+                Gauge.builder("jdbc.bulkhead.available", bulkhead, BulkheadDataSource::getAvailablePermits)
+                        .description("Free connection permits")
+                        .register(registry);
+                Gauge.builder("jdbc.bulkhead.long.running.available", bulkhead,
+                                BulkheadDataSource::getAvailableLongRunningPermits)
+                        .description("Free connection permits for long-running work")
+                        .register(registry);
+                Gauge.builder("jdbc.bulkhead.waiting", bulkhead, BulkheadDataSource::getQueueLength)
+                        .description("Threads waiting for a connection permit")
+                        .register(registry);
+            }
+        };
+    }
+}
@@ -0,0 +1,286 @@
+package com.emobile.springtodo.controller;
+
+import com.emobile.springtodo.dto.request.BatchCreateTodoRequest;
+import com.emobile.springtodo.dto.request.BulkTodosRequest;
+import com.emobile.springtodo.dto.request.BulkUpdateTodosRequest;
+import com.emobile.springtodo.dto.request.CreateTodoRequest;
+import com.emobile.springtodo.dto.request.UpdateTodoRequest;
+import com.emobile.springtodo.dto.response.BulkOperationResponse;
+import com.emobile.springtodo.dto.response.ImportResponse;
+import com.emobile.springtodo.dto.response.PageResponse;
+import com.emobile.springtodo.dto.response.TodoResponse;
+import com.emobile.springtodo.dto.response.TodoStatsResponse;
+import com.emobile.springtodo.mapper.TodoMapper;
+import com.emobile.springtodo.model.Todo;
+import com.emobile.springtodo.model.TodoCursor;
+import com.emobile.springtodo.model.TodoSearchCursor;
+import com.emobile.springtodo.service.DataFormat;
+import com.emobile.springtodo.service.ReactiveTodoService;
+import com.emobile.springtodo.service.TodoExportService;
+import com.emobile.springtodo.service.TodoImportService;
+import jakarta.validation.Valid;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static com.emobile.springtodo.controller.TodoResponses.eTag;
+import static com.emobile.springtodo.controller.TodoResponses.lastModified;
+import static com.emobile.springtodo.controller.TodoResponses.lookAhead;
+import static com.emobile.springtodo.controller.TodoResponses.normalizeQuery;
+
+/**
+ * The {@link TodoController} API for the {@code reactive} profile, with the same paths, parameters, bodies,
+ * validators and error responses. Export and import reuse the JDBC services on the bounded elastic scheduler.
+ */
+@RestController
+@Profile("reactive")
+@RequestMapping("/api/v1/todos")
+public class ReactiveTodoController {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReactiveTodoController.class);
+
+    private final ReactiveTodoService todoService;
+    private final TodoExportService todoExportService;
+    private final TodoImportService todoImportService;
+    private final TodoMapper todoMapper;
+
+    @Autowired
+    public ReactiveTodoController(ReactiveTodoService todoService, TodoExportService todoExportService,
+                                  TodoImportService todoImportService, TodoMapper todoMapper) {
+        this.todoService = todoService;
+        this.todoExportService = todoExportService;
+        this.todoImportService = todoImportService;
+        this.todoMapper = todoMapper;
+    }
+
+    @GetMapping
+    public Mono<PageResponse<TodoResponse>> getAllTodos(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "false") boolean archived,
+            ServerWebExchange exchange) {
+
+        return unlessNotModified(exchange, "list", Arrays.asList(page, size, cursor, archived), () -> {
+            if (archived) {
+                return getArchivedTodos(page, size, cursor);
+            }
+            if (cursor != null) {
+                return todoService.findAllAfter(TodoCursor.decode(cursor), lookAhead(size))
+                        .map(todoPage -> TodoResponses.cursorPage(todoMapper, todoPage.getTodos(), size,
+                                todoPage.getStats().getTotal()));
+            }
+            return todoService.findAll(page, size)
+                    .map(todoPage -> TodoResponses.page(todoMapper, todoPage.getTodos(), page, size,
+                            todoPage.getStats().getTotal()));
+        });
+    }
+
+    @GetMapping("/{id}")
+    public Mono<TodoResponse> getTodoById(@PathVariable Long id, ServerWebExchange exchange) {
+        return todoService.findById(id)
+                .switchIfEmpty(Mono.error(() -> new RuntimeException("Todo not found with id: " + id)))
+                .flatMap(todo -> exchange.checkNotModified(eTag(todo), Instant.ofEpochMilli(lastModified(todo)))
+                        ? Mono.<TodoResponse>empty()
+                        : Mono.just(todoMapper.toResponse(todo)));
+    }
+
+    @PostMapping
+    @ResponseStatus(HttpStatus.CREATED)
+    public Mono<TodoResponse> createTodo(@Valid @RequestBody CreateTodoRequest request) {
+        return todoService.create(todoMapper.toEntity(request)).map(todoMapper::toResponse);
+    }
+
+    @PostMapping("/batch")
+    @ResponseStatus(HttpStatus.CREATED)
+    public Mono<List<TodoResponse>> createTodos(@Valid @RequestBody BatchCreateTodoRequest request) {
+        logger.info("Creating batch of {} todos", request.getTodos().size());
+
+        List<Todo> todos = request.getTodos().stream()
+                .map(todoMapper::toEntity)
+                .toList();
+        return todoService.createAll(todos).map(todoMapper::toResponseList);
+    }
+
+    @PutMapping("/{id}")
+    public Mono<TodoResponse> updateTodo(@PathVariable Long id, @Valid @RequestBody UpdateTodoRequest request) {
+        return patchTodo(id, request);
+    }
+
+    @PatchMapping("/{id}")
+    public Mono<TodoResponse> patchTodo(@PathVariable Long id, @Valid @RequestBody UpdateTodoRequest request) {
+        return todoService.patch(id, request.getTitle(), request.getDescription(), request.getCompleted())
+                .switchIfEmpty(Mono.error(() -> new RuntimeException("Todo not found with id: " + id)))
+                .map(todoMapper::toResponse);
+    }
+
+    @DeleteMapping("/{id}")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public Mono<Void> deleteTodo(@PathVariable Long id) {
+        return todoService.deleteById(id)
+                .flatMap(deleted -> deleted
+                        ? Mono.<Void>empty()
+                        : Mono.error(new RuntimeException("Todo not found with id: " + id)));
+    }
+
+    @PostMapping("/bulk/update")
+    public Mono<BulkOperationResponse> updateTodos(@Valid @RequestBody BulkUpdateTodosRequest request) {
+        Mono<Integer> affected = request.getIds() != null
+                ? todoService.updateCompletedByIds(request.getIds(), request.getCompleted())
+                : todoService.updateCompletedByCompleted(request.getCompletedFilter(), request.getCompleted());
+
+        return affected.map(count -> {
+            logger.info("Bulk update set completed={} on {} todos", request.getCompleted(), count);
+            return new BulkOperationResponse(count);
+        });
+    }
+
+    @PostMapping("/bulk/delete")
+    public Mono<BulkOperationResponse> deleteTodos(@Valid @RequestBody BulkTodosRequest request) {
+        Mono<Integer> affected = request.getIds() != null
+                ? todoService.deleteByIds(request.getIds())
+                : todoService.deleteByCompleted(request.getCompletedFilter());
+
+        return affected.map(count -> {
+            logger.info("Bulk delete removed {} todos", count);
+            return new BulkOperationResponse(count);
+        });
+    }
+
+    @GetMapping("/filter")
+    public Mono<PageResponse<TodoResponse>> getTodosByCompleted(
+            @RequestParam boolean completed,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String cursor,
+            ServerWebExchange exchange) {
+
+        return unlessNotModified(exchange, "filter", Arrays.asList(completed, page, size, cursor), () -> {
+            if (cursor != null) {
+                return todoService.findByCompletedAfter(completed, TodoCursor.decode(cursor), lookAhead(size))
+                        .map(todoPage -> TodoResponses.cursorPage(todoMapper, todoPage.getTodos(), size,
+                                todoPage.getStats().count(completed)));
+            }
+            return todoService.findByCompleted(completed, page, size)
+                    .map(todoPage -> TodoResponses.page(todoMapper, todoPage.getTodos(), page, size,
+                            todoPage.getStats().count(completed)));
+        });
+    }
+
+    @GetMapping("/stats")
+    public Mono<TodoStatsResponse> getTodoStats(ServerWebExchange exchange) {
+        return unlessNotModified(exchange, "stats", List.of(),
+                () -> todoService.getStats().map(todoMapper::toResponse));
+    }
+
+    @GetMapping("/search")
+    public Mono<PageResponse<TodoResponse>> searchTodos(
+            @RequestParam String q,
+            @RequestParam(required = false) Boolean completed,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String cursor,
+            ServerWebExchange exchange) {
+
+        String query = normalizeQuery(q);
+        TodoResponses.requirePositiveSize(size);
+
+        return unlessNotModified(exchange, "search", Arrays.asList(query, completed, size, cursor), () -> {
+            logger.info("Searching todos - q: {}, completed: {}, size: {}", query, completed, size);
+            return todoService.search(query, completed, TodoSearchCursor.decode(cursor), size)
+                    .map(result -> TodoResponses.searchPage(todoMapper, result, size));
+        });
+    }
+
+    // The export runs on a blocking thread, writing to a stream the response drains as it is written
+    @GetMapping("/export")
+    public ResponseEntity<Flux<DataBuffer>> exportTodos(@RequestParam(defaultValue = "ndjson") String format,
+                                                        ServerWebExchange exchange) {
+        DataFormat dataFormat = DataFormat.from(format);
+        logger.info("Exporting todos as {}", dataFormat);
+
+        ContentDisposition contentDisposition = ContentDisposition.attachment()
+                .filename("todos." + dataFormat.getExtension())
+                .build();
+        Flux<DataBuffer> body = Flux.from(DataBufferUtils.outputStreamPublisher(outputStream -> {
+            try {
+                todoExportService.export(dataFormat, outputStream);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, exchange.getResponse().bufferFactory(), task -> Schedulers.boundedElastic().schedule(task)));
+
+        return ResponseEntity.ok()
+                .contentType(dataFormat.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, contentDisposition.toString())
+                .body(body);
+    }
+
+    // The body is spooled to a temporary file first, so the import's blocking reads never wait on the network
+    @PostMapping(value = "/import", consumes = {"application/x-ndjson", "text/csv"})
+    public Mono<ImportResponse> importTodos(@RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+                                            ServerHttpRequest request) {
+        DataFormat dataFormat = DataFormat.from(MediaType.parseMediaType(contentType));
+
+        return Mono.usingWhen(
+                Mono.fromCallable(() -> Files.createTempFile("todo-import-", "." + dataFormat.getExtension()))
+                        .subscribeOn(Schedulers.boundedElastic()),
+                file -> DataBufferUtils.write(request.getBody(), file)
+                        .then(Mono.fromCallable(() -> importFile(dataFormat, file))
+                                .subscribeOn(Schedulers.boundedElastic())),
+                file -> Mono.fromCallable(() -> Files.deleteIfExists(file)).subscribeOn(Schedulers.boundedElastic()))
+                .doOnNext(response -> logger.info("Imported {} todos as {}, rejected {}",
+                        response.getImported(), dataFormat, response.getRejected()));
+    }
+
+    private ImportResponse importFile(DataFormat dataFormat, Path file) throws IOException {
+        try (InputStream inputStream = Files.newInputStream(file)) {
+            return todoImportService.importTodos(dataFormat, inputStream);
+        }
+    }
+
+    private Mono<PageResponse<TodoResponse>> getArchivedTodos(int page, int size, String cursor) {
+        logger.info("Getting archived todos - page: {}, cursor: {}, size: {}", page, cursor, size);
+        int limit = lookAhead(size);
+        if (cursor != null) {
+            return todoService.findArchivedAfter(TodoCursor.decode(cursor), limit).collectList()
+                    .map(todos -> TodoResponses.archiveCursorPage(todoMapper, todos, size));
+        }
+        TodoResponses.requireNonNegativePage(page);
+        return todoService.findArchived(page, size).collectList()
+                .map(todos -> TodoResponses.archivePage(todoMapper, todos, page, size));
+    }
+
+    // Completes empty with 304 when the collection ETag still matches, as WebRequest.checkNotModified does
+    private <T> Mono<T> unlessNotModified(ServerWebExchange exchange, String view, List<?> parameters,
+                                          Supplier<Mono<T>> response) {
+        return todoService.getChangeGeneration()
+                .map(generation -> exchange.checkNotModified(
+                        TodoResponses.collectionETag(generation, view, parameters.toArray())))
+                .defaultIfEmpty(false)
+                .flatMap(notModified -> notModified ? Mono.<T>empty() : Mono.defer(response));
+    }
+}
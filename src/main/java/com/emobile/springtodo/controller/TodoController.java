@@ -1,58 +1,122 @@
 package com.emobile.springtodo.controller;
 
 import com.emobile.springtodo.api.TodoApi;
+import com.emobile.springtodo.dto.request.BatchCreateTodoRequest;
+import com.emobile.springtodo.dto.request.BulkTodosRequest;
+import com.emobile.springtodo.dto.request.BulkUpdateTodosRequest;
 import com.emobile.springtodo.dto.request.CreateTodoRequest;
 import com.emobile.springtodo.dto.request.UpdateTodoRequest;
+import com.emobile.springtodo.dto.response.BulkOperationResponse;
+import com.emobile.springtodo.dto.response.ImportResponse;
 import com.emobile.springtodo.dto.response.PageResponse;
 import com.emobile.springtodo.dto.response.TodoResponse;
+import com.emobile.springtodo.dto.response.TodoStatsResponse;
 import com.emobile.springtodo.mapper.TodoMapper;
 import com.emobile.springtodo.model.Todo;
+import com.emobile.springtodo.model.TodoEvent;
+import com.emobile.springtodo.model.TodoCursor;
+import com.emobile.springtodo.model.TodoPage;
+import com.emobile.springtodo.model.TodoSearchCursor;
+import com.emobile.springtodo.model.TodoSearchPage;
+import com.emobile.springtodo.service.DataFormat;
+import com.emobile.springtodo.service.TodoArchiveService;
+import com.emobile.springtodo.service.TodoEventFeed;
+import com.emobile.springtodo.service.TodoExportService;
+import com.emobile.springtodo.service.TodoImportService;
 import com.emobile.springtodo.service.TodoService;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
 import java.util.List;
+import java.util.Locale;
+import java.util.OptionalLong;
+
+import static com.emobile.springtodo.controller.TodoResponses.eTag;
+import static com.emobile.springtodo.controller.TodoResponses.lastModified;
+import static com.emobile.springtodo.controller.TodoResponses.lookAhead;
+import static com.emobile.springtodo.controller.TodoResponses.normalizeQuery;
 
 @RestController
+@Profile("!reactive")
 @RequestMapping("/api/v1/todos")
 public class TodoController implements TodoApi {
 
     private static final Logger logger = LoggerFactory.getLogger(TodoController.class);
 
     private final TodoService todoService;
+    private final TodoExportService todoExportService;
+    private final TodoImportService todoImportService;
+    private final TodoArchiveService todoArchiveService;
+    private final TodoEventFeed todoEventFeed;
     private final TodoMapper todoMapper;
+    private final Duration streamTimeout;
 
     @Autowired
-    public TodoController(TodoService todoService, TodoMapper todoMapper) {
+    public TodoController(TodoService todoService, TodoExportService todoExportService,
+                          TodoImportService todoImportService, TodoArchiveService todoArchiveService,
+                          TodoEventFeed todoEventFeed, TodoMapper todoMapper,
+                          @Value("${todo.events.stream-timeout:30m}") Duration streamTimeout) {
         this.todoService = todoService;
+        this.todoExportService = todoExportService;
+        this.todoImportService = todoImportService;
+        this.todoArchiveService = todoArchiveService;
+        this.todoEventFeed = todoEventFeed;
         this.todoMapper = todoMapper;
+        this.streamTimeout = streamTimeout;
     }
 
     @Override
     @GetMapping
     public PageResponse<TodoResponse> getAllTodos(
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size) {
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "false") boolean archived,
+            WebRequest webRequest) {
+
+        if (notModified(webRequest, "list", page, size, cursor, archived)) {
+            return null;
+        }
+
+        if (archived) {
+            return getArchivedTodos(page, size, cursor);
+        }
+
+        if (cursor != null) {
+            logger.info("Getting all todos - cursor: {}, size: {}", cursor, size);
+            TodoPage todoPage = todoService.findAllAfter(TodoCursor.decode(cursor), lookAhead(size));
+            return TodoResponses.cursorPage(todoMapper, todoPage.getTodos(), size, todoPage.getStats().getTotal());
+        }
 
         logger.info("Getting all todos - page: {}, size: {}", page, size);
 
-        List<Todo> todos = todoService.findAll(page, size);
-        List<TodoResponse> content = todoMapper.toResponseList(todos);
-        long totalElements = todoService.getTotalCount();
-        int totalPages = (int) Math.ceil((double) totalElements / size);
+        TodoPage todoPage = todoService.findAll(page, size);
+        long totalElements = todoPage.getStats().getTotal();
 
-        logger.info("Found {} todos, total elements: {}", todos.size(), totalElements);
+        logger.info("Found {} todos, total elements: {}", todoPage.getTodos().size(), totalElements);
 
-        return new PageResponse<>(content, page, size, totalElements, totalPages, page >= totalPages - 1);
+        return TodoResponses.page(todoMapper, todoPage.getTodos(), page, size, totalElements);
     }
 
     @Override
     @GetMapping("/{id}")
-    public TodoResponse getTodoById(@PathVariable Long id) {
+    public TodoResponse getTodoById(@PathVariable Long id, WebRequest webRequest) {
         logger.info("Getting todo by id: {}", id);
 
         Todo todo = todoService.findById(id)
@@ -61,6 +125,10 @@ public class TodoController implements TodoApi {
                     return new RuntimeException("Todo not found with id: " + id);
                 });
 
+        if (webRequest.checkNotModified(eTag(todo), lastModified(todo))) {
+            return null;
+        }
+
         logger.info("Found todo: {}", todo.getTitle());
         return todoMapper.toResponse(todo);
     }
@@ -74,14 +142,30 @@ public class TodoController implements TodoApi {
         return todoMapper.toResponse(savedTodo);
     }
 
+    @Override
+    @PostMapping("/batch")
+    @ResponseStatus(HttpStatus.CREATED)
+    public List<TodoResponse> createTodos(@Valid @RequestBody BatchCreateTodoRequest request) {
+        logger.info("Creating batch of {} todos", request.getTodos().size());
+
+        List<Todo> todos = request.getTodos().stream()
+                .map(todoMapper::toEntity)
+                .toList();
+        List<Todo> savedTodos = todoService.createAll(todos);
+        return todoMapper.toResponseList(savedTodos);
+    }
+
     @Override
     @PutMapping("/{id}")
     public TodoResponse updateTodo(@PathVariable Long id, @Valid @RequestBody UpdateTodoRequest request) {
-        Todo existingTodo = todoService.findById(id)
-                .orElseThrow(() -> new RuntimeException("Todo not found with id: " + id));
+        return patchTodo(id, request);
+    }
 
-        todoMapper.updateEntityFromRequest(request, existingTodo);
-        Todo updatedTodo = todoService.update(existingTodo);
+    @Override
+    @PatchMapping("/{id}")
+    public TodoResponse patchTodo(@PathVariable Long id, @Valid @RequestBody UpdateTodoRequest request) {
+        Todo updatedTodo = todoService.patch(id, request.getTitle(), request.getDescription(), request.getCompleted())
+                .orElseThrow(() -> new RuntimeException("Todo not found with id: " + id));
 
         return todoMapper.toResponse(updatedTodo);
     }
@@ -90,10 +174,31 @@ public class TodoController implements TodoApi {
     @DeleteMapping("/{id}")
     @ResponseStatus(HttpStatus.NO_CONTENT)
     public void deleteTodo(@PathVariable Long id) {
-        if (!todoService.existsById(id)) {
+        if (!todoService.deleteById(id)) {
             throw new RuntimeException("Todo not found with id: " + id);
         }
-        todoService.deleteById(id);
+    }
+
+    @Override
+    @PostMapping("/bulk/update")
+    public BulkOperationResponse updateTodos(@Valid @RequestBody BulkUpdateTodosRequest request) {
+        int affected = request.getIds() != null
+                ? todoService.updateCompletedByIds(request.getIds(), request.getCompleted())
+                : todoService.updateCompletedByCompleted(request.getCompletedFilter(), request.getCompleted());
+
+        logger.info("Bulk update set completed={} on {} todos", request.getCompleted(), affected);
+        return new BulkOperationResponse(affected);
+    }
+
+    @Override
+    @PostMapping("/bulk/delete")
+    public BulkOperationResponse deleteTodos(@Valid @RequestBody BulkTodosRequest request) {
+        int affected = request.getIds() != null
+                ? todoService.deleteByIds(request.getIds())
+                : todoService.deleteByCompleted(request.getCompletedFilter());
+
+        logger.info("Bulk delete removed {} todos", affected);
+        return new BulkOperationResponse(affected);
     }
 
     @Override
@@ -101,14 +206,156 @@ public class TodoController implements TodoApi {
     public PageResponse<TodoResponse> getTodosByCompleted(
             @RequestParam boolean completed,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size) {
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String cursor,
+            WebRequest webRequest) {
+
+        if (notModified(webRequest, "filter", completed, page, size, cursor)) {
+            return null;
+        }
+
+        if (cursor != null) {
+            TodoPage todoPage = todoService.findByCompletedAfter(completed, TodoCursor.decode(cursor), lookAhead(size));
+            return TodoResponses.cursorPage(todoMapper, todoPage.getTodos(), size, todoPage.getStats().count(completed));
+        }
+
+        TodoPage todoPage = todoService.findByCompleted(completed, page, size);
+        return TodoResponses.page(todoMapper, todoPage.getTodos(), page, size, todoPage.getStats().count(completed));
+    }
 
-        List<Todo> todos = todoService.findByCompleted(completed, page, size);
-        List<TodoResponse> content = todoMapper.toResponseList(todos);
-        long totalElements = completed ? todoService.getCompletedCount() :
-                todoService.getTotalCount() - todoService.getCompletedCount();
-        int totalPages = (int) Math.ceil((double) totalElements / size);
+    @Override
+    @GetMapping("/stats")
+    public TodoStatsResponse getTodoStats(WebRequest webRequest) {
+        if (notModified(webRequest, "stats")) {
+            return null;
+        }
+        return todoMapper.toResponse(todoService.getStats());
+    }
+
+    @Override
+    @GetMapping("/search")
+    public PageResponse<TodoResponse> searchTodos(
+            @RequestParam String q,
+            @RequestParam(required = false) Boolean completed,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String cursor,
+            WebRequest webRequest) {
+
+        String query = normalizeQuery(q);
+        TodoResponses.requirePositiveSize(size);
+        if (notModified(webRequest, "search", query, completed, size, cursor)) {
+            return null;
+        }
+
+        logger.info("Searching todos - q: {}, completed: {}, size: {}", query, completed, size);
+        TodoSearchPage result = todoService.search(query, completed, TodoSearchCursor.decode(cursor), size);
+        return TodoResponses.searchPage(todoMapper, result, size);
+    }
+
+    @Override
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportTodos(@RequestParam(defaultValue = "ndjson") String format) {
+        DataFormat dataFormat = DataFormat.from(format);
+        logger.info("Exporting todos as {}", dataFormat);
+
+        ContentDisposition contentDisposition = ContentDisposition.attachment()
+                .filename("todos." + dataFormat.getExtension())
+                .build();
+        StreamingResponseBody body = outputStream -> todoExportService.export(dataFormat, outputStream);
+
+        return ResponseEntity.ok()
+                .contentType(dataFormat.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, contentDisposition.toString())
+                .body(body);
+    }
+
+    @Override
+    @PostMapping(value = "/import", consumes = {"application/x-ndjson", "text/csv"})
+    public ImportResponse importTodos(@RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+                                      InputStream body) throws IOException {
+        DataFormat dataFormat = DataFormat.from(MediaType.parseMediaType(contentType));
+        ImportResponse response = todoImportService.importTodos(dataFormat, body);
 
-        return new PageResponse<>(content, page, size, totalElements, totalPages, page >= totalPages - 1);
+        logger.info("Imported {} todos as {}, rejected {}", response.getImported(), dataFormat, response.getRejected());
+        return response;
+    }
+
+    @Override
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamTodoEvents(@RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        TodoEventFeed.Subscription subscription = todoEventFeed.subscribe(parseEventId(lastEventId));
+        logger.info("Opened todo event stream after event {}", lastEventId);
+
+        // Streams end after the timeout and clients reconnect with Last-Event-ID, which spreads them over nodes
+        SseEmitter emitter = new SseEmitter(streamTimeout.toMillis());
+        emitter.onCompletion(subscription::close);
+        emitter.onTimeout(subscription::close);
+        emitter.onError(error -> subscription.close());
+        // Blocks on the subscription between events, which costs a virtual thread nothing
+        Thread.ofVirtual().name("todo-event-stream").start(() -> sendEvents(subscription, emitter));
+        return emitter;
+    }
+
+    private void sendEvents(TodoEventFeed.Subscription subscription, SseEmitter emitter) {
+        try (subscription) {
+            if (subscription.isResetRequired()) {
+                emitter.send(SseEmitter.event().name("reset").data("Missed events are no longer available, reload todos"));
+            }
+            while (subscription.isOpen()) {
+                TodoEvent event = subscription.poll();
+                if (event != null && event.getType() == TodoEvent.Type.RESET) {
+                    // Carries an id, so a client that reloads resumes after the bulk change
+                    emitter.send(SseEmitter.event()
+                            .id(String.valueOf(event.getId()))
+                            .name("reset")
+                            .data("Many todos changed at once, reload todos"));
+                } else if (event != null) {
+                    emitter.send(SseEmitter.event()
+                            .id(String.valueOf(event.getId()))
+                            .name(event.getType().name().toLowerCase(Locale.ROOT))
+                            .data(todoMapper.toResponse(event.getTodo()), MediaType.APPLICATION_JSON));
+                } else if (subscription.isOpen()) {
+                    emitter.send(SseEmitter.event().comment("heartbeat"));
+                }
+            }
+            // Closed by shutdown or cut off for falling behind; the client resumes from its last event
+            emitter.complete();
+        } catch (IOException | IllegalStateException e) {
+            // The client went away or the stream timed out; the emitter callbacks have closed the subscription
+            logger.debug("Todo event stream ended: {}", e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            emitter.complete();
+        }
+    }
+
+    // An unreadable id cannot match any event, so the client is told to reload
+    private static Long parseEventId(String lastEventId) {
+        if (lastEventId == null || lastEventId.isBlank()) {
+            return null;
+        }
+        try {
+            return Long.parseLong(lastEventId.trim());
+        } catch (NumberFormatException e) {
+            return 0L;
+        }
+    }
+
+    // Without a shared generation there is nothing to validate against, so the response carries no ETag
+    private boolean notModified(WebRequest webRequest, String view, Object... parameters) {
+        OptionalLong generation = todoService.getChangeGeneration();
+        return generation.isPresent()
+                && webRequest.checkNotModified(TodoResponses.collectionETag(generation.getAsLong(), view, parameters));
+    }
+
+    private PageResponse<TodoResponse> getArchivedTodos(int page, int size, String cursor) {
+        logger.info("Getting archived todos - page: {}, cursor: {}, size: {}", page, cursor, size);
+        int limit = lookAhead(size);
+        if (cursor != null) {
+            List<Todo> todos = todoArchiveService.findArchivedAfter(TodoCursor.decode(cursor), limit);
+            return TodoResponses.archiveCursorPage(todoMapper, todos, size);
+        }
+        TodoResponses.requireNonNegativePage(page);
+        return TodoResponses.archivePage(todoMapper, todoArchiveService.findArchived(page, size), page, size);
     }
 }
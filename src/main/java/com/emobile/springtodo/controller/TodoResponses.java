@@ -0,0 +1,131 @@
+package com.emobile.springtodo.controller;
+
+import com.emobile.springtodo.dto.response.PageResponse;
+import com.emobile.springtodo.dto.response.TodoResponse;
+import com.emobile.springtodo.exception.InvalidRequestException;
+import com.emobile.springtodo.mapper.TodoMapper;
+import com.emobile.springtodo.model.Todo;
+import com.emobile.springtodo.model.TodoCursor;
+import com.emobile.springtodo.model.TodoSearchPage;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Request checks, validators and page building shared by the servlet and reactive controllers.
+ */
+final class TodoResponses {
+
+    private static final int MAX_QUERY_LENGTH = 200;
+
+    private TodoResponses() {
+    }
+
+    // Equivalent spellings of a query share one cache entry; the 'simple' text search config ignores case anyway
+    static String normalizeQuery(String q) {
+        String query = q.strip().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+        if (query.isEmpty()) {
+            throw new InvalidRequestException("Search query must not be blank");
+        }
+        if (query.length() > MAX_QUERY_LENGTH) {
+            throw new InvalidRequestException("Search query must not exceed " + MAX_QUERY_LENGTH + " characters");
+        }
+        return query;
+    }
+
+    static int lookAhead(int size) {
+        requirePositiveSize(size);
+        return size + 1;
+    }
+
+    static void requirePositiveSize(int size) {
+        if (size < 1) {
+            throw new InvalidRequestException("Page size must be positive");
+        }
+    }
+
+    static void requireNonNegativePage(int page) {
+        if (page < 0) {
+            throw new InvalidRequestException("Page number must not be negative");
+        }
+    }
+
+    // Strong validators: the same id and updated_at always render the same body
+    static String eTag(Todo todo) {
+        LocalDateTime updatedAt = todo.getUpdatedAt();
+        long micros = updatedAt.toEpochSecond(ZoneOffset.UTC) * 1_000_000 + updatedAt.getNano() / 1_000;
+        return "\"" + todo.getId() + "-" + Long.toString(micros, 36) + "\"";
+    }
+
+    // updated_at holds the JVM's local wall-clock time: LocalDateTime.now(), and NOW() in the session time zone
+    // the driver sets from the JVM. The ETag only needs a stable encoding, this needs the actual instant
+    static long lastModified(Todo todo) {
+        return todo.getUpdatedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    // Lists change only together with the change generation, so it validates them without touching the rows.
+    // The view and its parameters are hashed in, so a tag from one page never validates another
+    static String collectionETag(long generation, String view, Object... parameters) {
+        MessageDigest digest = sha256();
+        digest.update(view.getBytes(StandardCharsets.UTF_8));
+        for (Object parameter : parameters) {
+            digest.update((byte) 0);
+            digest.update(String.valueOf(parameter).getBytes(StandardCharsets.UTF_8));
+        }
+        String hash = HexFormat.of().formatHex(digest.digest(), 0, 8);
+        return "\"g" + Long.toString(generation, 36) + "-" + view + "-" + hash + "\"";
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    static PageResponse<TodoResponse> page(TodoMapper todoMapper, List<Todo> todos, int page, int size,
+                                           long totalElements) {
+        List<TodoResponse> content = todoMapper.toResponseList(todos);
+        int totalPages = (int) Math.ceil((double) totalElements / size);
+
+        return new PageResponse<>(content, page, size, totalElements, totalPages, page >= totalPages - 1);
+    }
+
+    static PageResponse<TodoResponse> cursorPage(TodoMapper todoMapper, List<Todo> todos, int size,
+                                                 long totalElements) {
+        boolean last = todos.size() <= size;
+        List<Todo> pageTodos = last ? todos : todos.subList(0, size);
+        String nextCursor = last ? null : TodoCursor.after(pageTodos.get(pageTodos.size() - 1)).encode();
+        int totalPages = (int) Math.ceil((double) totalElements / size);
+
+        return new PageResponse<>(todoMapper.toResponseList(pageTodos), 0, size, totalElements, totalPages, last,
+                nextCursor);
+    }
+
+    static PageResponse<TodoResponse> searchPage(TodoMapper todoMapper, TodoSearchPage result, int size) {
+        return new PageResponse<>(todoMapper.toResponseList(result.getTodos()), 0, size, null, null,
+                result.getNextCursor() == null, result.getNextCursor());
+    }
+
+    // The archive keeps no counters, so its pages look one row ahead instead of reporting totals
+    static PageResponse<TodoResponse> archivePage(TodoMapper todoMapper, List<Todo> todos, int page, int size) {
+        boolean last = todos.size() <= size;
+        return new PageResponse<>(todoMapper.toResponseList(last ? todos : todos.subList(0, size)), page, size,
+                null, null, last);
+    }
+
+    static PageResponse<TodoResponse> archiveCursorPage(TodoMapper todoMapper, List<Todo> todos, int size) {
+        boolean last = todos.size() <= size;
+        List<Todo> pageTodos = last ? todos : todos.subList(0, size);
+        String nextCursor = last ? null : TodoCursor.after(pageTodos.get(pageTodos.size() - 1)).encode();
+        return new PageResponse<>(todoMapper.toResponseList(pageTodos), 0, size, null, null, last, nextCursor);
+    }
+}
@@ -0,0 +1,17 @@
+package com.emobile.springtodo.dto.request;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+public class BatchCreateTodoRequest {
+
+    @NotEmpty(message = "At least one todo is required")
+    @Size(max = 1000, message = "A batch must not exceed 1000 todos")
+    private List<@Valid CreateTodoRequest> todos;
+
+    public List<CreateTodoRequest> getTodos() { return todos; }
+    public void setTodos(List<CreateTodoRequest> todos) { this.todos = todos; }
+}
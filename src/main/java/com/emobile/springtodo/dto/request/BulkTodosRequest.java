@@ -0,0 +1,28 @@
+package com.emobile.springtodo.dto.request;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.validation.constraints.AssertTrue;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+public class BulkTodosRequest {
+
+    @Size(min = 1, max = 10000, message = "Ids must contain between 1 and 10000 elements")
+    private List<@NotNull Long> ids;
+
+    private Boolean completedFilter;
+
+    public List<Long> getIds() { return ids; }
+    public void setIds(List<Long> ids) { this.ids = ids; }
+
+    public Boolean getCompletedFilter() { return completedFilter; }
+    public void setCompletedFilter(Boolean completedFilter) { this.completedFilter = completedFilter; }
+
+    @JsonIgnore
+    @AssertTrue(message = "Exactly one of ids or completedFilter must be provided")
+    public boolean isSelectorValid() {
+        return (ids == null) != (completedFilter == null);
+    }
+}
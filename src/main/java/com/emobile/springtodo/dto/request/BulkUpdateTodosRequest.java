@@ -0,0 +1,12 @@
+package com.emobile.springtodo.dto.request;
+
+import jakarta.validation.constraints.NotNull;
+
+public class BulkUpdateTodosRequest extends BulkTodosRequest {
+
+    @NotNull(message = "Completed is required")
+    private Boolean completed;
+
+    public Boolean getCompleted() { return completed; }
+    public void setCompleted(Boolean completed) { this.completed = completed; }
+}
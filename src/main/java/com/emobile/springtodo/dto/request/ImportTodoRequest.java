@@ -0,0 +1,12 @@
+package com.emobile.springtodo.dto.request;
+
+/**
+ * One imported record. Unlike a created todo, it may already be completed, as in an export being restored.
+ */
+public class ImportTodoRequest extends CreateTodoRequest {
+
+    private Boolean completed;
+
+    public Boolean getCompleted() { return completed; }
+    public void setCompleted(Boolean completed) { this.completed = completed; }
+}
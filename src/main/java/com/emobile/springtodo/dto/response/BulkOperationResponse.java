@@ -0,0 +1,15 @@
+package com.emobile.springtodo.dto.response;
+
+public class BulkOperationResponse {
+
+    private int affected;
+
+    public BulkOperationResponse() {}
+
+    public BulkOperationResponse(int affected) {
+        this.affected = affected;
+    }
+
+    public int getAffected() { return affected; }
+    public void setAffected(int affected) { this.affected = affected; }
+}
@@ -0,0 +1,39 @@
+package com.emobile.springtodo.dto.response;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class ImportResponse {
+
+    private long imported;
+    private long rejected;
+    private List<LineError> errors = new ArrayList<>();
+
+    public long getImported() { return imported; }
+    public void setImported(long imported) { this.imported = imported; }
+
+    public long getRejected() { return rejected; }
+    public void setRejected(long rejected) { this.rejected = rejected; }
+
+    public List<LineError> getErrors() { return errors; }
+    public void setErrors(List<LineError> errors) { this.errors = errors; }
+
+    public static class LineError {
+
+        private long line;
+        private String message;
+
+        public LineError() {}
+
+        public LineError(long line, String message) {
+            this.line = line;
+            this.message = message;
+        }
+
+        public long getLine() { return line; }
+        public void setLine(long line) { this.line = line; }
+
+        public String getMessage() { return message; }
+        public void setMessage(String message) { this.message = message; }
+    }
+}
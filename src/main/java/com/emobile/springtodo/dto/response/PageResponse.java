@@ -1,19 +1,27 @@
 package com.emobile.springtodo.dto.response;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 import java.util.List;
 
 public class PageResponse<T> {
     private List<T> content;
     private int page;
     private int size;
-    private long totalElements;
-    private int totalPages;
+    // Left out where counting would cost more than the page itself, e.g. search results
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Long totalElements;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Integer totalPages;
     private boolean last;
 
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String nextCursor;
+
     // Constructors
     public PageResponse() {}
 
-    public PageResponse(List<T> content, int page, int size, long totalElements, int totalPages, boolean last) {
+    public PageResponse(List<T> content, int page, int size, Long totalElements, Integer totalPages, boolean last) {
         this.content = content;
         this.page = page;
         this.size = size;
@@ -22,6 +30,12 @@ public class PageResponse<T> {
         this.last = last;
     }
 
+    public PageResponse(List<T> content, int page, int size, Long totalElements, Integer totalPages, boolean last,
+                        String nextCursor) {
+        this(content, page, size, totalElements, totalPages, last);
+        this.nextCursor = nextCursor;
+    }
+
     // Getters and Setters
     public List<T> getContent() { return content; }
     public void setContent(List<T> content) { this.content = content; }
@@ -32,12 +46,15 @@ public class PageResponse<T> {
     public int getSize() { return size; }
     public void setSize(int size) { this.size = size; }
 
-    public long getTotalElements() { return totalElements; }
-    public void setTotalElements(long totalElements) { this.totalElements = totalElements; }
+    public Long getTotalElements() { return totalElements; }
+    public void setTotalElements(Long totalElements) { this.totalElements = totalElements; }
 
-    public int getTotalPages() { return totalPages; }
-    public void setTotalPages(int totalPages) { this.totalPages = totalPages; }
+    public Integer getTotalPages() { return totalPages; }
+    public void setTotalPages(Integer totalPages) { this.totalPages = totalPages; }
 
     public boolean isLast() { return last; }
     public void setLast(boolean last) { this.last = last; }
+
+    public String getNextCursor() { return nextCursor; }
+    public void setNextCursor(String nextCursor) { this.nextCursor = nextCursor; }
 }
@@ -0,0 +1,24 @@
+package com.emobile.springtodo.dto.response;
+
+public class TodoStatsResponse {
+    private long total;
+    private long completed;
+    private long open;
+
+    public TodoStatsResponse() {}
+
+    public TodoStatsResponse(long total, long completed, long open) {
+        this.total = total;
+        this.completed = completed;
+        this.open = open;
+    }
+
+    public long getTotal() { return total; }
+    public void setTotal(long total) { this.total = total; }
+
+    public long getCompleted() { return completed; }
+    public void setCompleted(long completed) { this.completed = completed; }
+
+    public long getOpen() { return open; }
+    public void setOpen(long open) { this.open = open; }
+}
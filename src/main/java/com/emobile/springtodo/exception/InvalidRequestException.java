@@ -0,0 +1,12 @@
+package com.emobile.springtodo.exception;
+
+/**
+ * A request parameter or body the API rejects with 400 Bad Request. The message is returned to the client,
+ * so it must describe the client's input and nothing else.
+ */
+public class InvalidRequestException extends RuntimeException {
+
+    public InvalidRequestException(String message) {
+        super(message);
+    }
+}
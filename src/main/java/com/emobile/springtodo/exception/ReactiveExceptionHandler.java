@@ -0,0 +1,76 @@
+package com.emobile.springtodo.exception;
+
+import com.emobile.springtodo.dto.response.ErrorResponse;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.bind.support.WebExchangeBindException;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.UnsupportedMediaTypeStatusException;
+
+import java.util.stream.Collectors;
+
+/**
+ * {@link GlobalExceptionHandler} for the {@code reactive} profile, producing the same error bodies.
+ * WebFlux reports request problems, such as a missing parameter, as {@link ResponseStatusException}s,
+ * which keep their own status instead of falling under the {@code RuntimeException} mapping.
+ */
+@RestControllerAdvice
+@Profile("reactive")
+public class ReactiveExceptionHandler {
+
+    @ExceptionHandler(RuntimeException.class)
+    public ResponseEntity<ErrorResponse> handleRuntimeException(RuntimeException ex, ServerHttpRequest request) {
+        return error(HttpStatus.NOT_FOUND, "Not Found", ex.getMessage(), request);
+    }
+
+    @ExceptionHandler(InvalidRequestException.class)
+    public ResponseEntity<ErrorResponse> handleInvalidRequestException(InvalidRequestException ex,
+                                                                       ServerHttpRequest request) {
+        return error(HttpStatus.BAD_REQUEST, "Bad Request", ex.getMessage(), request);
+    }
+
+    @ExceptionHandler(WebExchangeBindException.class)
+    public ResponseEntity<ErrorResponse> handleValidationExceptions(WebExchangeBindException ex,
+                                                                    ServerHttpRequest request) {
+        String errorMessage = ex.getBindingResult()
+                .getFieldErrors()
+                .stream()
+                .map(error -> error.getField() + ": " + error.getDefaultMessage())
+                .collect(Collectors.joining(", "));
+
+        return error(HttpStatus.BAD_REQUEST, "Validation Failed", errorMessage, request);
+    }
+
+    @ExceptionHandler(UnsupportedMediaTypeStatusException.class)
+    public ResponseEntity<ErrorResponse> handleUnsupportedMediaTypeException(UnsupportedMediaTypeStatusException ex,
+                                                                             ServerHttpRequest request) {
+        String message = "Content-Type '" + ex.getContentType() + "' is not supported";
+        return ResponseEntity.status(HttpStatus.UNSUPPORTED_MEDIA_TYPE)
+                .headers(headers -> headers.setAccept(ex.getSupportedMediaTypes()))
+                .body(new ErrorResponse(HttpStatus.UNSUPPORTED_MEDIA_TYPE.value(), "Unsupported Media Type", message,
+                        request.getPath().value()));
+    }
+
+    @ExceptionHandler(ResponseStatusException.class)
+    public ResponseEntity<ErrorResponse> handleResponseStatusException(ResponseStatusException ex,
+                                                                       ServerHttpRequest request) {
+        HttpStatus status = HttpStatus.resolve(ex.getStatusCode().value());
+        return error(ex.getStatusCode(), status != null ? status.getReasonPhrase() : "Error", ex.getReason(), request);
+    }
+
+    @ExceptionHandler(Exception.class)
+    public ResponseEntity<ErrorResponse> handleGlobalException(Exception ex, ServerHttpRequest request) {
+        return error(HttpStatus.INTERNAL_SERVER_ERROR, "Internal Server Error", "An unexpected error occurred", request);
+    }
+
+    private static ResponseEntity<ErrorResponse> error(HttpStatusCode status, String error, String message,
+                                                       ServerHttpRequest request) {
+        ErrorResponse errorResponse = new ErrorResponse(status.value(), error, message, request.getPath().value());
+        return new ResponseEntity<>(errorResponse, status);
+    }
+}
@@ -0,0 +1,149 @@
+package com.emobile.springtodo.jdbc;
+
+import org.springframework.jdbc.datasource.ConnectionProxy;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Caps the number of connections checked out at once. With virtual threads there can be far more
+ * concurrent requests than pooled connections; the excess waits here in a fair queue with a timeout
+ * instead of piling up inside the pool. A permit is held until the connection is closed.
+ * <p>
+ * Work that holds a connection for minutes, such as an export or import, draws from a separate, smaller
+ * set of permits inside a {@link LongRunning} scope. The two sets together never exceed the pool, so long
+ * jobs cannot take the connections requests need, and requests never wait inside the pool itself.
+ */
+public class BulkheadDataSource extends DelegatingDataSource {
+
+    private static final ThreadLocal<Boolean> longRunning = new ThreadLocal<>();
+
+    private final Semaphore permits;
+    private final Semaphore longRunningPermits;
+    private final int maxConcurrent;
+    private final int maxLongRunning;
+    private final long acquireTimeoutNanos;
+
+    public BulkheadDataSource(DataSource targetDataSource, int maxConcurrent, int maxLongRunning,
+                              Duration acquireTimeout) {
+        super(targetDataSource);
+        this.permits = new Semaphore(maxConcurrent, true);
+        this.longRunningPermits = new Semaphore(maxLongRunning, true);
+        this.maxConcurrent = maxConcurrent;
+        this.maxLongRunning = maxLongRunning;
+        this.acquireTimeoutNanos = acquireTimeout.toNanos();
+    }
+
+    /**
+     * Opens a long-running scope and returns the previous state for {@link #endLongRunning(boolean)}.
+     */
+    public static boolean beginLongRunning() {
+        boolean previous = Boolean.TRUE.equals(longRunning.get());
+        longRunning.set(Boolean.TRUE);
+        return previous;
+    }
+
+    public static void endLongRunning(boolean previous) {
+        if (previous) {
+            longRunning.set(Boolean.TRUE);
+        } else {
+            longRunning.remove();
+        }
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        Semaphore lane = acquire();
+        try {
+            return guard(super.getConnection(), lane);
+        } catch (SQLException | RuntimeException e) {
+            lane.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        Semaphore lane = acquire();
+        try {
+            return guard(super.getConnection(username, password), lane);
+        } catch (SQLException | RuntimeException e) {
+            lane.release();
+            throw e;
+        }
+    }
+
+    public int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    public int getMaxLongRunning() {
+        return maxLongRunning;
+    }
+
+    public int getAvailablePermits() {
+        return permits.availablePermits();
+    }
+
+    public int getAvailableLongRunningPermits() {
+        return longRunningPermits.availablePermits();
+    }
+
+    public int getQueueLength() {
+        return permits.getQueueLength() + longRunningPermits.getQueueLength();
+    }
+
+    private Semaphore acquire() throws SQLException {
+        boolean inLongRunningScope = Boolean.TRUE.equals(longRunning.get());
+        Semaphore lane = inLongRunningScope ? longRunningPermits : permits;
+        int size = inLongRunningScope ? maxLongRunning : maxConcurrent;
+        try {
+            if (!lane.tryAcquire(acquireTimeoutNanos, TimeUnit.NANOSECONDS)) {
+                throw new SQLTransientConnectionException("Timed out after "
+                        + TimeUnit.NANOSECONDS.toMillis(acquireTimeoutNanos) + "ms waiting for one of "
+                        + size + (inLongRunningScope ? " long-running" : "") + " connection permits");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("Interrupted while waiting for a connection permit", e);
+        }
+        return lane;
+    }
+
+    private Connection guard(Connection connection, Semaphore lane) {
+        AtomicBoolean released = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(ConnectionProxy.class.getClassLoader(),
+                new Class<?>[]{ConnectionProxy.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "equals" -> proxy == args[0];
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "getTargetConnection" -> connection;
+                    case "close" -> {
+                        try {
+                            connection.close();
+                        } finally {
+                            if (released.compareAndSet(false, true)) {
+                                lane.release();
+                            }
+                        }
+                        yield null;
+                    }
+                    default -> {
+                        try {
+                            yield method.invoke(connection, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getTargetException();
+                        }
+                    }
+                });
+    }
+}
@@ -0,0 +1,17 @@
+package com.emobile.springtodo.jdbc;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a method that may hold a database connection for a long time. In virtual-thread mode its connections
+ * count against the bulkhead's long-running permits rather than those of ordinary requests.
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface LongRunning {
+}
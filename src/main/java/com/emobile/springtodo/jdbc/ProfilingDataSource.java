@@ -0,0 +1,238 @@
+package com.emobile.springtodo.jdbc;
+
+import org.springframework.jdbc.datasource.ConnectionProxy;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+
+/**
+ * Times every statement run through its connections and reports it to a {@link SqlProfiler}.
+ * Execution time covers the execute call; for queries, time spent in {@link ResultSet#next()} is
+ * counted separately as fetch time, together with the number of rows read. A query is recorded
+ * when its result set or statement is closed.
+ * <p>
+ * Plans are fetched through the given plan source, normally the DataSource bean this one ends up wrapped in,
+ * so EXPLAIN passes the same bulkhead as the statement it explains. Connections taken while fetching a plan
+ * are handed out unprofiled.
+ */
+public class ProfilingDataSource extends DelegatingDataSource {
+
+    private final SqlProfiler profiler;
+    private final Supplier<DataSource> planSource;
+    private volatile DataSource resolvedPlanSource;
+
+    public ProfilingDataSource(DataSource targetDataSource, SqlProfiler profiler, Supplier<DataSource> planSource) {
+        super(targetDataSource);
+        this.profiler = profiler;
+        this.planSource = planSource;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        Connection connection = super.getConnection();
+        return SqlProfiler.isCapturingPlan() ? connection : profile(connection);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        Connection connection = super.getConnection(username, password);
+        return SqlProfiler.isCapturingPlan() ? connection : profile(connection);
+    }
+
+    private DataSource planSource() {
+        DataSource dataSource = resolvedPlanSource;
+        if (dataSource == null) {
+            dataSource = planSource.get();
+            resolvedPlanSource = dataSource;
+        }
+        return dataSource;
+    }
+
+    private Connection profile(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(ConnectionProxy.class.getClassLoader(),
+                new Class<?>[]{ConnectionProxy.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "equals" -> proxy == args[0];
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "getTargetConnection" -> connection;
+                    case "createStatement" -> profile(Statement.class, (Statement) invoke(connection, method, args), null);
+                    case "prepareStatement" -> profile(PreparedStatement.class,
+                            (Statement) invoke(connection, method, args), (String) args[0]);
+                    case "prepareCall" -> profile(CallableStatement.class,
+                            (Statement) invoke(connection, method, args), (String) args[0]);
+                    default -> invoke(connection, method, args);
+                });
+    }
+
+    private Object profile(Class<? extends Statement> type, Statement statement, String sql) {
+        return Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, new StatementHandler(statement, sql));
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+
+    private final class StatementHandler implements InvocationHandler {
+
+        private final Statement statement;
+        private final String preparedSql;
+        private final SortedMap<Integer, Object> parameters = new TreeMap<>();
+        private Execution current;
+
+        StatementHandler(Statement statement, String preparedSql) {
+            this.statement = statement;
+            this.preparedSql = preparedSql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            switch (name) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "getResultSet":
+                    ResultSet resultSet = (ResultSet) ProfilingDataSource.invoke(statement, method, args);
+                    return resultSet != null && current != null ? profile(resultSet, current) : resultSet;
+                case "clearParameters":
+                    parameters.clear();
+                    break;
+                case "close":
+                    finish();
+                    break;
+                default:
+                    if (name.startsWith("execute")) {
+                        return execute(method, args);
+                    }
+                    if (name.startsWith("set") && preparedSql != null && args != null && args.length >= 2
+                            && args[0] instanceof Integer index) {
+                        parameters.put(index, name.equals("setNull") ? null : args[1]);
+                    }
+            }
+            return ProfilingDataSource.invoke(statement, method, args);
+        }
+
+        private Object execute(Method method, Object[] args) throws Throwable {
+            finish();
+            String sql = preparedSql != null ? preparedSql : (String) args[0];
+            Execution execution = new Execution(sql, new ArrayList<>(parameters.values()));
+            long start = System.nanoTime();
+            Object result;
+            try {
+                result = ProfilingDataSource.invoke(statement, method, args);
+            } catch (Throwable e) {
+                execution.executeNanos = System.nanoTime() - start;
+                execution.failed = true;
+                execution.record();
+                throw e;
+            }
+            execution.executeNanos = System.nanoTime() - start;
+
+            switch (result) {
+                case ResultSet resultSet -> {
+                    current = execution;
+                    return profile(resultSet, execution);
+                }
+                case Boolean hasResultSet when hasResultSet -> {
+                    current = execution;
+                    return result;
+                }
+                case Boolean ignored -> execution.rows = Math.max(0, statement.getUpdateCount());
+                case Number count -> execution.rows = count.longValue();
+                case int[] counts -> {
+                    for (int count : counts) {
+                        execution.rows += Math.max(0, count);
+                    }
+                }
+                case long[] counts -> {
+                    for (long count : counts) {
+                        execution.rows += Math.max(0, count);
+                    }
+                }
+                default -> {
+                }
+            }
+            execution.record();
+            return result;
+        }
+
+        private void finish() {
+            if (current != null) {
+                current.record();
+                current = null;
+            }
+        }
+    }
+
+    private ResultSet profile(ResultSet resultSet, Execution execution) {
+        return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[]{ResultSet.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "equals" -> proxy == args[0];
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "next" -> {
+                        long start = System.nanoTime();
+                        boolean hasRow = resultSet.next();
+                        execution.fetchNanos += System.nanoTime() - start;
+                        if (hasRow) {
+                            execution.rows++;
+                        }
+                        yield hasRow;
+                    }
+                    case "close" -> {
+                        try {
+                            resultSet.close();
+                        } finally {
+                            execution.record();
+                        }
+                        yield null;
+                    }
+                    default -> invoke(resultSet, method, args);
+                });
+    }
+
+    /**
+     * One statement execution; statements and result sets are used by a single thread at a time.
+     */
+    private final class Execution {
+
+        private final String sql;
+        private final List<Object> parameters;
+        private long executeNanos;
+        private long fetchNanos;
+        private long rows;
+        private boolean failed;
+        private boolean recorded;
+
+        Execution(String sql, List<Object> parameters) {
+            this.sql = sql;
+            this.parameters = parameters;
+        }
+
+        void record() {
+            if (!recorded) {
+                recorded = true;
+                profiler.record(sql, parameters, executeNanos, fetchNanos, rows, failed, planSource());
+            }
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.emobile.springtodo.jdbc;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Connection pools for the read replicas. A replica whose pool cannot hand out a connection is skipped for
+ * {@code retryAfter}, and one that has not replayed up to the position a read requires is passed over for
+ * that read; when no replica is usable the caller falls back to the primary.
+ */
+public class ReadReplicas implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReadReplicas.class);
+
+    public enum Selection { ROUND_ROBIN, LEAST_CONNECTIONS }
+
+    private final List<Replica> replicas = new ArrayList<>();
+    private final Selection selection;
+    private final long retryAfterNanos;
+    private final AtomicInteger next = new AtomicInteger();
+    private final LongAdder fallbacks = new LongAdder();
+    private final LongAdder lagging = new LongAdder();
+
+    public ReadReplicas(List<String> urls, String username, String password, int maximumPoolSize,
+                        int minimumIdle, Duration connectionTimeout, Selection selection, Duration retryAfter,
+                        MeterRegistry meterRegistry) {
+        this.selection = selection;
+        this.retryAfterNanos = retryAfter.toNanos();
+        for (int i = 0; i < urls.size(); i++) {
+            HikariConfig config = new HikariConfig();
+            config.setPoolName("replica-" + (i + 1));
+            config.setJdbcUrl(urls.get(i));
+            config.setUsername(username);
+            config.setPassword(password);
+            config.setMaximumPoolSize(maximumPoolSize);
+            config.setMinimumIdle(minimumIdle);
+            config.setConnectionTimeout(connectionTimeout.toMillis());
+            config.setReadOnly(true);
+            // A replica that is down at startup must not stop the application
+            config.setInitializationFailTimeout(-1);
+            config.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+            replicas.add(new Replica(new HikariDataSource(config)));
+        }
+    }
+
+    /**
+     * Returns a connection to a healthy replica that has replayed the primary's WAL up to {@code position},
+     * or {@code null} if none could provide one. A position of 0 accepts any replica.
+     */
+    public Connection getConnection(long position) {
+        for (int attempt = 0; attempt < replicas.size(); attempt++) {
+            Replica replica = select();
+            if (replica == null) {
+                break;
+            }
+            try {
+                Connection connection = replica.dataSource.getConnection();
+                replica.down = false;
+                if (replica.hasReplayed(connection, position)) {
+                    replica.reads.increment();
+                    return connection;
+                }
+                connection.close();
+                lagging.increment();
+            } catch (SQLException e) {
+                replica.failures.increment();
+                replica.downSince = System.nanoTime();
+                replica.down = true;
+                logger.warn("Read replica {} is unavailable, skipping it for {} ms: {}",
+                        replica.dataSource.getPoolName(), retryAfterNanos / 1_000_000, e.getMessage());
+            }
+        }
+        fallbacks.increment();
+        return null;
+    }
+
+    public List<String> getPoolNames() {
+        return replicas.stream().map(replica -> replica.dataSource.getPoolName()).toList();
+    }
+
+    public long getReads(String poolName) {
+        return replicas.stream()
+                .filter(replica -> replica.dataSource.getPoolName().equals(poolName))
+                .mapToLong(replica -> replica.reads.sum())
+                .sum();
+    }
+
+    public long getFailures(String poolName) {
+        return replicas.stream()
+                .filter(replica -> replica.dataSource.getPoolName().equals(poolName))
+                .mapToLong(replica -> replica.failures.sum())
+                .sum();
+    }
+
+    public long getFallbacks() {
+        return fallbacks.sum();
+    }
+
+    public long getLagging() {
+        return lagging.sum();
+    }
+
+    @Override
+    public void close() {
+        replicas.forEach(replica -> replica.dataSource.close());
+    }
+
+    private Replica select() {
+        long now = System.nanoTime();
+        List<Replica> available = replicas.stream()
+                .filter(replica -> !replica.down || now - replica.downSince >= retryAfterNanos)
+                .toList();
+        if (available.isEmpty()) {
+            return null;
+        }
+        if (selection == Selection.LEAST_CONNECTIONS) {
+            Replica least = available.getFirst();
+            for (Replica replica : available) {
+                if (replica.activeConnections() < least.activeConnections()) {
+                    least = replica;
+                }
+            }
+            return least;
+        }
+        return available.get(Math.floorMod(next.getAndIncrement(), available.size()));
+    }
+
+    private static final class Replica {
+
+        private final HikariDataSource dataSource;
+        private final LongAdder reads = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private volatile boolean down;
+        private volatile long downSince;
+        // Highest position seen replayed; it only moves forward, so most reads need no query
+        private volatile long replayed;
+
+        Replica(HikariDataSource dataSource) {
+            this.dataSource = dataSource;
+        }
+
+        boolean hasReplayed(Connection connection, long position) throws SQLException {
+            if (replayed >= position) {
+                return true;
+            }
+            try {
+                long current = WalPosition.replayed(connection);
+                if (current > replayed) {
+                    replayed = current;
+                }
+                return current >= position;
+            } catch (SQLException e) {
+                connection.close();
+                throw e;
+            }
+        }
+
+        int activeConnections() {
+            HikariPoolMXBean pool = dataSource.getHikariPoolMXBean();
+            return pool == null ? 0 : pool.getActiveConnections() + pool.getThreadsAwaitingConnection();
+        }
+    }
+}
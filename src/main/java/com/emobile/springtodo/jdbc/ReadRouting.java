@@ -0,0 +1,62 @@
+package com.emobile.springtodo.jdbc;
+
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Per-thread routing state: whether the current call may read from a replica, whether the current request
+ * is pinned to the primary because it writes, and the WAL position of its client's last write, which a
+ * replica must have replayed before serving it.
+ */
+public final class ReadRouting {
+
+    private static final ThreadLocal<Boolean> replicaRead = new ThreadLocal<>();
+    private static final ThreadLocal<Boolean> pinnedToPrimary = new ThreadLocal<>();
+    private static final ThreadLocal<Long> requiredPosition = new ThreadLocal<>();
+
+    private ReadRouting() {
+    }
+
+    /**
+     * Opens a replica-read scope and returns the previous state for {@link #endReplicaRead(boolean)}.
+     */
+    public static boolean beginReplicaRead() {
+        boolean previous = Boolean.TRUE.equals(replicaRead.get());
+        replicaRead.set(Boolean.TRUE);
+        return previous;
+    }
+
+    public static void endReplicaRead(boolean previous) {
+        if (previous) {
+            replicaRead.set(Boolean.TRUE);
+        } else {
+            replicaRead.remove();
+        }
+    }
+
+    public static void pinToPrimary() {
+        pinnedToPrimary.set(Boolean.TRUE);
+    }
+
+    public static void requirePosition(long position) {
+        requiredPosition.set(position);
+    }
+
+    public static long requiredPosition() {
+        Long position = requiredPosition.get();
+        return position == null ? 0 : position;
+    }
+
+    /**
+     * Clears the request's pin and required position.
+     */
+    public static void unpin() {
+        pinnedToPrimary.remove();
+        requiredPosition.remove();
+    }
+
+    public static boolean routesToReplica() {
+        return Boolean.TRUE.equals(replicaRead.get())
+                && !Boolean.TRUE.equals(pinnedToPrimary.get())
+                && !TransactionSynchronizationManager.isActualTransactionActive();
+    }
+}
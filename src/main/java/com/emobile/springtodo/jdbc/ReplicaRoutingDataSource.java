@@ -0,0 +1,40 @@
+package com.emobile.springtodo.jdbc;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.function.LongSupplier;
+
+/**
+ * Hands out replica connections inside {@link ReplicaRead} calls and primary connections otherwise,
+ * including whenever no replica is available. Writes never see the replicas.
+ * <p>
+ * A replica only serves a read once it has replayed the primary's WAL up to the position the read requires:
+ * the client's own last write, and {@code cachePosition}. List caches are keyed by change generation, so a page
+ * loaded from a replica that has not replayed the write behind the current generation would be cached under it.
+ */
+public class ReplicaRoutingDataSource extends DelegatingDataSource {
+
+    private final ReadReplicas replicas;
+    private final LongSupplier cachePosition;
+
+    public ReplicaRoutingDataSource(DataSource primary, ReadReplicas replicas, LongSupplier cachePosition) {
+        super(primary);
+        this.replicas = replicas;
+        this.cachePosition = cachePosition;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (ReadRouting.routesToReplica()) {
+            long position = Math.max(ReadRouting.requiredPosition(), cachePosition.getAsLong());
+            Connection connection = replicas.getConnection(position);
+            if (connection != null) {
+                return connection;
+            }
+        }
+        return super.getConnection();
+    }
+}
@@ -0,0 +1,251 @@
+package com.emobile.springtodo.jdbc;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Aggregates statement executions by shape: the SQL with literals replaced by {@code ?} and repeated
+ * VALUES groups or IN lists folded, so the same query with different arguments or batch sizes lands in
+ * one bucket. Executions at or above the slow threshold are also kept in a bounded list of recent slow
+ * statements, with the types of their bind parameters but never the values.
+ * <p>
+ * With plan capture on, a slow SELECT has its plan fetched with EXPLAIN in the background, using the
+ * bind values of that execution, at most once per {@value #PLAN_REFRESH_MINUTES} minutes per shape.
+ */
+public class SqlProfiler {
+
+    private static final Logger logger = LoggerFactory.getLogger(SqlProfiler.class);
+
+    private static final int PLAN_REFRESH_MINUTES = 5;
+
+    // Set on the plan thread, whose EXPLAIN statements are not profiled themselves
+    private static final ThreadLocal<Boolean> capturingPlan = new ThreadLocal<>();
+    private static final int MAX_PARAMETER_TYPES = 20;
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("(?<![\\w$])\\d+(?:\\.\\d+)?(?![\\w$])");
+    private static final Pattern VALUES_GROUPS = Pattern.compile("(\\((?:\\?, ?)*\\?\\))(?:, ?\\((?:\\?, ?)*\\?\\))+");
+    private static final Pattern IN_LIST = Pattern.compile("(?i)\\bIN \\(\\?(?:, ?\\?)+\\)");
+
+    private final long slowThresholdNanos;
+    private final int slowCapacity;
+    private final int maxStatements;
+    private final boolean capturePlans;
+
+    private final LoadingCache<String, String> shapes;
+    private final ConcurrentMap<String, StatementStats> statements = new ConcurrentHashMap<>();
+    private final Deque<SlowStatement> slowStatements = new ArrayDeque<>();
+    private final ThreadPoolExecutor planExecutor;
+
+    public SqlProfiler(Duration slowThreshold, int slowCapacity, int maxStatements, boolean capturePlans) {
+        this.slowThresholdNanos = slowThreshold.toNanos();
+        this.slowCapacity = slowCapacity;
+        this.maxStatements = maxStatements;
+        this.capturePlans = capturePlans;
+        this.shapes = Caffeine.newBuilder()
+                .maximumSize(maxStatements * 4L)
+                .build(SqlProfiler::shapeOf);
+        this.planExecutor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(16),
+                Thread.ofPlatform().name("sql-profiler-explain").daemon().factory());
+    }
+
+    /**
+     * Records one statement execution.
+     *
+     * @param parameters bind values in parameter order, used for parameter types and EXPLAIN only
+     * @param planSource where EXPLAIN runs; the application's DataSource, so plans take a connection permit
+     *                   like any other statement
+     */
+    public void record(String sql, List<Object> parameters, long executeNanos, long fetchNanos, long rows,
+                       boolean failed, DataSource planSource) {
+        String shape = shapes.get(sql);
+        StatementStats stats = statements.get(shape);
+        if (stats == null) {
+            if (statements.size() >= maxStatements) {
+                stats = statements.computeIfAbsent("(other statements)", key -> new StatementStats());
+            } else {
+                stats = statements.computeIfAbsent(shape, key -> new StatementStats());
+            }
+        }
+        long totalNanos = executeNanos + fetchNanos;
+        stats.record(executeNanos, fetchNanos, rows, failed);
+
+        if (totalNanos >= slowThresholdNanos) {
+            addSlowStatement(new SlowStatement(shape, parameterTypes(parameters),
+                    nanosToMillis(totalNanos), rows, failed, Instant.now()));
+            if (capturePlans && !failed && stats.claimPlanRefresh() && isQuery(sql)) {
+                explain(stats, sql, parameters, planSource);
+            }
+        }
+    }
+
+    public List<StatementSummary> getTopStatements(int limit) {
+        return statements.entrySet().stream()
+                .map(entry -> entry.getValue().summarize(entry.getKey()))
+                .sorted(Comparator.comparingDouble(StatementSummary::totalMillis).reversed())
+                .limit(limit)
+                .toList();
+    }
+
+    public List<SlowStatement> getSlowStatements() {
+        synchronized (slowStatements) {
+            return new ArrayList<>(slowStatements);
+        }
+    }
+
+    public void reset() {
+        statements.clear();
+        synchronized (slowStatements) {
+            slowStatements.clear();
+        }
+    }
+
+    /**
+     * Whether the current thread is fetching a plan, so its statements should not be recorded.
+     */
+    public static boolean isCapturingPlan() {
+        return Boolean.TRUE.equals(capturingPlan.get());
+    }
+
+    public void shutdown() {
+        planExecutor.shutdownNow();
+    }
+
+    static String shapeOf(String sql) {
+        String shape = WHITESPACE.matcher(sql.strip()).replaceAll(" ");
+        shape = STRING_LITERAL.matcher(shape).replaceAll("?");
+        shape = NUMBER_LITERAL.matcher(shape).replaceAll("?");
+        shape = VALUES_GROUPS.matcher(shape).replaceAll("$1, ...");
+        return IN_LIST.matcher(shape).replaceAll("IN (?, ...)");
+    }
+
+    private void addSlowStatement(SlowStatement statement) {
+        synchronized (slowStatements) {
+            if (slowStatements.size() >= slowCapacity) {
+                slowStatements.removeLast();
+            }
+            slowStatements.addFirst(statement);
+        }
+    }
+
+    private void explain(StatementStats stats, String sql, List<Object> parameters, DataSource planSource) {
+        try {
+            planExecutor.execute(() -> {
+                capturingPlan.set(true);
+                try (Connection connection = planSource.getConnection();
+                     PreparedStatement statement = connection.prepareStatement("EXPLAIN " + sql)) {
+                    for (int i = 0; i < parameters.size(); i++) {
+                        statement.setObject(i + 1, parameters.get(i));
+                    }
+                    StringBuilder plan = new StringBuilder();
+                    try (ResultSet resultSet = statement.executeQuery()) {
+                        while (resultSet.next()) {
+                            plan.append(resultSet.getString(1)).append('\n');
+                        }
+                    }
+                    stats.plan = plan.toString();
+                } catch (SQLException | RuntimeException e) {
+                    logger.debug("Could not explain slow statement {}: {}", sql, e.getMessage());
+                } finally {
+                    capturingPlan.remove();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            logger.debug("Skipping plan capture, explain queue is full");
+        }
+    }
+
+    private static boolean isQuery(String sql) {
+        String head = sql.stripLeading().toUpperCase(Locale.ROOT);
+        return head.startsWith("SELECT") || head.startsWith("WITH");
+    }
+
+    private static String parameterTypes(List<Object> parameters) {
+        String types = parameters.stream()
+                .limit(MAX_PARAMETER_TYPES)
+                .map(value -> value == null ? "null" : value.getClass().getSimpleName())
+                .collect(Collectors.joining(", ", "[", ""));
+        return parameters.size() > MAX_PARAMETER_TYPES
+                ? types + ", ... (" + parameters.size() + " in total)]"
+                : types + "]";
+    }
+
+    private static double nanosToMillis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    private static final class StatementStats {
+
+        private final LongAdder count = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder executeNanos = new LongAdder();
+        private final LongAdder fetchNanos = new LongAdder();
+        private final LongAdder rows = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+        private final AtomicLong planCapturedAt = new AtomicLong(Long.MIN_VALUE);
+        private volatile String plan;
+
+        void record(long execute, long fetch, long rowCount, boolean failed) {
+            count.increment();
+            executeNanos.add(execute);
+            fetchNanos.add(fetch);
+            rows.add(rowCount);
+            if (failed) {
+                errors.increment();
+            }
+            maxNanos.accumulateAndGet(execute + fetch, Math::max);
+        }
+
+        boolean claimPlanRefresh() {
+            long now = System.nanoTime();
+            long last = planCapturedAt.get();
+            return (last == Long.MIN_VALUE || now - last >= TimeUnit.MINUTES.toNanos(PLAN_REFRESH_MINUTES))
+                    && planCapturedAt.compareAndSet(last, now);
+        }
+
+        StatementSummary summarize(String shape) {
+            long executions = count.sum();
+            long execute = executeNanos.sum();
+            long fetch = fetchNanos.sum();
+            return new StatementSummary(shape, executions, errors.sum(), nanosToMillis(execute + fetch),
+                    executions == 0 ? 0 : nanosToMillis((execute + fetch) / executions),
+                    nanosToMillis(maxNanos.get()), nanosToMillis(execute), nanosToMillis(fetch), rows.sum(), plan);
+        }
+    }
+
+    public record StatementSummary(String statement, long count, long errors, double totalMillis, double meanMillis,
+                                   double maxMillis, double executeMillis, double fetchMillis, long rows,
+                                   String plan) {
+    }
+
+    public record SlowStatement(String statement, String parameterTypes, double millis, long rows, boolean failed,
+                                Instant capturedAt) {
+    }
+}
@@ -0,0 +1,39 @@
+package com.emobile.springtodo.jdbc;
+
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.lang.Nullable;
+
+import java.util.List;
+
+/**
+ * {@code /actuator/sqlprofile}: statement shapes by total time spent, and the most recent slow statements.
+ * A DELETE resets both.
+ */
+@Endpoint(id = "sqlprofile")
+public class SqlProfilerEndpoint {
+
+    private static final int DEFAULT_LIMIT = 20;
+
+    private final SqlProfiler profiler;
+
+    public SqlProfilerEndpoint(SqlProfiler profiler) {
+        this.profiler = profiler;
+    }
+
+    @ReadOperation
+    public SqlProfile profile(@Nullable Integer limit) {
+        int top = limit == null || limit < 1 ? DEFAULT_LIMIT : limit;
+        return new SqlProfile(profiler.getTopStatements(top), profiler.getSlowStatements());
+    }
+
+    @DeleteOperation
+    public void reset() {
+        profiler.reset();
+    }
+
+    public record SqlProfile(List<SqlProfiler.StatementSummary> statements,
+                             List<SqlProfiler.SlowStatement> slowStatements) {
+    }
+}
@@ -0,0 +1,47 @@
+package com.emobile.springtodo.jdbc;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * WAL positions as byte offsets, so the primary's position at a write can be compared with what a replica
+ * has replayed.
+ */
+public final class WalPosition {
+
+    private static final String CURRENT_SQL = "SELECT pg_current_wal_lsn() - '0/0'::pg_lsn";
+    private static final String REPLAYED_SQL = "SELECT pg_last_wal_replay_lsn() - '0/0'::pg_lsn";
+
+    private WalPosition() {
+    }
+
+    /**
+     * The primary's current position, past every transaction that has committed on it.
+     */
+    public static long current(Connection connection) throws SQLException {
+        long position = query(connection, CURRENT_SQL);
+        if (position < 0) {
+            throw new SQLException("Server did not report a WAL position");
+        }
+        return position;
+    }
+
+    /**
+     * The position a replica has replayed up to, or -1 for a server that is not replaying WAL and so cannot
+     * show that it has any given write.
+     */
+    public static long replayed(Connection connection) throws SQLException {
+        return query(connection, REPLAYED_SQL);
+    }
+
+    private static long query(Connection connection, String sql) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(sql)) {
+            resultSet.next();
+            long position = resultSet.getLong(1);
+            return resultSet.wasNull() ? -1 : position;
+        }
+    }
+}
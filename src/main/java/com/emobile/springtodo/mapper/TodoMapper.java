@@ -1,13 +1,13 @@
 package com.emobile.springtodo.mapper;
 
 import com.emobile.springtodo.dto.request.CreateTodoRequest;
-import com.emobile.springtodo.dto.request.UpdateTodoRequest;
+import com.emobile.springtodo.dto.request.ImportTodoRequest;
 import com.emobile.springtodo.dto.response.TodoResponse;
+import com.emobile.springtodo.dto.response.TodoStatsResponse;
 import com.emobile.springtodo.model.Todo;
+import com.emobile.springtodo.model.TodoStats;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
-import org.mapstruct.MappingTarget;
-import org.mapstruct.NullValuePropertyMappingStrategy;
 
 import java.util.List;
 
@@ -20,15 +20,15 @@ public interface TodoMapper {
     @Mapping(target = "updatedAt", expression = "java(java.time.LocalDateTime.now())")
     Todo toEntity(CreateTodoRequest request);
 
+    @Mapping(target = "id", ignore = true)
+    @Mapping(target = "completed", defaultValue = "false")
+    @Mapping(target = "createdAt", expression = "java(java.time.LocalDateTime.now())")
+    @Mapping(target = "updatedAt", expression = "java(java.time.LocalDateTime.now())")
+    Todo toEntity(ImportTodoRequest request);
+
     TodoResponse toResponse(Todo todo);
 
     List<TodoResponse> toResponseList(List<Todo> todos);
 
-    @Mapping(target = "id", ignore = true)
-    @Mapping(target = "createdAt", ignore = true)
-    @Mapping(target = "updatedAt", expression = "java(java.time.LocalDateTime.now())")
-    @Mapping(target = "title", source = "title", nullValuePropertyMappingStrategy = NullValuePropertyMappingStrategy.IGNORE)
-    @Mapping(target = "description", source = "description", nullValuePropertyMappingStrategy = NullValuePropertyMappingStrategy.IGNORE)
-    @Mapping(target = "completed", source = "completed", nullValuePropertyMappingStrategy = NullValuePropertyMappingStrategy.IGNORE)
-    void updateEntityFromRequest(UpdateTodoRequest request, @MappingTarget Todo todo);
+    TodoStatsResponse toResponse(TodoStats stats);
 }
\ No newline at end of file
@@ -0,0 +1,48 @@
+package com.emobile.springtodo.model;
+
+/**
+ * A committed change to a todo as recorded in {@code todo_events}: the row after a create or update,
+ * the row before a delete. Moving a todo to the archive is not recorded. A statement that changed too many
+ * todos to list is recorded as a single {@link Type#RESET} without a todo, telling subscribers to reload.
+ */
+public class TodoEvent {
+
+    public enum Type {
+        CREATED("C"), UPDATED("U"), DELETED("D"), RESET("R");
+
+        private final String code;
+
+        Type(String code) {
+            this.code = code;
+        }
+
+        public static Type fromCode(String code) {
+            for (Type type : values()) {
+                if (type.code.equals(code)) {
+                    return type;
+                }
+            }
+            throw new IllegalArgumentException("Unknown todo event type: " + code);
+        }
+    }
+
+    private final long id;
+    private final long transactionId;
+    private final Type type;
+    private final Todo todo;
+
+    public TodoEvent(long id, long transactionId, Type type, Todo todo) {
+        this.id = id;
+        this.transactionId = transactionId;
+        this.type = type;
+        this.todo = todo;
+    }
+
+    public long getId() { return id; }
+
+    public long getTransactionId() { return transactionId; }
+
+    public Type getType() { return type; }
+
+    public Todo getTodo() { return todo; }
+}
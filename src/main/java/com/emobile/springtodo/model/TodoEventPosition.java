@@ -0,0 +1,46 @@
+package com.emobile.springtodo.model;
+
+/**
+ * Place in the change feed: the writing transaction, then the event within it. Events are delivered in this
+ * order, which is commit order for transactions that do not overlap.
+ */
+public class TodoEventPosition implements Comparable<TodoEventPosition> {
+
+    private final long transactionId;
+    private final long eventId;
+
+    public TodoEventPosition(long transactionId, long eventId) {
+        this.transactionId = transactionId;
+        this.eventId = eventId;
+    }
+
+    public static TodoEventPosition of(TodoEvent event) {
+        return new TodoEventPosition(event.getTransactionId(), event.getId());
+    }
+
+    public long getTransactionId() { return transactionId; }
+
+    public long getEventId() { return eventId; }
+
+    @Override
+    public int compareTo(TodoEventPosition other) {
+        int byTransaction = Long.compareUnsigned(transactionId, other.transactionId);
+        return byTransaction != 0 ? byTransaction : Long.compare(eventId, other.eventId);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof TodoEventPosition other
+                && transactionId == other.transactionId && eventId == other.eventId;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(transactionId) * 31 + Long.hashCode(eventId);
+    }
+
+    @Override
+    public String toString() {
+        return transactionId + ":" + eventId;
+    }
+}
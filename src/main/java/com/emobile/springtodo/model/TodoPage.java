@@ -0,0 +1,22 @@
+package com.emobile.springtodo.model;
+
+import java.util.List;
+
+public class TodoPage {
+
+    private List<Todo> todos;
+    private TodoStats stats;
+
+    public TodoPage() {}
+
+    public TodoPage(List<Todo> todos, TodoStats stats) {
+        this.todos = todos;
+        this.stats = stats;
+    }
+
+    public List<Todo> getTodos() { return todos; }
+    public void setTodos(List<Todo> todos) { this.todos = todos; }
+
+    public TodoStats getStats() { return stats; }
+    public void setStats(TodoStats stats) { this.stats = stats; }
+}
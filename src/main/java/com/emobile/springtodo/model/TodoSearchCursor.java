@@ -0,0 +1,52 @@
+package com.emobile.springtodo.model;
+
+import com.emobile.springtodo.exception.InvalidRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Keyset position in the {@code (rank DESC, id DESC)} ordering of search results, exchanged with clients
+ * as an opaque token. The rank is kept as the exact {@code real} the database computed.
+ */
+public class TodoSearchCursor {
+
+    private static final String SEPARATOR = "|";
+
+    private final float rank;
+    private final long id;
+
+    public TodoSearchCursor(float rank, long id) {
+        this.rank = rank;
+        this.id = id;
+    }
+
+    public static TodoSearchCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = decoded.lastIndexOf(SEPARATOR);
+            return new TodoSearchCursor(
+                    Float.intBitsToFloat(Integer.parseUnsignedInt(decoded.substring(0, separator), 16)),
+                    Long.parseLong(decoded.substring(separator + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new InvalidRequestException("Invalid cursor: " + token);
+        }
+    }
+
+    public String encode() {
+        String raw = Integer.toHexString(Float.floatToIntBits(rank)) + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public float getRank() { return rank; }
+
+    public long getId() { return id; }
+
+    @Override
+    public String toString() {
+        return encode();
+    }
+}
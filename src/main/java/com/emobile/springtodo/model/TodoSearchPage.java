@@ -0,0 +1,22 @@
+package com.emobile.springtodo.model;
+
+import java.util.List;
+
+public class TodoSearchPage {
+
+    private List<Todo> todos;
+    private String nextCursor;
+
+    public TodoSearchPage() {}
+
+    public TodoSearchPage(List<Todo> todos, String nextCursor) {
+        this.todos = todos;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<Todo> getTodos() { return todos; }
+    public void setTodos(List<Todo> todos) { this.todos = todos; }
+
+    public String getNextCursor() { return nextCursor; }
+    public void setNextCursor(String nextCursor) { this.nextCursor = nextCursor; }
+}
@@ -0,0 +1,29 @@
+package com.emobile.springtodo.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+public class TodoStats {
+
+    private long total;
+    private long completed;
+
+    public TodoStats() {}
+
+    public TodoStats(long total, long completed) {
+        this.total = total;
+        this.completed = completed;
+    }
+
+    public long getTotal() { return total; }
+    public void setTotal(long total) { this.total = total; }
+
+    public long getCompleted() { return completed; }
+    public void setCompleted(long completed) { this.completed = completed; }
+
+    @JsonIgnore
+    public long getOpen() { return total - completed; }
+
+    public long count(boolean completed) {
+        return completed ? this.completed : getOpen();
+    }
+}
@@ -0,0 +1,268 @@
+package com.emobile.springtodo.repository;
+
+import com.emobile.springtodo.model.Todo;
+import com.emobile.springtodo.model.TodoCursor;
+import com.emobile.springtodo.model.TodoPage;
+import com.emobile.springtodo.model.TodoSearchCursor;
+import com.emobile.springtodo.model.TodoSearchPage;
+import com.emobile.springtodo.model.TodoStats;
+import io.r2dbc.spi.Readable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Non-blocking counterpart of {@link TodoRepository} and the archive reads of {@link TodoArchiveRepository},
+ * running the same statements over R2DBC. Only the bind markers differ: R2DBC PostgreSQL expects {@code $n}.
+ */
+@Repository
+@Profile("reactive")
+public class ReactiveTodoRepository {
+
+    private final DatabaseClient databaseClient;
+
+    @Autowired
+    public ReactiveTodoRepository(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    public Mono<Todo> insert(Todo todo) {
+        LocalDateTime now = LocalDateTime.now();
+        return query(TodoRepository.insertSql(1),
+                todo.getTitle(), todo.getDescription(), todo.getCompleted() != null && todo.getCompleted(), now, now)
+                .map(ReactiveTodoRepository::mapTodo)
+                .one();
+    }
+
+    /**
+     * Inserts in multi-row statements of {@value TodoRepository#INSERT_BATCH_SIZE}; atomic only when
+     * subscribed within a transaction.
+     */
+    public Flux<Todo> insertAll(List<Todo> todos) {
+        List<List<Todo>> chunks = new ArrayList<>();
+        for (int from = 0; from < todos.size(); from += TodoRepository.INSERT_BATCH_SIZE) {
+            chunks.add(todos.subList(from, Math.min(from + TodoRepository.INSERT_BATCH_SIZE, todos.size())));
+        }
+        return Flux.fromIterable(chunks).concatMap(this::insertChunk);
+    }
+
+    // Rows are matched to pre-drawn ids, as in TodoRepository
+    private Flux<Todo> insertChunk(List<Todo> todos) {
+        return query(TodoRepository.NEXT_IDS_SQL, todos.size())
+                .map(row -> row.get(0, Long.class))
+                .all()
+                .collectList()
+                .flatMapMany(ids -> {
+                    LocalDateTime now = LocalDateTime.now();
+                    List<Object> args = new ArrayList<>(todos.size() * 6);
+                    for (int i = 0; i < todos.size(); i++) {
+                        Todo todo = todos.get(i);
+                        args.add(ids.get(i));
+                        args.add(todo.getTitle());
+                        args.add(todo.getDescription());
+                        args.add(todo.getCompleted() != null && todo.getCompleted());
+                        args.add(now);
+                        args.add(now);
+                    }
+                    return query(TodoRepository.insertWithIdsSql(todos.size()), args.toArray())
+                            .map(ReactiveTodoRepository::mapTodo)
+                            .all()
+                            .collectList()
+                            .flatMapIterable(inserted -> TodoRepository.inIdOrder(ids, inserted));
+                });
+    }
+
+    public Mono<Todo> findById(Long id) {
+        return query(TodoRepository.FIND_BY_ID_SQL, id, id).map(ReactiveTodoRepository::mapTodo).one();
+    }
+
+    public Mono<TodoPage> findPage(int limit, int offset) {
+        return queryPage(TodoRepository.FIND_PAGE_SQL, limit, offset);
+    }
+
+    public Mono<TodoPage> findPageAfter(TodoCursor cursor, int limit) {
+        if (cursor == null) {
+            return queryPage(TodoRepository.FIND_FIRST_SQL, limit);
+        }
+        return queryPage(TodoRepository.FIND_AFTER_SQL, cursor.getCreatedAt(), cursor.getCreatedAt(), cursor.getId(),
+                limit);
+    }
+
+    public Mono<TodoPage> findPageByCompleted(boolean completed, int limit, int offset) {
+        return queryPage(TodoRepository.FIND_PAGE_BY_COMPLETED_SQL, completed, limit, offset);
+    }
+
+    public Mono<TodoPage> findPageByCompletedAfter(boolean completed, TodoCursor cursor, int limit) {
+        if (cursor == null) {
+            return queryPage(TodoRepository.FIND_FIRST_BY_COMPLETED_SQL, completed, limit);
+        }
+        return queryPage(TodoRepository.FIND_BY_COMPLETED_AFTER_SQL, completed, cursor.getCreatedAt(),
+                cursor.getCreatedAt(), cursor.getId(), limit);
+    }
+
+    public Mono<TodoSearchPage> search(String query, Boolean completed, TodoSearchCursor cursor, int limit) {
+        List<Object> args = new ArrayList<>();
+        args.add(query);
+        if (completed != null) {
+            args.add(completed);
+        }
+        if (cursor != null) {
+            args.add(cursor.getRank());
+            args.add(cursor.getId());
+        }
+        args.add(limit + 1);
+
+        return query(TodoRepository.searchSql(completed != null, cursor != null), args.toArray())
+                .map(row -> new RankedTodo(mapTodo(row), row.get("rank", Float.class)))
+                .all()
+                .collectList()
+                .map(rows -> {
+                    List<Todo> todos = rows.stream().map(RankedTodo::todo).limit(limit).toList();
+                    if (rows.size() <= limit) {
+                        return new TodoSearchPage(todos, null);
+                    }
+                    RankedTodo last = rows.get(limit - 1);
+                    String nextCursor = new TodoSearchCursor(last.rank(), last.todo().getId()).encode();
+                    return new TodoSearchPage(new ArrayList<>(todos), nextCursor);
+                });
+    }
+
+    public Mono<TodoStats> loadStats() {
+        return query(TodoStatsRepository.STATS_SQL).map(ReactiveTodoRepository::mapStats).one();
+    }
+
+    public Mono<Todo> patch(Long id, String title, String description, Boolean completed) {
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(bindMarkers(TodoRepository.PATCH_SQL));
+        spec = bind(spec, 0, title, String.class);
+        spec = bind(spec, 1, description, String.class);
+        spec = bind(spec, 2, completed, Boolean.class);
+        return spec.bind(3, LocalDateTime.now())
+                .bind(4, id)
+                .bind(5, id)
+                .map(ReactiveTodoRepository::mapTodo)
+                .one();
+    }
+
+    public Mono<Boolean> deleteById(Long id) {
+        return query(TodoRepository.DELETE_BY_ID_SQL, id, id).fetch().rowsUpdated().map(rows -> rows > 0);
+    }
+
+    public Mono<List<Long>> updateCompletedByIds(List<Long> ids, boolean completed) {
+        return findCreatedAts(ids).flatMap(createdAts -> createdAts.length == 0
+                ? Mono.just(List.<Long>of())
+                : ids(TodoRepository.UPDATE_COMPLETED_BY_IDS_SQL,
+                        completed, LocalDateTime.now(), ids.toArray(Long[]::new), createdAts, completed));
+    }
+
+    public Mono<List<Long>> updateCompletedByCompleted(boolean currentCompleted, boolean completed) {
+        return ids(TodoRepository.UPDATE_COMPLETED_BY_COMPLETED_SQL,
+                completed, LocalDateTime.now(), currentCompleted, completed);
+    }
+
+    public Mono<List<Long>> deleteByIds(List<Long> ids) {
+        return findCreatedAts(ids).flatMap(createdAts -> createdAts.length == 0
+                ? Mono.just(List.<Long>of())
+                : ids(TodoRepository.DELETE_BY_IDS_SQL, ids.toArray(Long[]::new), createdAts));
+    }
+
+    public Mono<List<Long>> deleteByCompleted(boolean completed) {
+        return ids(TodoRepository.DELETE_BY_COMPLETED_SQL, completed);
+    }
+
+    public Flux<Todo> findArchivedPage(int limit, int offset) {
+        return query(TodoArchiveRepository.FIND_PAGE_SQL, limit, offset).map(ReactiveTodoRepository::mapTodo).all();
+    }
+
+    public Flux<Todo> findArchivedPageAfter(TodoCursor cursor, int limit) {
+        if (cursor == null) {
+            return query(TodoArchiveRepository.FIND_FIRST_SQL, limit).map(ReactiveTodoRepository::mapTodo).all();
+        }
+        return query(TodoArchiveRepository.FIND_AFTER_SQL, cursor.getCreatedAt(), cursor.getId(), limit)
+                .map(ReactiveTodoRepository::mapTodo)
+                .all();
+    }
+
+    private Mono<TodoPage> queryPage(String rowsSql, Object... args) {
+        return query(TodoRepository.pageSql(rowsSql), args)
+                .map(row -> new PageRow(mapStats(row), row.get("id", Long.class) != null ? mapTodo(row) : null))
+                .all()
+                .collectList()
+                .map(rows -> {
+                    List<Todo> todos = new ArrayList<>(rows.size());
+                    for (PageRow row : rows) {
+                        if (row.todo() != null) {
+                            todos.add(row.todo());
+                        }
+                    }
+                    return new TodoPage(todos, rows.get(0).stats());
+                });
+    }
+
+    private Mono<LocalDateTime[]> findCreatedAts(List<Long> ids) {
+        return query(TodoRepository.FIND_CREATED_AT_BY_IDS_SQL, (Object) ids.toArray(Long[]::new))
+                .map(row -> row.get(0, LocalDateTime.class))
+                .all()
+                .collectList()
+                .map(createdAts -> createdAts.toArray(LocalDateTime[]::new));
+    }
+
+    private Mono<List<Long>> ids(String sql, Object... args) {
+        return query(sql, args).map(row -> row.get("id", Long.class)).all().collectList();
+    }
+
+    // Apart from PATCH, only text columns are ever bound as null
+    private DatabaseClient.GenericExecuteSpec query(String sql, Object... args) {
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(bindMarkers(sql));
+        for (int i = 0; i < args.length; i++) {
+            spec = bind(spec, i, args[i], String.class);
+        }
+        return spec;
+    }
+
+    private static DatabaseClient.GenericExecuteSpec bind(DatabaseClient.GenericExecuteSpec spec, int index,
+                                                          Object value, Class<?> nullType) {
+        return value != null ? spec.bind(index, value) : spec.bindNull(index, nullType);
+    }
+
+    static String bindMarkers(String sql) {
+        StringBuilder converted = new StringBuilder(sql.length() + 16);
+        int marker = 0;
+        for (int i = 0; i < sql.length(); i++) {
+            char c = sql.charAt(i);
+            if (c == '?') {
+                converted.append('$').append(++marker);
+            } else {
+                converted.append(c);
+            }
+        }
+        return converted.toString();
+    }
+
+    private static Todo mapTodo(Readable row) {
+        Todo todo = new Todo();
+        todo.setId(row.get("id", Long.class));
+        todo.setTitle(row.get("title", String.class));
+        todo.setDescription(row.get("description", String.class));
+        todo.setCompleted(row.get("completed", Boolean.class));
+        todo.setCreatedAt(row.get("created_at", LocalDateTime.class));
+        todo.setUpdatedAt(row.get("updated_at", LocalDateTime.class));
+        return todo;
+    }
+
+    private static TodoStats mapStats(Readable row) {
+        return new TodoStats(row.get("stats_total", Long.class), row.get("stats_completed", Long.class));
+    }
+
+    private record RankedTodo(Todo todo, Float rank) {
+    }
+
+    private record PageRow(TodoStats stats, Todo todo) {
+    }
+}
@@ -0,0 +1,81 @@
+package com.emobile.springtodo.repository;
+
+import com.emobile.springtodo.model.Todo;
+import com.emobile.springtodo.model.TodoCursor;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Storage housekeeping for the partitioned {@code todos} table and reads from the {@code todos_archive} cold table.
+ */
+@Repository
+@Timed(value = "todo.archive.repository", description = "Time spent in partition, archiving and archive statements",
+        histogram = true)
+public class TodoArchiveRepository {
+
+    private static final String COLUMNS = TodoRepository.COLUMNS;
+
+    static final String FIND_PAGE_SQL =
+            "SELECT " + COLUMNS + " FROM todos_archive ORDER BY created_at DESC, id DESC LIMIT ? OFFSET ?";
+    static final String FIND_FIRST_SQL =
+            "SELECT " + COLUMNS + " FROM todos_archive ORDER BY created_at DESC, id DESC LIMIT ?";
+    static final String FIND_AFTER_SQL = "SELECT " + COLUMNS + " FROM todos_archive WHERE (created_at, id) < (?, ?) " +
+            "ORDER BY created_at DESC, id DESC LIMIT ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final RowMapper<Todo> todoRowMapper = TodoRowMapper.INSTANCE;
+
+    @Autowired
+    public TodoArchiveRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Makes sure monthly partitions exist from the current month to {@code monthsAhead} months ahead.
+     * Returns the number of partitions created.
+     */
+    public int createPartitions(int monthsAhead) {
+        String sql = "SELECT todo_create_partitions(LOCALTIMESTAMP, LOCALTIMESTAMP + make_interval(months => ?))";
+        Integer created = jdbcTemplate.queryForObject(sql, Integer.class, monthsAhead);
+        return created == null ? 0 : created;
+    }
+
+    /**
+     * Moves up to {@code batchSize} completed todos last touched before {@code cutoff} to the archive, oldest
+     * first, in one statement. The bound on {@code created_at} is implied by the one on {@code updated_at} but
+     * lets the planner skip newer partitions. Rows locked by writers are left for the next run.
+     * Returns the ids moved.
+     */
+    public List<Long> archiveCompleted(LocalDateTime cutoff, int batchSize) {
+        // The ids are collected into an array first so the delete probes the primary key of each partition;
+        // as an IN subquery it is planned as a hash join over every row of the table
+        String sql = "WITH moved AS (" +
+                "DELETE FROM todos WHERE created_at < ? AND id = ANY(ARRAY(" +
+                "SELECT id FROM todos WHERE completed AND created_at < ? AND updated_at < ? " +
+                "ORDER BY created_at LIMIT ? FOR UPDATE SKIP LOCKED)) " +
+                "RETURNING " + COLUMNS + ") " +
+                "INSERT INTO todos_archive (" + COLUMNS + ") SELECT " + COLUMNS + " FROM moved RETURNING id";
+        Timestamp bound = Timestamp.valueOf(cutoff);
+        return jdbcTemplate.queryForList(sql, Long.class, bound, bound, bound, batchSize);
+    }
+
+    public List<Todo> findPage(int limit, int offset) {
+        return jdbcTemplate.query(FIND_PAGE_SQL, todoRowMapper, limit, offset);
+    }
+
+    public List<Todo> findPageAfter(TodoCursor cursor, int limit) {
+        if (cursor == null) {
+            return jdbcTemplate.query(FIND_FIRST_SQL, todoRowMapper, limit);
+        }
+        return jdbcTemplate.query(FIND_AFTER_SQL, todoRowMapper,
+                Timestamp.valueOf(cursor.getCreatedAt()), cursor.getId(), limit);
+    }
+}
@@ -0,0 +1,102 @@
+package com.emobile.springtodo.repository;
+
+import com.emobile.springtodo.model.Todo;
+import com.emobile.springtodo.model.TodoEvent;
+import com.emobile.springtodo.model.TodoEventPosition;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Reads the {@code todo_events} change log filled by triggers on {@code todos}. Transaction ids are
+ * {@code xid8} values, exchanged as text because JDBC has no unsigned 64-bit type.
+ */
+@Repository
+@Timed(value = "todo.repository", description = "Time spent in repository calls", histogram = true)
+public class TodoEventRepository {
+
+    private static final String COLUMNS =
+            "event_id, txid::text AS txid, type, id, title, description, completed, created_at, updated_at";
+
+    // Events of transactions that may still be running, or committed after an older one still running, are
+    // left for a later read; the position only moves past transactions that can no longer add events before it
+    static final String FIND_COMMITTED_AFTER_SQL = "SELECT " + COLUMNS + " FROM todo_events " +
+            "WHERE (txid, event_id) > (CAST(? AS xid8), ?) AND txid < pg_snapshot_xmin(pg_current_snapshot()) " +
+            "ORDER BY txid, event_id LIMIT ?";
+    static final String FIND_BETWEEN_SQL = "SELECT " + COLUMNS + " FROM todo_events " +
+            "WHERE (txid, event_id) > (CAST(? AS xid8), ?) AND (txid, event_id) <= (CAST(? AS xid8), ?) " +
+            "ORDER BY txid, event_id LIMIT ?";
+
+    private static final RowMapper<TodoEvent> EVENT_ROW_MAPPER = (rs, rowNum) -> {
+        TodoEvent.Type type = TodoEvent.Type.fromCode(rs.getString("type"));
+        long transactionId = Long.parseUnsignedLong(rs.getString("txid"));
+        if (type == TodoEvent.Type.RESET) {
+            return new TodoEvent(rs.getLong("event_id"), transactionId, type, null);
+        }
+        Timestamp createdAt = rs.getTimestamp("created_at");
+        Timestamp updatedAt = rs.getTimestamp("updated_at");
+        Todo todo = new Todo(rs.getLong("id"), rs.getString("title"), rs.getString("description"),
+                rs.getBoolean("completed"),
+                createdAt == null ? null : createdAt.toLocalDateTime(),
+                updatedAt == null ? null : updatedAt.toLocalDateTime());
+        return new TodoEvent(rs.getLong("event_id"), transactionId, type, todo);
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public TodoEventRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * The position before the first event no reader has been able to see yet.
+     */
+    public TodoEventPosition currentHorizon() {
+        String xmin = jdbcTemplate.queryForObject("SELECT pg_snapshot_xmin(pg_current_snapshot())::text", String.class);
+        return new TodoEventPosition(Long.parseUnsignedLong(xmin), 0);
+    }
+
+    public List<TodoEvent> findCommittedAfter(TodoEventPosition position, int limit) {
+        return jdbcTemplate.query(FIND_COMMITTED_AFTER_SQL, EVENT_ROW_MAPPER,
+                Long.toUnsignedString(position.getTransactionId()), position.getEventId(), limit);
+    }
+
+    /**
+     * Events after {@code from} up to and including {@code to}, which must have been read with
+     * {@link #findCommittedAfter} before.
+     */
+    public List<TodoEvent> findBetween(TodoEventPosition from, TodoEventPosition to, int limit) {
+        return jdbcTemplate.query(FIND_BETWEEN_SQL, EVENT_ROW_MAPPER,
+                Long.toUnsignedString(from.getTransactionId()), from.getEventId(),
+                Long.toUnsignedString(to.getTransactionId()), to.getEventId(), limit);
+    }
+
+    /**
+     * Counts the events after {@code position}, up to {@code limit}.
+     */
+    public int countAfter(TodoEventPosition position, int limit) {
+        Integer count = jdbcTemplate.queryForObject("SELECT count(*) FROM (SELECT 1 FROM todo_events " +
+                        "WHERE (txid, event_id) > (CAST(? AS xid8), ?) LIMIT ?) after_position", Integer.class,
+                Long.toUnsignedString(position.getTransactionId()), position.getEventId(), limit);
+        return count == null ? 0 : count;
+    }
+
+    public Optional<TodoEventPosition> findPosition(long eventId) {
+        return jdbcTemplate.queryForList("SELECT txid::text FROM todo_events WHERE event_id = ?", String.class, eventId)
+                .stream()
+                .findFirst()
+                .map(txid -> new TodoEventPosition(Long.parseUnsignedLong(txid), eventId));
+    }
+
+    public int deleteOlderThan(LocalDateTime cutoff) {
+        return jdbcTemplate.update("DELETE FROM todo_events WHERE occurred_at < ?", Timestamp.valueOf(cutoff));
+    }
+}
@@ -1,35 +1,93 @@
 package com.emobile.springtodo.repository;
 
 import com.emobile.springtodo.model.Todo;
+import com.emobile.springtodo.model.TodoCursor;
+import com.emobile.springtodo.model.TodoPage;
+import com.emobile.springtodo.model.TodoSearchCursor;
+import com.emobile.springtodo.model.TodoSearchPage;
+import com.emobile.springtodo.model.TodoStats;
+import io.micrometer.core.annotation.Timed;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Repository;
 
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
 import java.sql.Timestamp;
+import java.sql.Types;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 @Repository
+@Timed(value = "todo.repository", description = "Time spent in repository calls", histogram = true)
 public class TodoRepository {
 
+    static final int INSERT_BATCH_SIZE = 500;
+    private static final int STREAM_FETCH_SIZE = 1000;
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    // Explicit list: the generated search_vector column is never needed by the application
+    static final String COLUMNS = "id, title, description, completed, created_at, updated_at";
+
+    // Statements shared with ReactiveTodoRepository, so both serving modes run, and are planned, the same.
+    // By-id statements look the partition key up in todo_keys, binding the id twice, so only one partition is
+    // read instead of the primary key index of every partition.
+    static final String BY_ID = "id = ? AND created_at = (SELECT created_at FROM todo_keys WHERE id = ?)";
+    static final String FIND_BY_ID_SQL = "SELECT " + COLUMNS + " FROM todos WHERE " + BY_ID;
+    static final String FIND_PAGE_SQL =
+            "SELECT " + COLUMNS + " FROM todos ORDER BY created_at DESC, id DESC LIMIT ? OFFSET ?";
+    static final String FIND_FIRST_SQL = "SELECT " + COLUMNS + " FROM todos ORDER BY created_at DESC, id DESC LIMIT ?";
+    // The row comparison does not prune partitions, so cursor queries repeat its bound on created_at alone
+    static final String FIND_AFTER_SQL = "SELECT " + COLUMNS + " FROM todos WHERE created_at <= ? " +
+            "AND (created_at, id) < (?, ?) ORDER BY created_at DESC, id DESC LIMIT ?";
+    static final String FIND_PAGE_BY_COMPLETED_SQL = "SELECT " + COLUMNS + " FROM todos WHERE completed = ? " +
+            "ORDER BY created_at DESC, id DESC LIMIT ? OFFSET ?";
+    static final String FIND_FIRST_BY_COMPLETED_SQL = "SELECT " + COLUMNS + " FROM todos WHERE completed = ? " +
+            "ORDER BY created_at DESC, id DESC LIMIT ?";
+    static final String FIND_BY_COMPLETED_AFTER_SQL = "SELECT " + COLUMNS + " FROM todos WHERE completed = ? " +
+            "AND created_at <= ? AND (created_at, id) < (?, ?) ORDER BY created_at DESC, id DESC LIMIT ?";
+    // Null arguments keep the current value, so a partial update needs no read first
+    static final String PATCH_SQL = "UPDATE todos SET title = COALESCE(?, title), description = COALESCE(?, description), " +
+            "completed = COALESCE(?, completed), updated_at = ? WHERE " + BY_ID + " RETURNING " + COLUMNS;
+    static final String UPDATE_SQL = "UPDATE todos SET title = ?, description = ?, completed = ?, updated_at = ? " +
+            "WHERE " + BY_ID + " RETURNING " + COLUMNS;
+    static final String DELETE_BY_ID_SQL = "DELETE FROM todos WHERE " + BY_ID;
+    // A subquery array is not used for pruning, so bulk statements by id first read the partition keys of the
+    // ids and bind them as a constant
+    static final String FIND_CREATED_AT_BY_IDS_SQL = "SELECT DISTINCT created_at FROM todo_keys WHERE id = ANY(?)";
+    // Bulk statements return the ids they touched, so only those cache entries have to go
+    static final String UPDATE_COMPLETED_BY_IDS_SQL = "UPDATE todos SET completed = ?, updated_at = ? " +
+            "WHERE id = ANY(?) AND created_at = ANY(?) AND completed <> ? RETURNING id";
+    static final String UPDATE_COMPLETED_BY_COMPLETED_SQL =
+            "UPDATE todos SET completed = ?, updated_at = ? WHERE completed = ? AND completed <> ? RETURNING id";
+    static final String DELETE_BY_IDS_SQL = "DELETE FROM todos WHERE id = ANY(?) AND created_at = ANY(?) RETURNING id";
+    static final String DELETE_BY_COMPLETED_SQL = "DELETE FROM todos WHERE completed = ? RETURNING id";
+    static final String NEXT_IDS_SQL = "SELECT nextval('todos_id_seq') FROM generate_series(1, ?)";
+
+    private static final RowMapper<Long> ID_ROW_MAPPER = (rs, rowNum) -> rs.getLong(1);
+
     private final JdbcTemplate jdbcTemplate;
+    private final JdbcTemplate streamingJdbcTemplate;
 
-    private final RowMapper<Todo> todoRowMapper = (rs, rowNum) -> {
-        Todo todo = new Todo();
-        todo.setId(rs.getLong("id"));
-        todo.setTitle(rs.getString("title"));
-        todo.setDescription(rs.getString("description"));
-        todo.setCompleted(rs.getBoolean("completed"));
-        todo.setCreatedAt(rs.getTimestamp("created_at").toLocalDateTime());
-        todo.setUpdatedAt(rs.getTimestamp("updated_at").toLocalDateTime());
-        return todo;
-    };
+    private final RowMapper<Todo> todoRowMapper = TodoRowMapper.INSTANCE;
 
     @Autowired
     public TodoRepository(JdbcTemplate jdbcTemplate) {
         this.jdbcTemplate = jdbcTemplate;
+        this.streamingJdbcTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+        this.streamingJdbcTemplate.setFetchSize(STREAM_FETCH_SIZE);
     }
 
     public Todo save(Todo todo) {
@@ -41,9 +99,7 @@ public class TodoRepository {
     }
 
     private Todo insert(Todo todo) {
-        String sql = "INSERT INTO todos (title, description, completed, created_at, updated_at) VALUES (?, ?, ?, ?, ?) RETURNING *";
-
-        return jdbcTemplate.queryForObject(sql, todoRowMapper,
+        return jdbcTemplate.queryForObject(insertSql(1), todoRowMapper,
                 todo.getTitle(),
                 todo.getDescription(),
                 todo.getCompleted() != null && todo.getCompleted(),
@@ -52,56 +108,281 @@ public class TodoRepository {
         );
     }
 
-    private Todo update(Todo todo) {
-        String sql = "UPDATE todos SET title = ?, description = ?, completed = ?, updated_at = ? WHERE id = ? RETURNING *";
+    public List<Todo> insertAll(List<Todo> todos) {
+        List<Todo> inserted = new ArrayList<>(todos.size());
+        for (int from = 0; from < todos.size(); from += INSERT_BATCH_SIZE) {
+            List<Todo> chunk = todos.subList(from, Math.min(from + INSERT_BATCH_SIZE, todos.size()));
+            inserted.addAll(insertChunk(chunk));
+        }
+        return inserted;
+    }
 
-        return jdbcTemplate.queryForObject(sql, todoRowMapper,
+    // RETURNING does not promise to return rows in VALUES order, so ids are drawn first and rows matched on them
+    private List<Todo> insertChunk(List<Todo> todos) {
+        List<Long> ids = jdbcTemplate.queryForList(NEXT_IDS_SQL, Long.class, todos.size());
+        String sql = insertWithIdsSql(todos.size());
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object> args = new ArrayList<>(todos.size() * 6);
+        for (int i = 0; i < todos.size(); i++) {
+            Todo todo = todos.get(i);
+            args.add(ids.get(i));
+            args.add(todo.getTitle());
+            args.add(todo.getDescription());
+            args.add(todo.getCompleted() != null && todo.getCompleted());
+            args.add(now);
+            args.add(now);
+        }
+
+        return inIdOrder(ids, jdbcTemplate.query(sql, todoRowMapper, args.toArray()));
+    }
+
+    private Todo update(Todo todo) {
+        return jdbcTemplate.queryForObject(UPDATE_SQL, todoRowMapper,
                 todo.getTitle(),
                 todo.getDescription(),
                 todo.getCompleted(),
                 Timestamp.valueOf(LocalDateTime.now()),
+                todo.getId(),
                 todo.getId()
         );
     }
 
     public Optional<Todo> findById(Long id) {
-        String sql = "SELECT * FROM todos WHERE id = ?";
         try {
-            Todo todo = jdbcTemplate.queryForObject(sql, todoRowMapper, id);
+            Todo todo = jdbcTemplate.queryForObject(FIND_BY_ID_SQL, todoRowMapper, id, id);
             return Optional.ofNullable(todo);
         } catch (org.springframework.dao.EmptyResultDataAccessException e) {
             return Optional.empty();
         }
     }
 
-    public List<Todo> findAll(int limit, int offset) {
-        String sql = "SELECT * FROM todos ORDER BY created_at DESC LIMIT ? OFFSET ?";
-        return jdbcTemplate.query(sql, todoRowMapper, limit, offset);
+    public TodoPage findPage(int limit, int offset) {
+        return queryPage(FIND_PAGE_SQL, limit, offset);
+    }
+
+    public TodoPage findPageAfter(TodoCursor cursor, int limit) {
+        if (cursor == null) {
+            return queryPage(FIND_FIRST_SQL, limit);
+        }
+        Timestamp createdAt = Timestamp.valueOf(cursor.getCreatedAt());
+        return queryPage(FIND_AFTER_SQL, createdAt, createdAt, cursor.getId(), limit);
+    }
+
+    public TodoPage findPageByCompleted(boolean completed, int limit, int offset) {
+        return queryPage(FIND_PAGE_BY_COMPLETED_SQL, completed, limit, offset);
+    }
+
+    public TodoPage findPageByCompletedAfter(boolean completed, TodoCursor cursor, int limit) {
+        if (cursor == null) {
+            return queryPage(FIND_FIRST_BY_COMPLETED_SQL, completed, limit);
+        }
+        Timestamp createdAt = Timestamp.valueOf(cursor.getCreatedAt());
+        return queryPage(FIND_BY_COMPLETED_AFTER_SQL, completed, createdAt, createdAt, cursor.getId(), limit);
+    }
+
+    /**
+     * Ranked full-text search over title and description. Fetches one row more than asked for to tell
+     * whether another page follows.
+     */
+    public TodoSearchPage search(String query, Boolean completed, TodoSearchCursor cursor, int limit) {
+        List<Object> args = new ArrayList<>();
+        args.add(query);
+        if (completed != null) {
+            args.add(completed);
+        }
+        if (cursor != null) {
+            args.add(cursor.getRank());
+            args.add(cursor.getId());
+        }
+        args.add(limit + 1);
+
+        List<Float> ranks = new ArrayList<>();
+        List<Todo> todos = jdbcTemplate.query(searchSql(completed != null, cursor != null), (rs, rowNum) -> {
+            ranks.add(rs.getFloat("rank"));
+            return todoRowMapper.mapRow(rs, rowNum);
+        }, args.toArray());
+
+        if (todos.size() <= limit) {
+            return new TodoSearchPage(todos, null);
+        }
+        Todo last = todos.get(limit - 1);
+        String nextCursor = new TodoSearchCursor(ranks.get(limit - 1), last.getId()).encode();
+        return new TodoSearchPage(new ArrayList<>(todos.subList(0, limit)), nextCursor);
+    }
+
+    private TodoPage queryPage(String rowsSql, Object... args) {
+        return jdbcTemplate.query(pageSql(rowsSql), rs -> {
+            TodoStats stats = null;
+            List<Todo> todos = new ArrayList<>();
+            while (rs.next()) {
+                if (stats == null) {
+                    stats = TodoStatsRepository.mapStats(rs);
+                }
+                rs.getLong("id");
+                if (!rs.wasNull()) {
+                    todos.add(todoRowMapper.mapRow(rs, todos.size()));
+                }
+            }
+            return new TodoPage(todos, stats);
+        }, args);
+    }
+
+    /**
+     * Streams every todo in storage order. Must run inside a transaction: the PostgreSQL driver
+     * only uses a server-side cursor with the fetch size when auto-commit is off.
+     */
+    public void streamAll(Consumer<Todo> consumer) {
+        String sql = "SELECT " + COLUMNS + " FROM todos ORDER BY created_at, id";
+        streamingJdbcTemplate.query(sql, (RowCallbackHandler) rs -> consumer.accept(todoRowMapper.mapRow(rs, rs.getRow())));
+    }
+
+    /**
+     * Loads rows with COPY FROM STDIN, sending them to the server in fixed-size chunks as the iterator
+     * produces them. Returns the number of rows copied.
+     */
+    public long copyIn(Iterator<Todo> todos) {
+        String sql = "COPY todos (title, description, completed, created_at, updated_at) FROM STDIN WITH (FORMAT csv)";
+
+        return jdbcTemplate.execute((ConnectionCallback<Long>) connection -> {
+            CopyIn copyIn = connection.unwrap(PGConnection.class).getCopyAPI().copyIn(sql);
+            try {
+                String now = Timestamp.valueOf(LocalDateTime.now()).toString();
+                StringBuilder buffer = new StringBuilder(COPY_BUFFER_SIZE + 4096);
+                while (todos.hasNext()) {
+                    Todo todo = todos.next();
+                    appendCopyField(buffer, todo.getTitle()).append(',');
+                    appendCopyField(buffer, todo.getDescription()).append(',');
+                    buffer.append(todo.getCompleted() != null && todo.getCompleted()).append(',');
+                    buffer.append(now).append(',').append(now).append('\n');
+                    if (buffer.length() >= COPY_BUFFER_SIZE) {
+                        writeToCopy(copyIn, buffer);
+                    }
+                }
+                writeToCopy(copyIn, buffer);
+                return copyIn.endCopy();
+            } finally {
+                if (copyIn.isActive()) {
+                    copyIn.cancelCopy();
+                }
+            }
+        });
+    }
+
+    // In CSV mode an unquoted empty field is NULL, a quoted one is an empty string
+    private static StringBuilder appendCopyField(StringBuilder buffer, String value) {
+        if (value == null) {
+            return buffer;
+        }
+        return buffer.append('"').append(value.replace("\"", "\"\"")).append('"');
+    }
+
+    private static void writeToCopy(CopyIn copyIn, StringBuilder buffer) throws SQLException {
+        byte[] bytes = buffer.toString().getBytes(StandardCharsets.UTF_8);
+        copyIn.writeToCopy(bytes, 0, bytes.length);
+        buffer.setLength(0);
+    }
+
+    public Optional<Todo> patch(Long id, String title, String description, Boolean completed) {
+        List<Todo> todos = jdbcTemplate.query(PATCH_SQL, ps -> {
+            ps.setString(1, title);
+            ps.setString(2, description);
+            ps.setObject(3, completed, Types.BOOLEAN);
+            ps.setTimestamp(4, Timestamp.valueOf(LocalDateTime.now()));
+            ps.setLong(5, id);
+            ps.setLong(6, id);
+        }, todoRowMapper);
+        return todos.stream().findFirst();
+    }
+
+    public boolean deleteById(Long id) {
+        return jdbcTemplate.update(DELETE_BY_ID_SQL, id, id) > 0;
+    }
+
+    public List<Long> updateCompletedByIds(List<Long> ids, boolean completed) {
+        Timestamp[] createdAts = findCreatedAts(ids);
+        if (createdAts.length == 0) {
+            return List.of();
+        }
+        return jdbcTemplate.query(UPDATE_COMPLETED_BY_IDS_SQL, ps -> {
+            ps.setBoolean(1, completed);
+            ps.setTimestamp(2, Timestamp.valueOf(LocalDateTime.now()));
+            ps.setArray(3, ps.getConnection().createArrayOf("bigint", ids.toArray()));
+            ps.setArray(4, ps.getConnection().createArrayOf("timestamp", createdAts));
+            ps.setBoolean(5, completed);
+        }, ID_ROW_MAPPER);
+    }
+
+    public List<Long> updateCompletedByCompleted(boolean currentCompleted, boolean completed) {
+        return jdbcTemplate.queryForList(UPDATE_COMPLETED_BY_COMPLETED_SQL, Long.class,
+                completed, Timestamp.valueOf(LocalDateTime.now()), currentCompleted, completed);
+    }
+
+    public List<Long> deleteByIds(List<Long> ids) {
+        Timestamp[] createdAts = findCreatedAts(ids);
+        if (createdAts.length == 0) {
+            return List.of();
+        }
+        return jdbcTemplate.query(DELETE_BY_IDS_SQL, ps -> {
+            ps.setArray(1, ps.getConnection().createArrayOf("bigint", ids.toArray()));
+            ps.setArray(2, ps.getConnection().createArrayOf("timestamp", createdAts));
+        }, ID_ROW_MAPPER);
     }
 
-    public List<Todo> findByCompleted(boolean completed, int limit, int offset) {
-        String sql = "SELECT * FROM todos WHERE completed = ? ORDER BY created_at DESC LIMIT ? OFFSET ?";
-        return jdbcTemplate.query(sql, todoRowMapper, completed, limit, offset);
+    private Timestamp[] findCreatedAts(List<Long> ids) {
+        return jdbcTemplate.query(FIND_CREATED_AT_BY_IDS_SQL,
+                        ps -> ps.setArray(1, ps.getConnection().createArrayOf("bigint", ids.toArray())),
+                        (rs, rowNum) -> rs.getTimestamp(1))
+                .toArray(Timestamp[]::new);
     }
 
-    public void deleteById(Long id) {
-        String sql = "DELETE FROM todos WHERE id = ?";
-        jdbcTemplate.update(sql, id);
+    public List<Long> deleteByCompleted(boolean completed) {
+        return jdbcTemplate.queryForList(DELETE_BY_COMPLETED_SQL, Long.class, completed);
     }
 
-    public long count() {
-        String sql = "SELECT COUNT(*) FROM todos";
-        return jdbcTemplate.queryForObject(sql, Long.class);
+    static String insertSql(int rows) {
+        return "INSERT INTO todos (title, description, completed, created_at, updated_at) VALUES " +
+                String.join(", ", Collections.nCopies(rows, "(?, ?, ?, ?, ?)")) + " RETURNING " + COLUMNS;
     }
 
-    public long countByCompleted(boolean completed) {
-        String sql = "SELECT COUNT(*) FROM todos WHERE completed = ?";
-        return jdbcTemplate.queryForObject(sql, Long.class, completed);
+    static String insertWithIdsSql(int rows) {
+        return "INSERT INTO todos (id, title, description, completed, created_at, updated_at) VALUES " +
+                String.join(", ", Collections.nCopies(rows, "(?, ?, ?, ?, ?, ?)")) + " RETURNING " + COLUMNS;
     }
 
-    public boolean existsById(Long id) {
-        String sql = "SELECT COUNT(*) FROM todos WHERE id = ?";
-        Long count = jdbcTemplate.queryForObject(sql, Long.class, id);
-        return count > 0;
+    static List<Todo> inIdOrder(List<Long> ids, List<Todo> inserted) {
+        Map<Long, Todo> byId = new HashMap<>(inserted.size() * 2);
+        inserted.forEach(todo -> byId.put(todo.getId(), todo));
+        List<Todo> ordered = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Todo todo = byId.get(id);
+            if (todo == null) {
+                throw new IllegalStateException("Inserted row missing for id " + id);
+            }
+            ordered.add(todo);
+        }
+        return ordered;
+    }
+
+    // Rows and counters come back in one statement: the counter row is always present,
+    // and the page is lateral-joined to it, so an empty page still yields the totals.
+    static String pageSql(String rowsSql) {
+        return "SELECT s.*, t.* FROM (" + TodoStatsRepository.STATS_SQL + ") s " +
+                "LEFT JOIN LATERAL (" + rowsSql + ") t ON true " +
+                "ORDER BY t.created_at DESC, t.id DESC";
+    }
+
+    // Binds the query, then the completed filter and the cursor's rank and id when present, then the limit
+    static String searchSql(boolean byCompleted, boolean afterCursor) {
+        StringBuilder sql = new StringBuilder("SELECT ").append(COLUMNS)
+                .append(", ts_rank_cd(search_vector, q) AS rank ")
+                .append("FROM todos, websearch_to_tsquery('simple', ?) q WHERE search_vector @@ q");
+        if (byCompleted) {
+            sql.append(" AND completed = ?");
+        }
+        if (afterCursor) {
+            sql.append(" AND (ts_rank_cd(search_vector, q), id) < (?, ?)");
+        }
+        return sql.append(" ORDER BY rank DESC, id DESC LIMIT ?").toString();
     }
 }
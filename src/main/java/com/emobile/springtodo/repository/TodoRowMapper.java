@@ -0,0 +1,24 @@
+package com.emobile.springtodo.repository;
+
+import com.emobile.springtodo.model.Todo;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+public class TodoRowMapper implements RowMapper<Todo> {
+
+    public static final TodoRowMapper INSTANCE = new TodoRowMapper();
+
+    @Override
+    public Todo mapRow(ResultSet rs, int rowNum) throws SQLException {
+        Todo todo = new Todo();
+        todo.setId(rs.getLong("id"));
+        todo.setTitle(rs.getString("title"));
+        todo.setDescription(rs.getString("description"));
+        todo.setCompleted(rs.getBoolean("completed"));
+        todo.setCreatedAt(rs.getTimestamp("created_at").toLocalDateTime());
+        todo.setUpdatedAt(rs.getTimestamp("updated_at").toLocalDateTime());
+        return todo;
+    }
+}
@@ -0,0 +1,37 @@
+package com.emobile.springtodo.repository;
+
+import com.emobile.springtodo.model.TodoStats;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Reads the counters kept up to date by the triggers on {@code todos}, so totals never need a {@code COUNT(*)} scan.
+ */
+@Repository
+@Timed(value = "todo.repository", description = "Time spent in repository calls", histogram = true)
+public class TodoStatsRepository {
+
+    // SUM of bigint is numeric; cast back so both drivers read plain longs
+    static final String STATS_SQL = "SELECT COALESCE(SUM(total), 0)::bigint AS stats_total, " +
+            "COALESCE(SUM(completed), 0)::bigint AS stats_completed FROM todo_counters";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public TodoStatsRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public TodoStats load() {
+        return jdbcTemplate.queryForObject(STATS_SQL, (rs, rowNum) -> mapStats(rs));
+    }
+
+    static TodoStats mapStats(ResultSet rs) throws SQLException {
+        return new TodoStats(rs.getLong("stats_total"), rs.getLong("stats_completed"));
+    }
+}
@@ -0,0 +1,141 @@
+package com.emobile.springtodo.service;
+
+import com.emobile.springtodo.dto.request.ImportTodoRequest;
+import com.emobile.springtodo.exception.InvalidRequestException;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * RFC 4180 records with a header row. Columns are matched by name, so the output of the CSV export
+ * can be imported as is; columns other than title, description and completed are ignored.
+ */
+class CsvTodoRecordReader extends TodoRecordReader {
+
+    private final int titleIndex;
+    private final int descriptionIndex;
+    private final int completedIndex;
+
+    CsvTodoRecordReader(Reader reader) throws IOException {
+        super(reader);
+        List<String> header = readRecord();
+        if (header == null) {
+            throw new InvalidRequestException("CSV input is empty");
+        }
+        List<String> columns = header.stream()
+                .map(column -> column.trim().toLowerCase(Locale.ROOT))
+                .toList();
+        this.titleIndex = columns.indexOf("title");
+        this.descriptionIndex = columns.indexOf("description");
+        this.completedIndex = columns.indexOf("completed");
+        if (titleIndex < 0) {
+            throw new InvalidRequestException("CSV header must contain a title column");
+        }
+    }
+
+    @Override
+    ImportTodoRequest next() throws IOException {
+        List<String> fields;
+        do {
+            fields = readRecord();
+            if (fields == null) {
+                return null;
+            }
+        } while (fields.size() == 1 && fields.get(0).isEmpty());
+
+        ImportTodoRequest request = new ImportTodoRequest();
+        request.setTitle(field(fields, titleIndex));
+        request.setDescription(field(fields, descriptionIndex));
+        request.setCompleted(parseCompleted(field(fields, completedIndex)));
+        return request;
+    }
+
+    private static String field(List<String> fields, int index) {
+        if (index < 0 || index >= fields.size() || fields.get(index).isEmpty()) {
+            return null;
+        }
+        return fields.get(index);
+    }
+
+    private static Boolean parseCompleted(String value) {
+        if (value == null) {
+            return null;
+        }
+        return switch (value.trim().toLowerCase(Locale.ROOT)) {
+            case "true" -> true;
+            case "false" -> false;
+            default -> throw new IllegalArgumentException("completed must be true or false, got: " + value);
+        };
+    }
+
+    // Once a record is too long, the rest of it is still scanned with the same quoting rules but not kept,
+    // so a line break inside a quoted field does not start a new record
+    private List<String> readRecord() throws IOException {
+        startRecord();
+        int c = read();
+        if (c == -1) {
+            return null;
+        }
+
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean fieldStart = true;
+        boolean tooLong = false;
+        int length = 0;
+        while (true) {
+            if (c == -1) {
+                if (quoted) {
+                    throw new IllegalArgumentException("Unterminated quoted field");
+                }
+                return endRecord(fields, field, tooLong);
+            }
+            if (++length > MAX_RECORD_LENGTH) {
+                tooLong = true;
+            }
+
+            if (quoted) {
+                if (c == '"') {
+                    c = read();
+                    if (c != '"') {
+                        quoted = false;
+                        continue;
+                    }
+                }
+                append(field, c, tooLong);
+            } else if (c == '"' && fieldStart) {
+                quoted = true;
+                fieldStart = false;
+            } else if (c == ',') {
+                if (!tooLong) {
+                    fields.add(field.toString());
+                }
+                field.setLength(0);
+                fieldStart = true;
+            } else if (c == '\n') {
+                return endRecord(fields, field, tooLong);
+            } else if (c != '\r') {
+                append(field, c, tooLong);
+                fieldStart = false;
+            }
+            c = read();
+        }
+    }
+
+    private static void append(StringBuilder field, int c, boolean tooLong) {
+        if (!tooLong) {
+            field.append((char) c);
+        }
+    }
+
+    private static List<String> endRecord(List<String> fields, StringBuilder field, boolean tooLong) {
+        if (tooLong) {
+            throw recordTooLong();
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+}
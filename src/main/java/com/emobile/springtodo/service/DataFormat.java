@@ -0,0 +1,42 @@
+package com.emobile.springtodo.service;
+
+import com.emobile.springtodo.exception.InvalidRequestException;
+import org.springframework.http.MediaType;
+
+import java.util.Locale;
+
+public enum DataFormat {
+
+    NDJSON(MediaType.parseMediaType("application/x-ndjson"), "ndjson"),
+    CSV(MediaType.parseMediaType("text/csv"), "csv");
+
+    private final MediaType mediaType;
+    private final String extension;
+
+    DataFormat(MediaType mediaType, String extension) {
+        this.mediaType = mediaType;
+        this.extension = extension;
+    }
+
+    public static DataFormat from(String value) {
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidRequestException("Unsupported format: " + value + ", expected ndjson or csv");
+        }
+    }
+
+    public static DataFormat from(MediaType mediaType) {
+        for (DataFormat format : values()) {
+            if (format.mediaType.isCompatibleWith(mediaType)) {
+                return format;
+            }
+        }
+        throw new InvalidRequestException("Unsupported media type: " + mediaType + ", expected "
+                + NDJSON.mediaType + " or " + CSV.mediaType);
+    }
+
+    public MediaType getMediaType() { return mediaType; }
+
+    public String getExtension() { return extension; }
+}
@@ -0,0 +1,213 @@
+package com.emobile.springtodo.service;
+
+import com.emobile.springtodo.model.Todo;
+import com.emobile.springtodo.repository.TodoRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Coalesces concurrent single-row creates into one multi-row insert and one commit. A batch is flushed
+ * when it reaches the maximum size or when its oldest row has waited for the maximum window, whichever
+ * comes first. Each caller blocks until its own row has been committed and gets that row back.
+ * <p>
+ * If a batch is known to have been rolled back, its rows are retried one by one so that a single bad row only
+ * fails its own caller. If the commit failed in a way that leaves its outcome unknown, such as a lost connection,
+ * the rows may already be in the table, so every caller of the batch gets the error instead.
+ */
+@Component
+@ConditionalOnProperty(prefix = "todo.group-commit", name = "enabled", havingValue = "true")
+public class GroupCommitInserter {
+
+    private static final Logger logger = LoggerFactory.getLogger(GroupCommitInserter.class);
+
+    private final TodoRepository todoRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int maxBatchSize;
+    private final long maxWaitNanos;
+    private final BlockingQueue<PendingInsert> queue;
+
+    private final DistributionSummary batchSize;
+    private final Timer queueWait;
+    private final Timer flushTime;
+
+    private volatile boolean running;
+    private Thread flusher;
+
+    @Autowired
+    public GroupCommitInserter(TodoRepository todoRepository, PlatformTransactionManager transactionManager,
+                               MeterRegistry meterRegistry,
+                               @Value("${todo.group-commit.max-batch-size:100}") int maxBatchSize,
+                               @Value("${todo.group-commit.max-wait:5ms}") Duration maxWait,
+                               @Value("${todo.group-commit.queue-capacity:10000}") int queueCapacity) {
+        this.todoRepository = todoRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.maxBatchSize = maxBatchSize;
+        this.maxWaitNanos = maxWait.toNanos();
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+
+        this.batchSize = DistributionSummary.builder("todo.group.commit.batch.size")
+                .description("Rows per group-commit insert")
+                .register(meterRegistry);
+        this.queueWait = Timer.builder("todo.group.commit.wait")
+                .description("Time a create waits for its batch to be flushed")
+                .register(meterRegistry);
+        this.flushTime = Timer.builder("todo.group.commit.flush")
+                .description("Time to insert and commit one batch")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        flusher = Thread.ofPlatform().name("todo-group-commit").daemon().start(this::run);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        flusher.join(TimeUnit.SECONDS.toMillis(10));
+    }
+
+    public Todo insert(Todo todo) {
+        if (!running) {
+            return todoRepository.save(todo);
+        }
+
+        PendingInsert pending = new PendingInsert(todo, new CompletableFuture<>(), System.nanoTime());
+        try {
+            queue.put(pending);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while queueing insert", e);
+        }
+        if (!running) {
+            // Stopped while queueing: the flusher may already be gone, so hand over whatever is left directly
+            insertRemaining();
+        }
+
+        try {
+            return pending.result().join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private void run() {
+        List<PendingInsert> batch = new ArrayList<>(maxBatchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingInsert first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = first.enqueuedAt() + maxWaitNanos;
+                while (batch.size() < maxBatchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    PendingInsert next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            }
+
+            if (!batch.isEmpty()) {
+                flush(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void insertRemaining() {
+        PendingInsert pending;
+        while ((pending = queue.poll()) != null) {
+            try {
+                pending.result().complete(todoRepository.save(pending.todo()));
+            } catch (RuntimeException e) {
+                pending.result().completeExceptionally(e);
+            }
+        }
+    }
+
+    private void flush(List<PendingInsert> batch) {
+        long start = System.nanoTime();
+        for (PendingInsert pending : batch) {
+            queueWait.record(start - pending.enqueuedAt(), TimeUnit.NANOSECONDS);
+        }
+        batchSize.record(batch.size());
+
+        AtomicBoolean committing = new AtomicBoolean();
+        try {
+            List<Todo> todos = batch.stream().map(PendingInsert::todo).toList();
+            // insertAll returns the rows in request order, matched on the ids drawn for them
+            List<Todo> saved = transactionTemplate.execute(status -> {
+                List<Todo> inserted = todoRepository.insertAll(todos);
+                committing.set(true);
+                return inserted;
+            });
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).result().complete(saved.get(i));
+            }
+        } catch (RuntimeException e) {
+            if (committing.get() && !rolledBack(e)) {
+                logger.error("Commit of a group insert of {} rows failed with unknown outcome, not retrying: {}",
+                        batch.size(), e.getMessage());
+                batch.forEach(pending -> pending.result().completeExceptionally(e));
+                return;
+            }
+            logger.warn("Group insert of {} rows failed, retrying rows one by one: {}", batch.size(), e.getMessage());
+            for (PendingInsert pending : batch) {
+                try {
+                    pending.result().complete(todoRepository.save(pending.todo()));
+                } catch (RuntimeException rowFailure) {
+                    pending.result().completeExceptionally(rowFailure);
+                }
+            }
+        } finally {
+            flushTime.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    // Integrity violations and serialization failures are reported by the server for a transaction it rolled back
+    private static boolean rolledBack(Throwable failure) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException sqlException && sqlException.getSQLState() != null) {
+                String sqlStateClass = sqlException.getSQLState().substring(0, 2);
+                return sqlStateClass.equals("23") || sqlStateClass.equals("40");
+            }
+        }
+        return false;
+    }
+
+    private record PendingInsert(Todo todo, CompletableFuture<Todo> result, long enqueuedAt) {
+    }
+}
@@ -0,0 +1,60 @@
+package com.emobile.springtodo.service;
+
+import com.emobile.springtodo.dto.request.ImportTodoRequest;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.Reader;
+
+class NdjsonTodoRecordReader extends TodoRecordReader {
+
+    private final ObjectMapper objectMapper;
+    private final StringBuilder lineBuffer = new StringBuilder();
+
+    NdjsonTodoRecordReader(Reader reader, ObjectMapper objectMapper) {
+        super(reader);
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    ImportTodoRequest next() throws IOException {
+        String line;
+        do {
+            line = readLine();
+            if (line == null) {
+                return null;
+            }
+        } while (line.isBlank());
+
+        ImportTodoRequest request;
+        try {
+            request = objectMapper.readValue(line, ImportTodoRequest.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Malformed JSON: " + e.getOriginalMessage());
+        }
+        if (request == null) {
+            throw new IllegalArgumentException("Expected a JSON object");
+        }
+        return request;
+    }
+
+    private String readLine() throws IOException {
+        lineBuffer.setLength(0);
+        startRecord();
+        int c = read();
+        if (c == -1) {
+            return null;
+        }
+        while (c != -1 && c != '\n') {
+            if (lineBuffer.length() == MAX_RECORD_LENGTH) {
+                throw skipLineTooLong();
+            }
+            if (c != '\r') {
+                lineBuffer.append((char) c);
+            }
+            c = read();
+        }
+        return lineBuffer.toString();
+    }
+}
@@ -0,0 +1,201 @@
+package com.emobile.springtodo.service;
+
+import com.emobile.springtodo.cache.CacheGeneration;
+import com.emobile.springtodo.cache.ReactiveTodoCache;
+import com.emobile.springtodo.model.Todo;
+import com.emobile.springtodo.model.TodoCursor;
+import com.emobile.springtodo.model.TodoPage;
+import com.emobile.springtodo.model.TodoSearchCursor;
+import com.emobile.springtodo.model.TodoSearchPage;
+import com.emobile.springtodo.model.TodoStats;
+import com.emobile.springtodo.repository.ReactiveTodoRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.List;
+import java.util.function.Function;
+
+import static com.emobile.springtodo.cache.ReactiveTodoCache.PAGES;
+import static com.emobile.springtodo.cache.ReactiveTodoCache.TODOS;
+
+/**
+ * {@link TodoService} for the reactive mode. Cache keys, including the generation-keyed page keys,
+ * match the servlet service, so nodes of both modes can share one Redis.
+ */
+@Service
+@Profile("reactive")
+public class ReactiveTodoService {
+
+    private final ReactiveTodoRepository todoRepository;
+    private final ReactiveTodoCache cache;
+    private final CacheGeneration cacheGeneration;
+    private final TodoMetricsService metricsService;
+    private final TransactionalOperator transactionalOperator;
+
+    @Autowired
+    public ReactiveTodoService(ReactiveTodoRepository todoRepository, ReactiveTodoCache cache,
+                               CacheGeneration cacheGeneration, TodoMetricsService metricsService,
+                               TransactionalOperator transactionalOperator) {
+        this.todoRepository = todoRepository;
+        this.cache = cache;
+        this.cacheGeneration = cacheGeneration;
+        this.metricsService = metricsService;
+        this.transactionalOperator = transactionalOperator;
+    }
+
+    public Mono<Todo> create(Todo todo) {
+        return todoRepository.insert(todo)
+                .flatMap(savedTodo -> cache.put(TODOS, key(savedTodo.getId()), savedTodo)
+                        .then(bumpGeneration())
+                        .doOnSuccess(ignored -> metricsService.incrementCreatedCount())
+                        .thenReturn(savedTodo));
+    }
+
+    public Mono<List<Todo>> createAll(List<Todo> todos) {
+        return transactionalOperator.transactional(todoRepository.insertAll(todos).collectList())
+                .flatMap(savedTodos -> bumpGeneration()
+                        .doOnSuccess(ignored -> metricsService.incrementCreatedCount(savedTodos.size()))
+                        .thenReturn(savedTodos));
+    }
+
+    public Mono<Todo> findById(Long id) {
+        return cache.get(TODOS, key(id), Todo.class, todoRepository.findById(id));
+    }
+
+    public Mono<TodoPage> findAll(int page, int size) {
+        return cachedPage(generation -> "all:p" + page + ":s" + size + ":g" + generation, TodoPage.class,
+                todoRepository.findPage(size, page * size));
+    }
+
+    public Mono<TodoPage> findAllAfter(TodoCursor cursor, int limit) {
+        return cachedPage(generation -> "all:c" + cursor + ":s" + limit + ":g" + generation, TodoPage.class,
+                todoRepository.findPageAfter(cursor, limit));
+    }
+
+    public Mono<TodoPage> findByCompleted(boolean completed, int page, int size) {
+        return cachedPage(generation -> "completed_" + completed + ":p" + page + ":s" + size + ":g" + generation,
+                TodoPage.class, todoRepository.findPageByCompleted(completed, size, page * size));
+    }
+
+    public Mono<TodoPage> findByCompletedAfter(boolean completed, TodoCursor cursor, int limit) {
+        return cachedPage(generation -> "completed_" + completed + ":c" + cursor + ":s" + limit + ":g" + generation,
+                TodoPage.class, todoRepository.findPageByCompletedAfter(completed, cursor, limit));
+    }
+
+    public Mono<TodoSearchPage> search(String query, Boolean completed, TodoSearchCursor cursor, int limit) {
+        return cachedPage(generation -> "search:f" + completed + ":c" + cursor + ":s" + limit + ":g" + generation
+                        + ":q" + query,
+                TodoSearchPage.class, todoRepository.search(query, completed, cursor, limit));
+    }
+
+    public Mono<TodoStats> getStats() {
+        return cachedPage(generation -> "stats:g" + generation, TodoStats.class, todoRepository.loadStats());
+    }
+
+    public Mono<Todo> patch(Long id, String title, String description, Boolean completed) {
+        return todoRepository.patch(id, title, description, completed)
+                .flatMap(updatedTodo -> cache.put(TODOS, key(id), updatedTodo)
+                        .then(bumpGeneration())
+                        .doOnSuccess(ignored -> {
+                            if (Boolean.TRUE.equals(completed)) {
+                                metricsService.incrementCompletedCount();
+                            }
+                        })
+                        .thenReturn(updatedTodo));
+    }
+
+    public Mono<Boolean> deleteById(Long id) {
+        return todoRepository.deleteById(id)
+                .flatMap(deleted -> cache.evict(TODOS, key(id))
+                        .then(deleted ? bumpGeneration() : Mono.empty())
+                        .doOnSuccess(ignored -> {
+                            if (deleted) {
+                                metricsService.incrementDeletedCount();
+                            }
+                        })
+                        .thenReturn(deleted));
+    }
+
+    public Mono<Integer> updateCompletedByIds(List<Long> ids, boolean completed) {
+        return todoRepository.updateCompletedByIds(ids, completed).flatMap(updated -> afterBulkUpdate(updated, completed));
+    }
+
+    public Mono<Integer> updateCompletedByCompleted(boolean currentCompleted, boolean completed) {
+        return todoRepository.updateCompletedByCompleted(currentCompleted, completed)
+                .flatMap(updated -> afterBulkUpdate(updated, completed));
+    }
+
+    public Mono<Integer> deleteByIds(List<Long> ids) {
+        return todoRepository.deleteByIds(ids).flatMap(this::afterBulkDelete);
+    }
+
+    public Mono<Integer> deleteByCompleted(boolean completed) {
+        return todoRepository.deleteByCompleted(completed).flatMap(this::afterBulkDelete);
+    }
+
+    /**
+     * Returns up to one row more than {@code size} to tell whether another page follows.
+     */
+    public Flux<Todo> findArchived(int page, int size) {
+        return todoRepository.findArchivedPage(size + 1, page * size);
+    }
+
+    public Flux<Todo> findArchivedAfter(TodoCursor cursor, int limit) {
+        return todoRepository.findArchivedPageAfter(cursor, limit);
+    }
+
+    /**
+     * Changes with every committed write; usable as a validator for any list or aggregate view.
+     * Empty while this node could only advance it locally, when it would not tell nodes apart.
+     */
+    public Mono<Long> getChangeGeneration() {
+        // Reads Redis with the blocking client at most once per sync interval
+        return Mono.fromCallable(() -> {
+            long generation = cacheGeneration.current();
+            return cacheGeneration.isShared() ? generation : null;
+        }).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private <T> Mono<T> cachedPage(Function<Long, String> key, Class<T> type, Mono<T> loader) {
+        return getChangeGeneration()
+                .map(generation -> cache.get(PAGES, key.apply(generation), type, loader))
+                .defaultIfEmpty(loader)
+                .flatMap(Function.identity());
+    }
+
+    // Writes here never run inside a Spring-managed transaction, so the bump happens at once
+    private Mono<Void> bumpGeneration() {
+        return Mono.fromRunnable(cacheGeneration::bump).subscribeOn(Schedulers.boundedElastic()).then();
+    }
+
+    private Mono<Integer> afterBulkUpdate(List<Long> updated, boolean completed) {
+        return cache.evictAll(TODOS, keys(updated))
+                .then(bumpGeneration())
+                .doOnSuccess(ignored -> {
+                    if (completed) {
+                        metricsService.incrementCompletedCount(updated.size());
+                    }
+                })
+                .thenReturn(updated.size());
+    }
+
+    private Mono<Integer> afterBulkDelete(List<Long> deleted) {
+        return cache.evictAll(TODOS, keys(deleted))
+                .then(bumpGeneration())
+                .doOnSuccess(ignored -> metricsService.incrementDeletedCount(deleted.size()))
+                .thenReturn(deleted.size());
+    }
+
+    private static String key(Long id) {
+        return String.valueOf(id);
+    }
+
+    private static List<String> keys(List<Long> ids) {
+        return ids.stream().map(ReactiveTodoService::key).toList();
+    }
+}
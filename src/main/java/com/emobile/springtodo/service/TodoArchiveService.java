@@ -0,0 +1,135 @@
+package com.emobile.springtodo.service;
+
+import com.emobile.springtodo.cache.CacheGeneration;
+import com.emobile.springtodo.cache.TwoLevelCache;
+import com.emobile.springtodo.cache.TwoLevelCacheManager;
+import com.emobile.springtodo.jdbc.ReplicaRead;
+import com.emobile.springtodo.model.Todo;
+import com.emobile.springtodo.model.TodoCursor;
+import com.emobile.springtodo.repository.TodoArchiveRepository;
+import com.emobile.springtodo.repository.TodoEventRepository;
+import io.micrometer.core.annotation.Timed;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Keeps the hot table small: creates upcoming monthly partitions ahead of time and moves completed todos that
+ * have not changed for {@code todo.archive.after} to the archive in bounded batches. Archived todos leave the
+ * regular views and totals and can be listed with {@code archived=true}. Also prunes the change feed log.
+ */
+@Service
+@Timed(value = "todo.archive", description = "Time spent archiving todos, creating partitions and reading the archive",
+        histogram = true)
+public class TodoArchiveService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TodoArchiveService.class);
+
+    private final TodoArchiveRepository archiveRepository;
+    private final TodoEventRepository eventRepository;
+    private final TodoMetricsService metricsService;
+    private final CacheGeneration cacheGeneration;
+    private final TwoLevelCache todoCache;
+    private final boolean enabled;
+    private final Duration archiveAfter;
+    private final int batchSize;
+    private final int maxBatchesPerRun;
+    private final int monthsAhead;
+    private final Duration eventRetention;
+
+    @Autowired
+    public TodoArchiveService(TodoArchiveRepository archiveRepository, TodoEventRepository eventRepository,
+                              TodoMetricsService metricsService,
+                              CacheGeneration cacheGeneration, TwoLevelCacheManager cacheManager,
+                              @Value("${todo.archive.enabled:true}") boolean enabled,
+                              @Value("${todo.archive.after:30d}") Duration archiveAfter,
+                              @Value("${todo.archive.batch-size:1000}") int batchSize,
+                              @Value("${todo.archive.max-batches-per-run:100}") int maxBatchesPerRun,
+                              @Value("${todo.partitions.months-ahead:3}") int monthsAhead,
+                              @Value("${todo.events.retention:1h}") Duration eventRetention) {
+        this.archiveRepository = archiveRepository;
+        this.eventRepository = eventRepository;
+        this.metricsService = metricsService;
+        this.cacheGeneration = cacheGeneration;
+        this.todoCache = cacheManager.getCache("todos");
+        this.enabled = enabled;
+        this.archiveAfter = archiveAfter;
+        this.batchSize = batchSize;
+        this.maxBatchesPerRun = maxBatchesPerRun;
+        this.monthsAhead = monthsAhead;
+        this.eventRetention = eventRetention;
+    }
+
+    @Scheduled(fixedDelayString = "${todo.partitions.check-interval:PT12H}")
+    public int createPartitions() {
+        int created = archiveRepository.createPartitions(monthsAhead);
+        if (created > 0) {
+            logger.info("Created {} todo partitions", created);
+        }
+        return created;
+    }
+
+    /**
+     * Archives in batches until nothing is left or {@code todo.archive.max-batches-per-run} is reached,
+     * so one run never holds locks or generates WAL without bound. Returns the number of todos archived.
+     */
+    @Scheduled(fixedDelayString = "${todo.archive.interval:PT1M}", initialDelayString = "${todo.archive.interval:PT1M}")
+    public int archiveCompleted() {
+        if (!enabled) {
+            return 0;
+        }
+        LocalDateTime cutoff = LocalDateTime.now().minus(archiveAfter);
+        int archived = 0;
+        for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+            List<Long> ids = archiveRepository.archiveCompleted(cutoff, batchSize);
+            if (ids.isEmpty()) {
+                break;
+            }
+            // One bulk eviction per batch, so a long run cannot flood the Redis writer
+            todoCache.evictAll(ids);
+            archived += ids.size();
+            if (ids.size() < batchSize) {
+                break;
+            }
+        }
+        if (archived > 0) {
+            cacheGeneration.bump();
+            metricsService.incrementArchivedCount(archived);
+            logger.info("Archived {} completed todos older than {}", archived, cutoff);
+        }
+        return archived;
+    }
+
+    /**
+     * Drops change events older than {@code todo.events.retention}; clients that fall further behind
+     * are asked to reload. Returns the number of events removed.
+     */
+    @Scheduled(fixedDelayString = "${todo.events.prune-interval:PT5M}")
+    public int pruneEvents() {
+        int pruned = eventRepository.deleteOlderThan(LocalDateTime.now().minus(eventRetention));
+        if (pruned > 0) {
+            logger.debug("Pruned {} todo events", pruned);
+        }
+        return pruned;
+    }
+
+    /**
+     * Returns up to one row more than {@code size} to tell whether another page follows.
+     */
+    @ReplicaRead
+    public List<Todo> findArchived(int page, int size) {
+        return archiveRepository.findPage(size + 1, page * size);
+    }
+
+    @ReplicaRead
+    public List<Todo> findArchivedAfter(TodoCursor cursor, int limit) {
+        return archiveRepository.findPageAfter(cursor, limit);
+    }
+}
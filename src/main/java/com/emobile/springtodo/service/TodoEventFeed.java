@@ -0,0 +1,300 @@
+package com.emobile.springtodo.service;
+
+import com.emobile.springtodo.model.TodoEvent;
+import com.emobile.springtodo.model.TodoEventPosition;
+import com.emobile.springtodo.repository.TodoEventRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.postgresql.PGConnection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.stereotype.Service;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fans committed todo changes out to any number of subscribers from one database connection. The connection
+ * LISTENs on {@code todo_events}, so a commit wakes the feed at once; without notifications the log is polled
+ * every {@code todo.events.poll-interval}, which also covers notifications lost while reconnecting.
+ * <p>
+ * Each subscriber gets a bounded queue. A subscriber that lets it fill up is cut off rather than slowing
+ * the feed or growing memory: it receives what is queued, then the subscription ends, and the client resumes
+ * with the id of the last event it saw. Resuming replays the missed events from the log; if they have already
+ * been pruned, or there are more of them than a subscriber buffer holds, the subscription asks the client to
+ * reload instead. Statements changing many todos at once are logged as a single reset event for the same reason.
+ */
+@Service
+@Profile("!reactive")
+public class TodoEventFeed implements SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(TodoEventFeed.class);
+
+    private static final String CHANNEL = "todo_events";
+    private static final long MAX_RECONNECT_DELAY_MILLIS = TimeUnit.SECONDS.toMillis(30);
+
+    // Wakes a consumer blocked on its queue when the subscription is closed
+    private static final TodoEvent CLOSED = new TodoEvent(0, 0, null, null);
+
+    private final TodoEventRepository eventRepository;
+    private final String url;
+    private final Properties connectionProperties = new Properties();
+    private final int pollIntervalMillis;
+    private final int batchSize;
+    private final int subscriberBuffer;
+    private final Duration heartbeatInterval;
+
+    private final Set<Subscription> subscriptions = ConcurrentHashMap.newKeySet();
+    private final Object publishLock = new Object();
+    private final Counter publishedCounter;
+    private final Counter droppedCounter;
+
+    // Last position handed to subscribers; written by the listener under publishLock
+    private volatile TodoEventPosition position;
+    private volatile boolean running;
+    private Thread listener;
+
+    @Autowired
+    public TodoEventFeed(TodoEventRepository eventRepository, MeterRegistry meterRegistry,
+                         @Value("${spring.datasource.url}") String url,
+                         @Value("${spring.datasource.username}") String username,
+                         @Value("${spring.datasource.password}") String password,
+                         @Value("${todo.events.poll-interval:1s}") Duration pollInterval,
+                         @Value("${todo.events.batch-size:500}") int batchSize,
+                         @Value("${todo.events.subscriber-buffer:1000}") int subscriberBuffer,
+                         @Value("${todo.events.heartbeat-interval:15s}") Duration heartbeatInterval) {
+        this.eventRepository = eventRepository;
+        this.url = url;
+        this.connectionProperties.setProperty("user", username);
+        this.connectionProperties.setProperty("password", password);
+        this.connectionProperties.setProperty("ApplicationName", "todo-event-listener");
+        // getNotifications(0) would block until a notification arrives
+        this.pollIntervalMillis = (int) Math.max(1, pollInterval.toMillis());
+        this.batchSize = batchSize;
+        this.subscriberBuffer = subscriberBuffer;
+        this.heartbeatInterval = heartbeatInterval;
+
+        Gauge.builder("todo.events.subscribers", subscriptions, Set::size)
+                .description("Open change feed subscriptions")
+                .register(meterRegistry);
+        this.publishedCounter = Counter.builder("todo.events.published")
+                .description("Change events read from the log and fanned out")
+                .register(meterRegistry);
+        this.droppedCounter = Counter.builder("todo.events.dropped.subscribers")
+                .description("Subscriptions cut off because their buffer was full")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void start() {
+        position = eventRepository.currentHorizon();
+        running = true;
+        listener = Thread.ofPlatform().name("todo-event-listener").daemon().start(this::listen);
+    }
+
+    // Runs before the web server shuts down gracefully, so open streams end instead of holding it up
+    @Override
+    public void stop() {
+        running = false;
+        subscriptions.forEach(Subscription::close);
+        try {
+            listener.join(pollIntervalMillis + TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Opens a subscription to the changes committed from now on, preceded by those after {@code lastEventId}
+     * when given. A closed subscription is returned while the feed is stopped.
+     */
+    public Subscription subscribe(Long lastEventId) {
+        TodoEventPosition resumeFrom = null;
+        boolean resetRequired = false;
+        if (lastEventId != null) {
+            resumeFrom = eventRepository.findPosition(lastEventId).orElse(null);
+            // Reloading is cheaper for a client this far behind than a replay, and keeps replays short for all
+            if (resumeFrom != null && eventRepository.countAfter(resumeFrom, subscriberBuffer + 1) > subscriberBuffer) {
+                resumeFrom = null;
+            }
+            resetRequired = resumeFrom == null;
+        }
+
+        synchronized (publishLock) {
+            // Registered together with the position it was taken at, so the replay ends exactly where
+            // the queued events begin
+            Subscription subscription = new Subscription(resumeFrom, position, resetRequired);
+            if (running) {
+                subscriptions.add(subscription);
+            } else {
+                subscription.close();
+            }
+            return subscription;
+        }
+    }
+
+    private void listen() {
+        long reconnectDelay = 100;
+        while (running) {
+            try (Connection connection = DriverManager.getConnection(url, connectionProperties)) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + CHANNEL);
+                }
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                TodoEventRepository reader =
+                        new TodoEventRepository(new JdbcTemplate(new SingleConnectionDataSource(connection, true)));
+                logger.info("Listening for todo events after {}", position);
+                reconnectDelay = 100;
+
+                while (running) {
+                    List<TodoEvent> events = reader.findCommittedAfter(position, batchSize);
+                    if (!events.isEmpty()) {
+                        publish(events);
+                    }
+                    if (events.size() < batchSize) {
+                        // Notifications only say that something changed; the log is read either way
+                        pgConnection.getNotifications(pollIntervalMillis);
+                    }
+                }
+            } catch (SQLException | DataAccessException e) {
+                if (!running) {
+                    break;
+                }
+                logger.warn("Todo event listener failed, reconnecting in {} ms", reconnectDelay, e);
+                try {
+                    Thread.sleep(reconnectDelay);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+                reconnectDelay = Math.min(reconnectDelay * 2, MAX_RECONNECT_DELAY_MILLIS);
+            }
+        }
+    }
+
+    private void publish(List<TodoEvent> events) {
+        synchronized (publishLock) {
+            for (Subscription subscription : subscriptions) {
+                for (TodoEvent event : events) {
+                    if (!subscription.queue.offer(event)) {
+                        subscription.overflow();
+                        break;
+                    }
+                }
+            }
+            position = TodoEventPosition.of(events.getLast());
+        }
+        publishedCounter.increment(events.size());
+    }
+
+    /**
+     * One subscriber's view of the feed, read by a single consumer thread.
+     */
+    public final class Subscription implements AutoCloseable {
+
+        private final BlockingQueue<TodoEvent> queue = new ArrayBlockingQueue<>(subscriberBuffer);
+        private final boolean resetRequired;
+        private final Deque<TodoEvent> replay = new ArrayDeque<>();
+        private final TodoEventPosition replayTo;
+        private TodoEventPosition replayFrom;
+        // Events at or before this were delivered already, possibly by another node the client was connected to
+        private TodoEventPosition delivered;
+
+        private volatile boolean overflowed;
+        private volatile boolean closed;
+
+        private Subscription(TodoEventPosition resumeFrom, TodoEventPosition current, boolean resetRequired) {
+            this.resetRequired = resetRequired;
+            this.replayTo = current;
+            this.replayFrom = resumeFrom != null && resumeFrom.compareTo(current) < 0 ? resumeFrom : null;
+            this.delivered = resumeFrom;
+        }
+
+        /**
+         * Whether the requested last event is no longer in the log, so events may have been missed.
+         */
+        public boolean isResetRequired() {
+            return resetRequired;
+        }
+
+        /**
+         * Whether more events can follow. Once false, the client should reconnect with the last event id.
+         */
+        public boolean isOpen() {
+            return !closed && (!overflowed || !queue.isEmpty());
+        }
+
+        /**
+         * Returns the next event, or null if none arrived within the heartbeat interval or the subscription
+         * is no longer {@linkplain #isOpen() open}.
+         */
+        public TodoEvent poll() throws InterruptedException {
+            while (true) {
+                if (!replay.isEmpty()) {
+                    return deliver(replay.poll());
+                }
+                if (replayFrom != null) {
+                    List<TodoEvent> page = eventRepository.findBetween(replayFrom, replayTo, batchSize);
+                    replay.addAll(page);
+                    replayFrom = page.size() < batchSize ? null : TodoEventPosition.of(page.getLast());
+                    continue;
+                }
+                if (!isOpen()) {
+                    return null;
+                }
+                TodoEvent event = queue.poll(heartbeatInterval.toMillis(), TimeUnit.MILLISECONDS);
+                if (event == null || event == CLOSED) {
+                    return null;
+                }
+                if (delivered == null || TodoEventPosition.of(event).compareTo(delivered) > 0) {
+                    return deliver(event);
+                }
+            }
+        }
+
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                subscriptions.remove(this);
+                queue.offer(CLOSED);
+            }
+        }
+
+        private void overflow() {
+            overflowed = true;
+            subscriptions.remove(this);
+            droppedCounter.increment();
+        }
+
+        private TodoEvent deliver(TodoEvent event) {
+            delivered = TodoEventPosition.of(event);
+            return event;
+        }
+    }
+}
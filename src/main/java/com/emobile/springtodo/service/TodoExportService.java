@@ -0,0 +1,133 @@
+package com.emobile.springtodo.service;
+
+import com.emobile.springtodo.dto.response.TodoResponse;
+import com.emobile.springtodo.jdbc.LongRunning;
+import com.emobile.springtodo.mapper.TodoMapper;
+import com.emobile.springtodo.model.Todo;
+import com.emobile.springtodo.repository.TodoRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Writes the whole table to a stream row by row, bypassing the cache, so memory use does not depend on table size.
+ */
+@Service
+public class TodoExportService {
+
+    // Keeps fractional seconds when there are any, so an export can be imported back without losing precision
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+    private static final String CSV_HEADER = "id,title,description,completed,createdAt,updatedAt";
+
+    private final TodoRepository todoRepository;
+    private final TodoMapper todoMapper;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+
+    @Autowired
+    public TodoExportService(TodoRepository todoRepository, TodoMapper todoMapper, ObjectMapper objectMapper,
+                             PlatformTransactionManager transactionManager) {
+        this.todoRepository = todoRepository;
+        this.todoMapper = todoMapper;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    @LongRunning
+    public void export(DataFormat format, OutputStream outputStream) throws IOException {
+        try {
+            switch (format) {
+                case NDJSON -> exportNdjson(outputStream);
+                case CSV -> exportCsv(outputStream);
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private void exportNdjson(OutputStream outputStream) throws IOException {
+        AtomicBoolean written = new AtomicBoolean();
+        try (SequenceWriter sequenceWriter = objectMapper.writer()
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .withRootValueSeparator("\n")
+                .writeValues(outputStream)) {
+            stream(todo -> {
+                try {
+                    sequenceWriter.write(todoMapper.toResponse(todo));
+                    written.set(true);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+        // The separator only goes between values; an empty export stays empty
+        if (written.get()) {
+            outputStream.write('\n');
+        }
+        outputStream.flush();
+    }
+
+    private void exportCsv(OutputStream outputStream) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+        writer.write(CSV_HEADER);
+        writer.write('\n');
+        stream(todo -> {
+            try {
+                writeCsvRow(writer, todoMapper.toResponse(todo));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        writer.flush();
+    }
+
+    private void stream(Consumer<Todo> consumer) {
+        transactionTemplate.executeWithoutResult(status -> todoRepository.streamAll(consumer));
+    }
+
+    private static void writeCsvRow(Writer writer, TodoResponse todo) throws IOException {
+        writer.write(String.valueOf(todo.getId()));
+        writer.write(',');
+        writer.write(csvField(todo.getTitle()));
+        writer.write(',');
+        writer.write(csvField(todo.getDescription()));
+        writer.write(',');
+        writer.write(String.valueOf(Boolean.TRUE.equals(todo.getCompleted())));
+        writer.write(',');
+        writer.write(formatDate(todo.getCreatedAt()));
+        writer.write(',');
+        writer.write(formatDate(todo.getUpdatedAt()));
+        writer.write('\n');
+    }
+
+    private static String csvField(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    private static String formatDate(LocalDateTime dateTime) {
+        return dateTime == null ? "" : DATE_FORMAT.format(dateTime);
+    }
+}
@@ -0,0 +1,149 @@
+package com.emobile.springtodo.service;
+
+import com.emobile.springtodo.cache.CacheGeneration;
+import com.emobile.springtodo.dto.request.ImportTodoRequest;
+import com.emobile.springtodo.dto.response.ImportResponse;
+import com.emobile.springtodo.jdbc.LongRunning;
+import com.emobile.springtodo.mapper.TodoMapper;
+import com.emobile.springtodo.model.Todo;
+import com.emobile.springtodo.repository.TodoRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Streams an upload into the todos table with COPY. Records are parsed and validated one at a time
+ * while the copy is running, so memory use does not depend on the upload size. Invalid records are
+ * skipped and reported by line number; the first {@value #MAX_REPORTED_ERRORS} are listed.
+ */
+@Service
+public class TodoImportService {
+
+    static final int MAX_REPORTED_ERRORS = 100;
+
+    private final TodoRepository todoRepository;
+    private final TodoMapper todoMapper;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final TodoMetricsService metricsService;
+    private final CacheGeneration cacheGeneration;
+
+    @Autowired
+    public TodoImportService(TodoRepository todoRepository, TodoMapper todoMapper, ObjectMapper objectMapper,
+                             Validator validator, TodoMetricsService metricsService, CacheGeneration cacheGeneration) {
+        this.todoRepository = todoRepository;
+        this.todoMapper = todoMapper;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.metricsService = metricsService;
+        this.cacheGeneration = cacheGeneration;
+    }
+
+    @LongRunning
+    @Transactional
+    public ImportResponse importTodos(DataFormat format, InputStream inputStream) throws IOException {
+        Reader reader = new InputStreamReader(inputStream, StandardCharsets.UTF_8);
+        TodoRecordReader records = switch (format) {
+            case NDJSON -> new NdjsonTodoRecordReader(reader, objectMapper);
+            case CSV -> new CsvTodoRecordReader(reader);
+        };
+
+        ImportResponse response = new ImportResponse();
+        long imported;
+        try {
+            imported = todoRepository.copyIn(new ValidRecords(records, response));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        response.setImported(imported);
+
+        if (imported > 0) {
+            cacheGeneration.bump();
+            metricsService.incrementCreatedCount(imported);
+        }
+        return response;
+    }
+
+    private String validate(ImportTodoRequest request) {
+        Set<ConstraintViolation<ImportTodoRequest>> violations = validator.validate(request);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                .sorted(Comparator.naturalOrder())
+                .collect(Collectors.joining(", "));
+    }
+
+    private class ValidRecords implements Iterator<Todo> {
+
+        private final TodoRecordReader records;
+        private final ImportResponse response;
+        private Todo next;
+        private boolean done;
+
+        ValidRecords(TodoRecordReader records, ImportResponse response) {
+            this.records = records;
+            this.response = response;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (next == null && !done) {
+                ImportTodoRequest request;
+                try {
+                    request = records.next();
+                } catch (IllegalArgumentException e) {
+                    reject(e.getMessage());
+                    continue;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+
+                if (request == null) {
+                    done = true;
+                } else {
+                    String error = validate(request);
+                    if (error != null) {
+                        reject(error);
+                    } else {
+                        next = todoMapper.toEntity(request);
+                    }
+                }
+            }
+            return next != null;
+        }
+
+        @Override
+        public Todo next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Todo todo = next;
+            next = null;
+            return todo;
+        }
+
+        private void reject(String message) {
+            response.setRejected(response.getRejected() + 1);
+            if (response.getErrors().size() < MAX_REPORTED_ERRORS) {
+                response.getErrors().add(new ImportResponse.LineError(records.getRecordLine(), message));
+            }
+        }
+    }
+}
@@ -10,6 +10,7 @@ public class TodoMetricsService {
     private final Counter createdCounter;
     private final Counter completedCounter;
     private final Counter deletedCounter;
+    private final Counter archivedCounter;
 
     public TodoMetricsService(MeterRegistry registry) {
         this.createdCounter = Counter.builder("todo.created")
@@ -23,17 +24,37 @@ public class TodoMetricsService {
         this.deletedCounter = Counter.builder("todo.deleted")
                 .description("Number of deleted todos")
                 .register(registry);
+
+        this.archivedCounter = Counter.builder("todo.archived")
+                .description("Number of completed todos moved to the archive")
+                .register(registry);
     }
 
     public void incrementCreatedCount() {
         createdCounter.increment();
     }
 
+    public void incrementCreatedCount(long count) {
+        createdCounter.increment(count);
+    }
+
     public void incrementCompletedCount() {
         completedCounter.increment();
     }
 
+    public void incrementCompletedCount(int count) {
+        completedCounter.increment(count);
+    }
+
     public void incrementDeletedCount() {
         deletedCounter.increment();
     }
+
+    public void incrementDeletedCount(int count) {
+        deletedCounter.increment(count);
+    }
+
+    public void incrementArchivedCount(int count) {
+        archivedCounter.increment(count);
+    }
 }
@@ -0,0 +1,70 @@
+package com.emobile.springtodo.service;
+
+import com.emobile.springtodo.dto.request.ImportTodoRequest;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Reads import records one at a time from a character stream, keeping track of the line each record starts on.
+ * A record that cannot be parsed is reported with an {@link IllegalArgumentException}; reading can continue after it.
+ */
+abstract class TodoRecordReader {
+
+    static final int MAX_RECORD_LENGTH = 16 * 1024;
+
+    private final Reader reader;
+    private final char[] buffer = new char[8192];
+    private int position;
+    private int limit;
+    private long line = 1;
+    private long recordLine;
+
+    TodoRecordReader(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * Returns the next record, or {@code null} at the end of the input.
+     */
+    abstract ImportTodoRequest next() throws IOException;
+
+    long getRecordLine() {
+        return recordLine;
+    }
+
+    protected void startRecord() {
+        recordLine = line;
+    }
+
+    protected int read() throws IOException {
+        if (position == limit) {
+            limit = reader.read(buffer, 0, buffer.length);
+            position = 0;
+            if (limit <= 0) {
+                limit = 0;
+                return -1;
+            }
+        }
+        char c = buffer[position++];
+        if (c == '\n') {
+            line++;
+        }
+        return c;
+    }
+
+    /**
+     * Skips the rest of the current line. Only right for formats in which a record never spans lines.
+     */
+    protected IllegalArgumentException skipLineTooLong() throws IOException {
+        int c;
+        do {
+            c = read();
+        } while (c != -1 && c != '\n');
+        return recordTooLong();
+    }
+
+    protected static IllegalArgumentException recordTooLong() {
+        return new IllegalArgumentException("Record exceeds " + MAX_RECORD_LENGTH + " characters");
+    }
+}
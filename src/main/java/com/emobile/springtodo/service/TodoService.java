@@ -1,95 +1,191 @@
 package com.emobile.springtodo.service;
 
+import com.emobile.springtodo.cache.CacheGeneration;
+import com.emobile.springtodo.cache.TwoLevelCache;
+import com.emobile.springtodo.cache.TwoLevelCacheManager;
+import com.emobile.springtodo.jdbc.ReplicaRead;
 import com.emobile.springtodo.model.Todo;
+import com.emobile.springtodo.model.TodoCursor;
+import com.emobile.springtodo.model.TodoPage;
+import com.emobile.springtodo.model.TodoSearchCursor;
+import com.emobile.springtodo.model.TodoSearchPage;
+import com.emobile.springtodo.model.TodoStats;
 import com.emobile.springtodo.repository.TodoRepository;
+import com.emobile.springtodo.repository.TodoStatsRepository;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cache.annotation.CacheConfig;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.CachePut;
 import org.springframework.cache.annotation.Cacheable;
-import org.springframework.cache.annotation.Caching;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.OptionalLong;
 
 @Service
+@Timed(value = "todo.service", description = "Time spent in TodoService, cache hits included", histogram = true)
 @CacheConfig(cacheNames = "todos")
 public class TodoService {
 
     private final TodoRepository todoRepository;
+    private final TodoStatsRepository todoStatsRepository;
     private final TodoMetricsService metricsService;
+    private final CacheGeneration cacheGeneration;
+    private final GroupCommitInserter groupCommitInserter;
+    private final TwoLevelCache todoCache;
 
     @Autowired
-    public TodoService(TodoRepository todoRepository, TodoMetricsService metricsService) {
+    public TodoService(TodoRepository todoRepository, TodoStatsRepository todoStatsRepository,
+                       TodoMetricsService metricsService, CacheGeneration cacheGeneration,
+                       ObjectProvider<GroupCommitInserter> groupCommitInserter, TwoLevelCacheManager cacheManager) {
         this.todoRepository = todoRepository;
+        this.todoStatsRepository = todoStatsRepository;
         this.metricsService = metricsService;
+        this.cacheGeneration = cacheGeneration;
+        this.groupCommitInserter = groupCommitInserter.getIfAvailable();
+        this.todoCache = cacheManager.getCache("todos");
     }
 
-    @CacheEvict(allEntries = true)
+    @CachePut(key = "#result.id")
     public Todo create(Todo todo) {
-        Todo savedTodo = todoRepository.save(todo);
+        // Group commit runs in its own transaction, so it is only used when the caller has none
+        Todo savedTodo = groupCommitInserter != null && !TransactionSynchronizationManager.isActualTransactionActive()
+                ? groupCommitInserter.insert(todo)
+                : todoRepository.save(todo);
+        cacheGeneration.bump();
         metricsService.incrementCreatedCount();
         return savedTodo;
     }
 
-    @Cacheable(key = "#id")
+    @Transactional
+    public List<Todo> createAll(List<Todo> todos) {
+        List<Todo> savedTodos = todoRepository.insertAll(todos);
+        cacheGeneration.bump();
+        metricsService.incrementCreatedCount(savedTodos.size());
+        return savedTodos;
+    }
+
+    @Cacheable(key = "#id", sync = true)
+    @ReplicaRead
     public Optional<Todo> findById(Long id) {
         return todoRepository.findById(id);
     }
 
-    @Cacheable(key = "'all'")
-    public List<Todo> findAll(int page, int size) {
+    @Cacheable(cacheNames = "todoPages", sync = true, condition = "@cacheGeneration.shared",
+            key = "'all:p' + #page + ':s' + #size + ':g' + @cacheGeneration.current()")
+    @ReplicaRead
+    public TodoPage findAll(int page, int size) {
         int offset = page * size;
-        return todoRepository.findAll(size, offset);
+        return todoRepository.findPage(size, offset);
+    }
+
+    @Cacheable(cacheNames = "todoPages", sync = true, condition = "@cacheGeneration.shared",
+            key = "'all:c' + #cursor + ':s' + #limit + ':g' + @cacheGeneration.current()")
+    @ReplicaRead
+    public TodoPage findAllAfter(TodoCursor cursor, int limit) {
+        return todoRepository.findPageAfter(cursor, limit);
     }
 
-    @Cacheable(key = "'completed_' + #completed")
-    public List<Todo> findByCompleted(boolean completed, int page, int size) {
+    @Cacheable(cacheNames = "todoPages", sync = true, condition = "@cacheGeneration.shared",
+            key = "'completed_' + #completed + ':p' + #page + ':s' + #size + ':g' + @cacheGeneration.current()")
+    @ReplicaRead
+    public TodoPage findByCompleted(boolean completed, int page, int size) {
         int offset = page * size;
-        return todoRepository.findByCompleted(completed, size, offset);
+        return todoRepository.findPageByCompleted(completed, size, offset);
+    }
+
+    @Cacheable(cacheNames = "todoPages", sync = true, condition = "@cacheGeneration.shared",
+            key = "'completed_' + #completed + ':c' + #cursor + ':s' + #limit + ':g' + @cacheGeneration.current()")
+    @ReplicaRead
+    public TodoPage findByCompletedAfter(boolean completed, TodoCursor cursor, int limit) {
+        return todoRepository.findPageByCompletedAfter(completed, cursor, limit);
     }
 
-    @Caching(
-            put = @CachePut(key = "#todo.id"),
-            evict = {
-                    @CacheEvict(key = "'all'"),
-                    @CacheEvict(key = "'completed_' + #todo.completed"),
-                    @CacheEvict(key = "'completed_' + !#todo.completed")
+    @Cacheable(cacheNames = "todoPages", sync = true, condition = "@cacheGeneration.shared",
+            key = "'search:f' + #completed + ':c' + #cursor + ':s' + #limit + ':g' + @cacheGeneration.current() + ':q' + #query")
+    @ReplicaRead
+    public TodoSearchPage search(String query, Boolean completed, TodoSearchCursor cursor, int limit) {
+        return todoRepository.search(query, completed, cursor, limit);
+    }
+
+    @CachePut(key = "#id", unless = "#result == null")
+    public Optional<Todo> patch(Long id, String title, String description, Boolean completed) {
+        Optional<Todo> updatedTodo = todoRepository.patch(id, title, description, completed);
+        if (updatedTodo.isPresent()) {
+            cacheGeneration.bump();
+            if (Boolean.TRUE.equals(completed)) {
+                metricsService.incrementCompletedCount();
             }
-    )
-    public Todo update(Todo todo) {
-        Todo updatedTodo = todoRepository.save(todo);
-        if (Boolean.TRUE.equals(updatedTodo.getCompleted())) {
-            metricsService.incrementCompletedCount();
         }
         return updatedTodo;
     }
 
-    @Caching(
-            evict = {
-                    @CacheEvict(key = "#id"),
-                    @CacheEvict(key = "'all'"),
-                    @CacheEvict(key = "'completed_true'"),
-                    @CacheEvict(key = "'completed_false'")
-            }
-    )
-    public void deleteById(Long id) {
-        todoRepository.deleteById(id);
-        metricsService.incrementDeletedCount();
+    @CacheEvict(key = "#id")
+    public boolean deleteById(Long id) {
+        boolean deleted = todoRepository.deleteById(id);
+        if (deleted) {
+            cacheGeneration.bump();
+            metricsService.incrementDeletedCount();
+        }
+        return deleted;
     }
 
-    @Cacheable(key = "'count'")
-    public long getTotalCount() {
-        return todoRepository.count();
+    public int updateCompletedByIds(List<Long> ids, boolean completed) {
+        List<Long> updated = todoRepository.updateCompletedByIds(ids, completed);
+        afterBulkUpdate(updated, completed);
+        return updated.size();
     }
 
-    @Cacheable(key = "'completed_count'")
-    public long getCompletedCount() {
-        return todoRepository.countByCompleted(true);
+    public int updateCompletedByCompleted(boolean currentCompleted, boolean completed) {
+        List<Long> updated = todoRepository.updateCompletedByCompleted(currentCompleted, completed);
+        afterBulkUpdate(updated, completed);
+        return updated.size();
+    }
+
+    public int deleteByIds(List<Long> ids) {
+        List<Long> deleted = todoRepository.deleteByIds(ids);
+        afterBulkDelete(deleted);
+        return deleted.size();
+    }
+
+    public int deleteByCompleted(boolean completed) {
+        List<Long> deleted = todoRepository.deleteByCompleted(completed);
+        afterBulkDelete(deleted);
+        return deleted.size();
+    }
+
+    @Cacheable(cacheNames = "todoPages", sync = true, condition = "@cacheGeneration.shared", key = "'stats:g' + @cacheGeneration.current()")
+    @ReplicaRead
+    public TodoStats getStats() {
+        return todoStatsRepository.load();
+    }
+
+    /**
+     * Changes with every committed write; usable as a validator for any list or aggregate view.
+     * Empty while this node could only advance it locally, when it would not tell nodes apart.
+     */
+    public OptionalLong getChangeGeneration() {
+        long generation = cacheGeneration.current();
+        return cacheGeneration.isShared() ? OptionalLong.of(generation) : OptionalLong.empty();
+    }
+
+    // Only the rows the statement touched leave the cache, on this node and on every other one
+    private void afterBulkUpdate(List<Long> updated, boolean completed) {
+        todoCache.evictAll(updated);
+        cacheGeneration.bump();
+        if (completed) {
+            metricsService.incrementCompletedCount(updated.size());
+        }
     }
 
-    public boolean existsById(Long id) {
-        return todoRepository.existsById(id);
+    private void afterBulkDelete(List<Long> deleted) {
+        todoCache.evictAll(deleted);
+        cacheGeneration.bump();
+        metricsService.incrementDeletedCount(deleted.size());
     }
 }
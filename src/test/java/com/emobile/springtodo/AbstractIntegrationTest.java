@@ -1,9 +1,13 @@
 package com.emobile.springtodo;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ActiveProfiles;
@@ -25,7 +29,8 @@ import org.testcontainers.utility.DockerImageName;
 @DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
 public abstract class AbstractIntegrationTest {
 
-    @Autowired
+    // Absent in the reactive profile, which has no servlet stack
+    @Autowired(required = false)
     protected MockMvc mockMvc;
 
     @Autowired
@@ -34,6 +39,12 @@ public abstract class AbstractIntegrationTest {
     @Autowired
     protected JdbcTemplate jdbcTemplate;
 
+    @Autowired
+    protected CacheManager cacheManager;
+
+    @Autowired
+    protected RedisConnectionFactory redisConnectionFactory;
+
     @Container
     static PostgreSQLContainer<?> postgreSQLContainer = new PostgreSQLContainer<>("postgres:15-alpine")
             .withDatabaseName("testdb")
@@ -44,6 +55,24 @@ public abstract class AbstractIntegrationTest {
     static GenericContainer<?> redisContainer = new GenericContainer<>(DockerImageName.parse("redis:7-alpine"))
             .withExposedPorts(6379);
 
+    @BeforeEach
+    void clearCaches() {
+        // Тестовые данные пишутся напрямую в БД, поэтому кэш сбрасывается перед каждым тестом
+        try (RedisConnection connection = redisConnectionFactory.getConnection()) {
+            connection.serverCommands().flushDb();
+        }
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+    }
+
+    // Redis stops answering but keeps its data and connections, as during a network partition
+    protected static void pauseRedis() {
+        redisContainer.getDockerClient().pauseContainerCmd(redisContainer.getContainerId()).exec();
+    }
+
+    protected static void unpauseRedis() {
+        redisContainer.getDockerClient().unpauseContainerCmd(redisContainer.getContainerId()).exec();
+    }
+
     @DynamicPropertySource
     static void configureProperties(DynamicPropertyRegistry registry) {
         registry.add("spring.datasource.url", postgreSQLContainer::getJdbcUrl);
@@ -0,0 +1,67 @@
+package com.emobile.springtodo.cache;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.time.Duration;
+
+import static com.emobile.springtodo.cache.TwoLevelCaches.circuitBreaker;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@DisplayName("Redis Circuit Breaker Tests")
+class RedisCircuitBreakerTest {
+
+    @Test
+    @DisplayName("Should return the fallback when a Redis call fails with a serialization error")
+    void shouldFallBackOnSerializationError() {
+        RedisCircuitBreaker circuitBreaker = circuitBreaker(5, Duration.ofSeconds(5));
+
+        assertEquals("fallback", circuitBreaker.execute(() -> {
+            throw new SerializationException("Unknown format");
+        }, () -> "fallback"));
+        assertEquals(RedisCircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+
+    @Test
+    @DisplayName("Should reopen the circuit when the half-open probe fails with a non-Redis exception")
+    void shouldReleaseProbeAfterSerializationError() throws Exception {
+        RedisCircuitBreaker circuitBreaker = open(circuitBreaker(1, Duration.ofMillis(100)));
+        Thread.sleep(150);
+
+        assertEquals("fallback", circuitBreaker.execute(() -> {
+            throw new SerializationException("Unknown format");
+        }, () -> "fallback"));
+        assertEquals(RedisCircuitBreaker.State.OPEN, circuitBreaker.getState());
+
+        Thread.sleep(150);
+        assertEquals("redis", circuitBreaker.execute(() -> "redis", () -> "fallback"));
+        assertEquals(RedisCircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+
+    @Test
+    @DisplayName("Should reopen the circuit when the half-open probe ends with an error")
+    void shouldReleaseProbeAfterError() throws Exception {
+        RedisCircuitBreaker circuitBreaker = open(circuitBreaker(1, Duration.ofMillis(100)));
+        Thread.sleep(150);
+
+        assertThrows(StackOverflowError.class, () -> circuitBreaker.execute(() -> {
+            throw new StackOverflowError();
+        }, () -> "fallback"));
+        assertEquals(RedisCircuitBreaker.State.OPEN, circuitBreaker.getState());
+
+        Thread.sleep(150);
+        assertEquals("redis", circuitBreaker.execute(() -> "redis", () -> "fallback"));
+        assertEquals(RedisCircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+
+    private static RedisCircuitBreaker open(RedisCircuitBreaker circuitBreaker) {
+        circuitBreaker.execute(() -> {
+            throw new QueryTimeoutException("Redis timed out");
+        }, () -> null);
+        assertEquals(RedisCircuitBreaker.State.OPEN, circuitBreaker.getState());
+        return circuitBreaker;
+    }
+}
@@ -0,0 +1,60 @@
+package com.emobile.springtodo.cache;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static com.emobile.springtodo.cache.TwoLevelCaches.circuitBreaker;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("Two-Level Cache Bulk Eviction Tests")
+class TwoLevelCacheBulkEvictionTest {
+
+    @Test
+    @DisplayName("Should evict many keys with one Redis command and one broadcast per chunk")
+    void shouldEvictInChunks() {
+        ConcurrentMapCache redis = new ConcurrentMapCache("test");
+        List<List<String>> deletes = new ArrayList<>();
+        List<List<String>> broadcasts = new ArrayList<>();
+        TwoLevelCache cache = TwoLevelCaches.twoLevelCache(redis, keys -> {
+            deletes.add(List.copyOf(keys));
+            keys.forEach(redis::evict);
+        }, new RecordingPublisher(broadcasts), circuitBreaker(5, Duration.ofSeconds(5)));
+        List<Long> ids = LongStream.rangeClosed(1, 600).boxed().toList();
+        ids.forEach(id -> redis.put(String.valueOf(id), "todo " + id));
+
+        cache.evictAll(ids);
+
+        assertEquals(3, deletes.size());
+        assertEquals(List.of(250, 250, 100), broadcasts.stream().map(List::size).toList());
+        // Each key goes with its timing key
+        assertTrue(deletes.get(0).containsAll(List.of("1", "1#timing", "250", "250#timing")));
+        assertEquals(500, deletes.get(0).size());
+        ids.forEach(id -> assertNull(redis.get(String.valueOf(id))));
+    }
+
+    private record RecordingPublisher(List<List<String>> evictions) implements CacheInvalidationPublisher {
+
+        @Override
+        public void publishEviction(String cacheName, String key) {
+            evictions.add(List.of(key));
+        }
+
+        @Override
+        public void publishEvictions(String cacheName, Collection<String> keys) {
+            evictions.add(List.copyOf(keys));
+        }
+
+        @Override
+        public void publishClear(String cacheName) {
+        }
+    }
+}
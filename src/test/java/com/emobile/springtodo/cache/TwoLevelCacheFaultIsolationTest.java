@@ -0,0 +1,115 @@
+package com.emobile.springtodo.cache;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.dao.QueryTimeoutException;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.emobile.springtodo.cache.TwoLevelCaches.circuitBreaker;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+@DisplayName("Two-Level Cache Fault Isolation Tests")
+class TwoLevelCacheFaultIsolationTest {
+
+    @Test
+    @DisplayName("Should serve from the loader and stop calling Redis once it keeps failing")
+    void shouldBypassFailingRedis() throws Exception {
+        FlakyCache redis = new FlakyCache();
+        RedisCircuitBreaker circuitBreaker = circuitBreaker(2, Duration.ofMillis(200));
+        redis.failing = true;
+
+        assertEquals("a", twoLevelCache(redis, circuitBreaker).get("a", () -> "a"));
+        assertEquals("b", twoLevelCache(redis, circuitBreaker).get("b", () -> "b"));
+        assertEquals(RedisCircuitBreaker.State.OPEN, circuitBreaker.getState());
+
+        int callsWhenOpened = redis.calls.get();
+        assertEquals("c", twoLevelCache(redis, circuitBreaker).get("c", () -> "c"));
+        assertEquals(callsWhenOpened, redis.calls.get());
+
+        redis.failing = false;
+        Thread.sleep(250);
+        assertEquals("d", twoLevelCache(redis, circuitBreaker).get("d", () -> "d"));
+        assertEquals(RedisCircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        assertEquals("d", redis.get("d").get());
+    }
+
+    @Test
+    @DisplayName("Should not read back a Redis entry whose eviction failed")
+    void shouldSkipEntriesWhoseEvictionFailed() {
+        FlakyCache redis = new FlakyCache();
+        RedisCircuitBreaker circuitBreaker = circuitBreaker(5, Duration.ofSeconds(5));
+        TwoLevelCache cache = twoLevelCache(redis, circuitBreaker);
+        redis.put("key", "old");
+
+        redis.failing = true;
+        cache.evict("key");
+        redis.failing = false;
+
+        assertEquals("new", cache.get("key", () -> "new"));
+    }
+
+    @Test
+    @DisplayName("Should evict a stale entry with the next write that reaches Redis, without the circuit opening")
+    void shouldRepairStaleEntryAfterLaterWrite() {
+        FlakyCache redis = new FlakyCache();
+        RedisCircuitBreaker circuitBreaker = circuitBreaker(5, Duration.ofSeconds(5));
+        TwoLevelCache cache = twoLevelCache(redis, circuitBreaker);
+        redis.put("key", "old");
+
+        redis.failing = true;
+        cache.evict("key");
+        redis.failing = false;
+        assertEquals(RedisCircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        assertEquals("old", redis.get("key").get());
+
+        cache.put("other", "value");
+        assertNull(redis.get("key"));
+
+        // Read through Redis again once repaired
+        redis.put("key", "shared");
+        assertEquals("shared", cache.get("key", () -> "loaded"));
+    }
+
+    private static TwoLevelCache twoLevelCache(FlakyCache redis, RedisCircuitBreaker circuitBreaker) {
+        return TwoLevelCaches.twoLevelCache(redis, circuitBreaker, 0, Runnable::run);
+    }
+
+    private static class FlakyCache extends ConcurrentMapCache {
+
+        final AtomicInteger calls = new AtomicInteger();
+        volatile boolean failing;
+
+        FlakyCache() {
+            super("test");
+        }
+
+        @Override
+        public ValueWrapper get(Object key) {
+            check();
+            return super.get(key);
+        }
+
+        @Override
+        public void put(Object key, Object value) {
+            check();
+            super.put(key, value);
+        }
+
+        @Override
+        public void evict(Object key) {
+            check();
+            super.evict(key);
+        }
+
+        private void check() {
+            calls.incrementAndGet();
+            if (failing) {
+                throw new QueryTimeoutException("Redis command timed out");
+            }
+        }
+    }
+}
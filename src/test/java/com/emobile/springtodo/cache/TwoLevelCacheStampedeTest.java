@@ -0,0 +1,117 @@
+package com.emobile.springtodo.cache;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static com.emobile.springtodo.cache.TwoLevelCaches.twoLevelCache;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("Two-Level Cache Stampede Tests")
+class TwoLevelCacheStampedeTest {
+
+    @Test
+    @DisplayName("Should run one loader for concurrent misses on the same key")
+    void shouldCoalesceConcurrentMisses() throws Exception {
+        TwoLevelCache cache = twoLevelCache(new ConcurrentMapCache("test"), circuitBreaker(), 0, Runnable::run);
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+
+        List<Future<String>> results = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(16)) {
+            for (int i = 0; i < 16; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return cache.get("key", () -> {
+                        loads.incrementAndGet();
+                        Thread.sleep(200);
+                        return "loaded";
+                    });
+                }));
+            }
+            start.countDown();
+            for (Future<String> result : results) {
+                assertEquals("loaded", result.get());
+            }
+        }
+
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    @DisplayName("Should refresh an entry ahead of expiry while still serving the cached value")
+    void shouldRefreshEarlyAndServeCachedValue() {
+        TwoLevelCache eager = twoLevelCache(new ConcurrentMapCache("test"), circuitBreaker(), 1e12, Runnable::run);
+        AtomicInteger loads = new AtomicInteger();
+
+        assertEquals("v1", eager.get("key", () -> load(loads)));
+        assertEquals("v1", eager.get("key", () -> load(loads)));
+        assertEquals(2, loads.get());
+        assertEquals("v2", eager.get("key", () -> load(loads)));
+
+        TwoLevelCache disabled = twoLevelCache(new ConcurrentMapCache("test"), circuitBreaker(), 0, Runnable::run);
+        AtomicInteger disabledLoads = new AtomicInteger();
+        disabled.get("key", () -> load(disabledLoads));
+        disabled.get("key", () -> load(disabledLoads));
+        assertEquals(1, disabledLoads.get());
+    }
+
+    @Test
+    @DisplayName("Should refresh off the request thread")
+    void shouldRefreshInBackground() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch refreshed = new CountDownLatch(1);
+        AtomicReference<Thread> refreshThread = new AtomicReference<>();
+        try (ExecutorService refresher = Executors.newSingleThreadExecutor()) {
+            TwoLevelCache cache = twoLevelCache(new ConcurrentMapCache("test"), circuitBreaker(), 1e12, refresher);
+            assertEquals("v1", cache.get("key", () -> "v1"));
+
+            // Would block the caller until released if it ran on the request thread
+            assertEquals("v1", cache.get("key", () -> {
+                release.await();
+                refreshThread.set(Thread.currentThread());
+                refreshed.countDown();
+                return "v2";
+            }));
+            release.countDown();
+            assertTrue(refreshed.await(5, TimeUnit.SECONDS));
+        }
+
+        assertNotEquals(Thread.currentThread(), refreshThread.get());
+    }
+
+    @Test
+    @DisplayName("Should refresh early on a node that read the entry from Redis")
+    void shouldShareLoadTimingThroughRedis() {
+        ConcurrentMapCache redis = new ConcurrentMapCache("test");
+        AtomicInteger loads = new AtomicInteger();
+        twoLevelCache(redis, circuitBreaker(), 1e12, Runnable::run).get("key", () -> load(loads));
+
+        TwoLevelCache otherNode = twoLevelCache(redis, circuitBreaker(), 1e12, Runnable::run);
+        assertEquals("v1", otherNode.get("key", () -> load(loads)));
+        assertEquals(2, loads.get());
+        assertEquals("v2", redis.get("key").get());
+    }
+
+    private static String load(AtomicInteger loads) throws InterruptedException {
+        Thread.sleep(1);
+        return "v" + loads.incrementAndGet();
+    }
+
+    private static RedisCircuitBreaker circuitBreaker() {
+        return TwoLevelCaches.circuitBreaker(5, Duration.ofSeconds(5));
+    }
+}
@@ -0,0 +1,50 @@
+package com.emobile.springtodo.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.cache.Cache;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.concurrent.Executor;
+
+/**
+ * Builds caches over an in-memory stand-in for Redis, with Redis writes applied on the calling thread.
+ */
+final class TwoLevelCaches {
+
+    static final CacheInvalidationPublisher NO_PUBLISHER = new CacheInvalidationPublisher() {
+        @Override
+        public void publishEviction(String cacheName, String key) {
+        }
+
+        @Override
+        public void publishEvictions(String cacheName, Collection<String> keys) {
+        }
+
+        @Override
+        public void publishClear(String cacheName) {
+        }
+    };
+
+    private TwoLevelCaches() {
+    }
+
+    static TwoLevelCache twoLevelCache(Cache redis, RedisCircuitBreaker circuitBreaker, double earlyRefreshBeta,
+                                       Executor refresher) {
+        return new TwoLevelCache("test", Caffeine.newBuilder().maximumSize(100).build(), redis,
+                keys -> keys.forEach(redis::evict), NO_PUBLISHER, Duration.ofMinutes(1), 100, earlyRefreshBeta,
+                circuitBreaker, Runnable::run, refresher, new SimpleMeterRegistry());
+    }
+
+    static TwoLevelCache twoLevelCache(Cache redis, TwoLevelCache.BulkEviction bulkEviction,
+                                       CacheInvalidationPublisher publisher, RedisCircuitBreaker circuitBreaker) {
+        return new TwoLevelCache("test", Caffeine.newBuilder().maximumSize(100).build(), redis, bulkEviction,
+                publisher, Duration.ofMinutes(1), 100, 0, circuitBreaker, Runnable::run, Runnable::run,
+                new SimpleMeterRegistry());
+    }
+
+    static RedisCircuitBreaker circuitBreaker(int failureThreshold, Duration openDuration) {
+        return new RedisCircuitBreaker(new SimpleMeterRegistry(), failureThreshold, openDuration);
+    }
+}
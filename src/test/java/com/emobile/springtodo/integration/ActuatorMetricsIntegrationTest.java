@@ -4,18 +4,23 @@ import com.emobile.springtodo.AbstractIntegrationTest;
 import com.emobile.springtodo.dto.request.CreateTodoRequest;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
 import org.springframework.http.MediaType;
 
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
 import static org.hamcrest.Matchers.hasItem;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.not;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @DisplayName("Actuator Metrics Integration Tests")
+@AutoConfigureObservability(tracing = false)
 class ActuatorMetricsIntegrationTest extends AbstractIntegrationTest {
 
     @Test
@@ -94,4 +99,73 @@ class ActuatorMetricsIntegrationTest extends AbstractIntegrationTest {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.name", is("todo.created")));
     }
+
+    @Test
+    @DisplayName("Should serve repeated reads from the in-process cache")
+    void shouldServeRepeatedReadsFromLocalCache() throws Exception {
+        CreateTodoRequest request = new CreateTodoRequest();
+        request.setTitle("Cached Todo");
+        request.setDescription("Testing two-level cache");
+
+        String response = mockMvc.perform(post("/api/v1/todos")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        long id = objectMapper.readTree(response).get("id").asLong();
+
+        for (int i = 0; i < 3; i++) {
+            mockMvc.perform(get("/api/v1/todos/" + id))
+                    .andExpect(status().isOk());
+        }
+
+        mockMvc.perform(get("/actuator/metrics/cache.l1.hits").param("tag", "cache:todos"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.measurements[0].value", greaterThanOrEqualTo(2.0)));
+
+        mockMvc.perform(get("/actuator/metrics/cache.l2.hit.ratio").param("tag", "cache:todos"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    @DisplayName("Should time service and repository calls and count cache lookups per key family")
+    void shouldRecordOperationTimersAndKeyFamilyMetrics() throws Exception {
+        mockMvc.perform(get("/api/v1/todos").param("size", "5"))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/v1/todos").param("size", "5"))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/actuator/metrics/todo.service").param("tag", "method:findAll"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.measurements[0].value", greaterThanOrEqualTo(2.0)));
+        mockMvc.perform(get("/actuator/metrics/todo.repository").param("tag", "method:findPage"))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/actuator/metrics/cache.gets")
+                        .param("tag", "cache:todoPages")
+                        .param("tag", "family:all")
+                        .param("tag", "result:l1_hit"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.measurements[0].value", greaterThanOrEqualTo(1.0)));
+        mockMvc.perform(get("/actuator/metrics/cache.load").param("tag", "family:all"))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/actuator/metrics/hikaricp.connections.active"))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/actuator/metrics/hikaricp.connections.idle"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    @DisplayName("Should expose latency histograms for Prometheus")
+    void shouldExposePrometheusHistograms() throws Exception {
+        mockMvc.perform(get("/api/v1/todos/stats"))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("todo_service_seconds_bucket")))
+                .andExpect(content().string(containsString("http_server_requests_seconds_bucket")))
+                .andExpect(content().string(containsString("hikaricp_connections_active")));
+    }
 }
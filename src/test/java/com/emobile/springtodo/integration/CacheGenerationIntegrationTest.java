@@ -0,0 +1,94 @@
+package com.emobile.springtodo.integration;
+
+import com.emobile.springtodo.AbstractIntegrationTest;
+import com.emobile.springtodo.cache.CacheGeneration;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@DisplayName("Cache Generation Integration Tests")
+@TestPropertySource(properties = {
+        "todo.cache.generation.sync-interval=0s",
+        "todo.cache.redis.open-duration=200ms"
+})
+class CacheGenerationIntegrationTest extends AbstractIntegrationTest {
+
+    private static final String KEY = "todo:cache:generation";
+
+    @Autowired
+    private CacheGeneration cacheGeneration;
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @Test
+    @DisplayName("Should raise a rolled back counter to the generation already seen")
+    void shouldRaiseRolledBackCounter() {
+        cacheGeneration.bump();
+        long seen = cacheGeneration.current();
+
+        // As after Redis restarted from an older snapshot
+        redisTemplate.opsForValue().set(KEY, String.valueOf(seen - 5));
+        assertEquals(seen, cacheGeneration.current());
+        assertEquals(String.valueOf(seen), redisTemplate.opsForValue().get(KEY));
+
+        cacheGeneration.bump();
+        assertTrue(cacheGeneration.current() > seen);
+    }
+
+    @Test
+    @DisplayName("Should recreate a lost counter at the generation already seen")
+    void shouldRecreateLostCounter() {
+        long seen = cacheGeneration.current();
+
+        redisTemplate.delete(KEY);
+        cacheGeneration.current();
+        assertEquals(String.valueOf(seen), redisTemplate.opsForValue().get(KEY));
+    }
+
+    @Test
+    @DisplayName("Should not reuse a generation advanced locally while Redis was unreachable")
+    void shouldTakeFreshGenerationAfterLocalBump() throws Exception {
+        cacheGeneration.bump();
+        long before = cacheGeneration.current();
+
+        pauseRedis();
+        try {
+            cacheGeneration.bump();
+            assertEquals(before + 1, cacheGeneration.current());
+            assertFalse(cacheGeneration.isShared());
+            mockMvc.perform(get("/api/v1/todos"))
+                    .andExpect(status().isOk())
+                    .andExpect(header().doesNotExist(HttpHeaders.ETAG));
+        } finally {
+            unpauseRedis();
+        }
+
+        // Another node got the same number from Redis for its own write meanwhile
+        redisTemplate.opsForValue().set(KEY, String.valueOf(before + 1));
+
+        assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+            while (!cacheGeneration.isShared()) {
+                cacheGeneration.current();
+                Thread.sleep(50);
+            }
+        });
+        assertTrue(cacheGeneration.current() > before + 1);
+        mockMvc.perform(get("/api/v1/todos"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG));
+    }
+}
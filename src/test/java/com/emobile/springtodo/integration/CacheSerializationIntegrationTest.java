@@ -0,0 +1,104 @@
+package com.emobile.springtodo.integration;
+
+import com.emobile.springtodo.AbstractIntegrationTest;
+import com.emobile.springtodo.config.RedisConfig;
+import com.emobile.springtodo.model.Todo;
+import com.emobile.springtodo.model.TodoPage;
+import com.emobile.springtodo.model.TodoStats;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.test.context.jdbc.Sql;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.context.jdbc.Sql.ExecutionPhase.AFTER_TEST_METHOD;
+import static org.springframework.test.context.jdbc.Sql.ExecutionPhase.BEFORE_TEST_METHOD;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@DisplayName("Cache Serialization Integration Tests")
+@Sql(scripts = "/sql/insert-test-data.sql", executionPhase = BEFORE_TEST_METHOD)
+@Sql(scripts = "/sql/cleanup.sql", executionPhase = AFTER_TEST_METHOD)
+class CacheSerializationIntegrationTest extends AbstractIntegrationTest {
+
+    private static final byte[] TODO_KEY = "todos::1".getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    @DisplayName("Should store cached todos in the binary format")
+    void shouldStoreCachedTodosInBinaryFormat() throws Exception {
+        mockMvc.perform(get("/api/v1/todos/1"))
+                .andExpect(status().isOk());
+
+        // Redis is filled by the background writer
+        byte[] stored = null;
+        for (int attempt = 0; attempt < 50 && stored == null; attempt++) {
+            try (RedisConnection connection = redisConnectionFactory.getConnection()) {
+                stored = connection.stringCommands().get(TODO_KEY);
+            }
+            if (stored == null) {
+                Thread.sleep(20);
+            }
+        }
+        assertNotNull(stored);
+        assertEquals((byte) 0xB7, stored[0]);
+        assertEquals(1, stored[1]);
+
+        Todo todo = (Todo) RedisConfig.cacheValueSerializer("binary", 512).deserialize(stored);
+        assertEquals("Test Todo 1", todo.getTitle());
+        assertEquals(LocalDateTime.of(2024, 1, 1, 10, 0), todo.getCreatedAt());
+
+        mockMvc.perform(get("/actuator/metrics/cache.value.size").param("tag", "format:binary"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.availableTags[*].values[*]", hasItem("Todo")));
+    }
+
+    @Test
+    @DisplayName("Should encode a page in fewer bytes than JSON")
+    void shouldEncodePageSmallerThanJson() {
+        List<Todo> todos = new ArrayList<>();
+        LocalDateTime createdAt = LocalDateTime.of(2024, 1, 1, 9, 0);
+        for (int i = 0; i < 100; i++) {
+            todos.add(new Todo(100_000L + i, "Prepare quarterly report section " + i,
+                    "Review the draft with the team and follow up about the release budget, invoice " + i,
+                    i % 4 == 0, createdAt.plusMinutes(i), createdAt.plusMinutes(i).plusSeconds(i)));
+        }
+        TodoPage page = new TodoPage(todos, new TodoStats(5_000, 1_250));
+
+        byte[] binary = RedisConfig.cacheValueSerializer("binary", 512).serialize(page);
+        byte[] json = RedisConfig.cacheValueSerializer("json", 512).serialize(page);
+
+        assertNotNull(binary);
+        assertNotNull(json);
+        assertTrue(binary.length * 3 < json.length * 2,
+                "binary page of " + binary.length + " bytes, JSON page of " + json.length + " bytes");
+        TodoPage decoded = (TodoPage) RedisConfig.cacheValueSerializer("binary", 512).deserialize(binary);
+        assertEquals(100, decoded.getTodos().size());
+        assertEquals(todos.get(99).getDescription(), decoded.getTodos().get(99).getDescription());
+    }
+
+    @Test
+    @DisplayName("Should read cache entries written as JSON")
+    void shouldReadCacheEntriesWrittenAsJson() throws Exception {
+        Todo legacy = new Todo(1L, "Cached as JSON", "Written before the binary format", false,
+                LocalDateTime.of(2024, 1, 1, 10, 0), LocalDateTime.of(2024, 1, 1, 10, 0));
+        RedisSerializer<Object> json = RedisConfig.cacheValueSerializer("json", 512);
+        try (RedisConnection connection = redisConnectionFactory.getConnection()) {
+            connection.stringCommands().set(TODO_KEY, json.serialize(legacy));
+        }
+
+        mockMvc.perform(get("/api/v1/todos/1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.title", is("Cached as JSON")));
+    }
+}
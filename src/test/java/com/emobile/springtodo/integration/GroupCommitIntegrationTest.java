@@ -0,0 +1,134 @@
+package com.emobile.springtodo.integration;
+
+import com.emobile.springtodo.AbstractIntegrationTest;
+import com.emobile.springtodo.dto.request.CreateTodoRequest;
+import com.fasterxml.jackson.databind.JsonNode;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.context.jdbc.Sql.ExecutionPhase.BEFORE_TEST_METHOD;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@DisplayName("Group Commit Integration Tests")
+@TestPropertySource(properties = {
+        "todo.group-commit.enabled=true",
+        "todo.group-commit.max-wait=50ms",
+        "todo.group-commit.max-batch-size=20"
+})
+@Sql(scripts = "/sql/cleanup.sql", executionPhase = BEFORE_TEST_METHOD)
+class GroupCommitIntegrationTest extends AbstractIntegrationTest {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    @DisplayName("Should return each caller its own row when creates are coalesced")
+    void shouldReturnEachCallerItsOwnRow() throws Exception {
+        int requests = 60;
+        DistributionSummary batchSize = meterRegistry.get("todo.group.commit.batch.size").summary();
+        double rowsBefore = batchSize.totalAmount();
+        List<Future<MvcResult>> results = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < requests; i++) {
+                CreateTodoRequest request = new CreateTodoRequest();
+                request.setTitle("Grouped " + i);
+                String body = objectMapper.writeValueAsString(request);
+                results.add(executor.submit(() -> mockMvc.perform(post("/api/v1/todos")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(body))
+                        .andReturn()));
+            }
+        }
+
+        Set<Long> ids = new HashSet<>();
+        for (int i = 0; i < requests; i++) {
+            MvcResult result = results.get(i).get();
+            assertEquals(201, result.getResponse().getStatus());
+            JsonNode todo = objectMapper.readTree(result.getResponse().getContentAsString());
+            assertEquals("Grouped " + i, todo.get("title").asText());
+            ids.add(todo.get("id").asLong());
+        }
+        assertEquals(requests, ids.size());
+
+        assertEquals(requests, (long) (batchSize.totalAmount() - rowsBefore));
+        assertTrue(batchSize.max() > 1, "concurrent creates should share a batch");
+
+        mockMvc.perform(get("/api/v1/todos/stats"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total", is(requests)));
+    }
+
+    @Test
+    @DisplayName("Should retry the rows of a batch the database rolled back at commit")
+    void shouldRetryRowsOfRolledBackBatch() throws Exception {
+        List<Integer> statuses = createConcurrentlyWithFailingCommit("check_violation");
+
+        // Only the offending row fails; its batch mates are inserted one by one
+        long created = statuses.stream().filter(status -> status == 201).count();
+        assertEquals(statuses.size() - 1, created);
+        assertEquals(created, jdbcTemplate.queryForObject("SELECT count(*) FROM todos", Long.class));
+    }
+
+    @Test
+    @DisplayName("Should not retry a batch whose commit outcome is unknown")
+    void shouldNotRetryBatchWithUnknownCommitOutcome() throws Exception {
+        List<Integer> statuses = createConcurrentlyWithFailingCommit("connection_failure");
+
+        long created = statuses.stream().filter(status -> status == 201).count();
+        assertTrue(statuses.size() - created > 1, "the whole batch should fail, not just the offending row");
+        assertEquals(created, jdbcTemplate.queryForObject("SELECT count(*) FROM todos", Long.class));
+    }
+
+    // A deferred trigger fails the commit of any transaction holding the marked row with the given error
+    private List<Integer> createConcurrentlyWithFailingCommit(String errorCode) throws Exception {
+        jdbcTemplate.execute("CREATE FUNCTION fail_commit() RETURNS trigger LANGUAGE plpgsql AS $$ BEGIN " +
+                "IF NEW.title = 'Fails at commit' THEN RAISE EXCEPTION 'commit failed' USING ERRCODE = '" + errorCode + "'; " +
+                "END IF; RETURN NULL; END $$");
+        jdbcTemplate.execute("CREATE CONSTRAINT TRIGGER fail_commit AFTER INSERT ON todos " +
+                "DEFERRABLE INITIALLY DEFERRED FOR EACH ROW EXECUTE FUNCTION fail_commit()");
+        try {
+            int requests = 20;
+            List<Future<Integer>> results = new ArrayList<>();
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (int i = 0; i < requests; i++) {
+                    CreateTodoRequest request = new CreateTodoRequest();
+                    request.setTitle(i == requests / 2 ? "Fails at commit" : "Grouped " + i);
+                    String body = objectMapper.writeValueAsString(request);
+                    results.add(executor.submit(() -> mockMvc.perform(post("/api/v1/todos")
+                                    .contentType(MediaType.APPLICATION_JSON)
+                                    .content(body))
+                            .andReturn().getResponse().getStatus()));
+                }
+            }
+            List<Integer> statuses = new ArrayList<>();
+            for (Future<Integer> result : results) {
+                statuses.add(result.get());
+            }
+            return statuses;
+        } finally {
+            jdbcTemplate.execute("DROP TRIGGER fail_commit ON todos");
+            jdbcTemplate.execute("DROP FUNCTION fail_commit()");
+        }
+    }
+}
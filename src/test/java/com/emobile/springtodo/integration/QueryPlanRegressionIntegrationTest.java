@@ -0,0 +1,353 @@
+package com.emobile.springtodo.integration;
+
+import com.emobile.springtodo.AbstractIntegrationTest;
+import com.emobile.springtodo.jdbc.ProfilingDataSource;
+import com.emobile.springtodo.jdbc.SqlProfiler;
+import com.emobile.springtodo.model.Todo;
+import com.emobile.springtodo.model.TodoCursor;
+import com.emobile.springtodo.model.TodoSearchCursor;
+import com.emobile.springtodo.repository.TodoArchiveRepository;
+import com.emobile.springtodo.repository.TodoRepository;
+import com.emobile.springtodo.repository.TodoStatsRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.SqlParameterValue;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Array;
+import java.sql.Types;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Runs the repository queries against a realistic amount of data, captures the SQL they send and checks the
+ * EXPLAIN output of each: no sequential scan of a relation holding more than {@value #MAX_ROWS} rows and no
+ * sort of more than that many rows. A query or index change that falls back to a full scan fails here.
+ * Statements by id are also run with EXPLAIN ANALYZE to check that they only read the partitions holding the
+ * rows, rather than probing the primary key of every monthly partition.
+ * <p>
+ * Bulk status update and delete change a third or more of all rows on purpose, so they may scan every
+ * partition; they are executed instead and must read each row of todos at most once and sort none of them.
+ */
+@DisplayName("Query Plan Regression Tests")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class QueryPlanRegressionIntegrationTest extends AbstractIntegrationTest {
+
+    private static final int ROWS = 100_000;
+    private static final int MAX_ROWS = 1_000;
+
+    private final StatementCapture capture = new StatementCapture();
+    private DataSource capturingDataSource;
+    private TodoRepository todoRepository;
+    private TodoArchiveRepository archiveRepository;
+    private TodoStatsRepository statsRepository;
+    private Todo middle;
+
+    @BeforeAll
+    void seed() {
+        jdbcTemplate.update("DELETE FROM todos");
+        jdbcTemplate.queryForObject("SELECT todo_create_partitions(LOCALTIMESTAMP - interval '12 months', LOCALTIMESTAMP)",
+                Integer.class);
+        // One row every five minutes over the last year, a third of them completed, 0.5% mentioning groceries
+        jdbcTemplate.update("INSERT INTO todos (title, description, completed, created_at, updated_at) " +
+                "SELECT 'Todo ' || g, CASE WHEN g % 200 = 0 THEN 'Buy groceries' ELSE 'Description ' || g END, " +
+                "g % 3 = 0, LOCALTIMESTAMP - g * interval '5 minutes', LOCALTIMESTAMP - g * interval '5 minutes' " +
+                "FROM generate_series(1, ?) g", ROWS);
+        // As autovacuum would: flushes the GIN pending list and sets the visibility map
+        jdbcTemplate.execute("VACUUM ANALYZE todos");
+
+        DataSource dataSource = jdbcTemplate.getDataSource();
+        capturingDataSource = new ProfilingDataSource(dataSource, capture, () -> dataSource);
+        todoRepository = new TodoRepository(new JdbcTemplate(capturingDataSource));
+        archiveRepository = new TodoArchiveRepository(new JdbcTemplate(capturingDataSource));
+        statsRepository = new TodoStatsRepository(new JdbcTemplate(capturingDataSource));
+        middle = new TodoRepository(jdbcTemplate).findPage(1, ROWS / 2).getTodos().get(0);
+    }
+
+    @AfterAll
+    void cleanup() {
+        jdbcTemplate.update("DELETE FROM todos");
+    }
+
+    @Test
+    @DisplayName("Single todo lookups and updates should use the primary key of one partition")
+    void singleTodoStatementsShouldUseIndexes() {
+        Consumer<TodoRepository> calls = repository -> {
+            repository.findById(middle.getId());
+            repository.save(new Todo(middle.getId(), "Renamed", null, true, null, null));
+            repository.patch(middle.getId(), null, null, false);
+            repository.deleteById(middle.getId());
+        };
+        assertPlans(calls);
+        assertPartitionsRead(calls, 1);
+    }
+
+    @Test
+    @DisplayName("Bulk statements by id should use the primary key of their partitions only")
+    void bulkStatementsByIdShouldUseIndexes() {
+        // A month apart, so the ids span two partitions
+        List<Long> ids = List.of(middle.getId(), middle.getId() - 1, middle.getId() + 30 * 24 * 12);
+        Consumer<TodoRepository> calls = repository -> {
+            repository.updateCompletedByIds(ids, true);
+            repository.deleteByIds(ids);
+        };
+        assertPlans(calls);
+        assertPartitionsRead(calls, jdbcTemplate.queryForObject(
+                "SELECT count(DISTINCT tableoid) FROM todos WHERE id = ANY(?)", Integer.class, ids.toArray(Long[]::new)));
+    }
+
+    @Test
+    @DisplayName("Bulk statements by status should read each todo at most once")
+    void bulkStatementsByStatusShouldReadTodosOnce() {
+        assertSinglePass(repository -> {
+            repository.updateCompletedByCompleted(false, true);
+            repository.deleteByCompleted(true);
+        });
+    }
+
+    @Test
+    @DisplayName("Inserts should not read existing todos")
+    void insertsShouldNotScan() {
+        assertPlans(repository -> {
+            repository.save(new Todo(null, "New", null, false, null, null));
+            repository.insertAll(List.of(new Todo(null, "First", null, false, null, null),
+                    new Todo(null, "Second", "Description", true, null, null)));
+        });
+    }
+
+    @Test
+    @DisplayName("Export should be read in index order")
+    void exportShouldUseIndexes() {
+        assertPlans(repository -> repository.streamAll(todo -> {
+        }));
+    }
+
+    @Test
+    @DisplayName("Stats should be read from the counters")
+    void statsShouldUseCounters() {
+        assertPlans(repository -> statsRepository.load());
+    }
+
+    @Test
+    @DisplayName("Offset pages should be read in index order")
+    void offsetPagesShouldUseIndexes() {
+        assertPlans(repository -> {
+            repository.findPage(21, 0);
+            repository.findPage(21, 200);
+            repository.findPageByCompleted(true, 21, 0);
+            repository.findPageByCompleted(false, 21, 200);
+        });
+    }
+
+    @Test
+    @DisplayName("Cursor pages should be read in index order")
+    void cursorPagesShouldUseIndexes() {
+        TodoCursor cursor = TodoCursor.after(middle);
+        assertPlans(repository -> {
+            repository.findPageAfter(null, 21);
+            repository.findPageAfter(cursor, 21);
+            repository.findPageByCompletedAfter(true, null, 21);
+            repository.findPageByCompletedAfter(false, cursor, 21);
+        });
+    }
+
+    @Test
+    @DisplayName("Search should use the full-text index")
+    void searchShouldUseFullTextIndex() {
+        assertPlans(repository -> {
+            repository.search("groceries", null, null, 21);
+            repository.search("groceries", true, new TodoSearchCursor(0.5f, middle.getId()), 21);
+        });
+    }
+
+    @Test
+    @DisplayName("Archiving should only visit completed todos in archive order")
+    void archivingShouldUseIndexes() {
+        assertPlans(repository -> archiveRepository.archiveCompleted(LocalDateTime.now().minusDays(30), 1000));
+    }
+
+    /**
+     * Runs the calls in a transaction that is rolled back, then checks the plans of the statements they sent.
+     */
+    private void assertPlans(Consumer<TodoRepository> calls) {
+        for (CapturedStatement statement : captureStatements(calls)) {
+            assertPlan(statement);
+        }
+    }
+
+    /**
+     * Executes each statement on todos the calls sent, rolled back, and checks how many partitions it read.
+     * Partitions pruned while planning are left out of the plan, those pruned while executing are never run.
+     */
+    private void assertPartitionsRead(Consumer<TodoRepository> calls, int maxPartitions) {
+        for (CapturedStatement statement : captureStatements(calls)) {
+            if (!statement.sql().contains("todos ")) {
+                continue;
+            }
+            JsonNode plan = explainAnalyze(statement);
+            List<String> partitions = new ArrayList<>();
+            collectPartitionsRead(plan, partitions);
+            if (partitions.size() > maxPartitions) {
+                fail("read " + partitions + ", expected at most " + maxPartitions + " partitions" +
+                        "\nStatement: " + statement.sql() + "\nPlan: " + plan.toPrettyString());
+            }
+        }
+    }
+
+    /**
+     * Executes each statement the calls sent, rolled back, and checks its plan, accepting sequential scans of
+     * todos as long as no row is read twice.
+     */
+    private void assertSinglePass(Consumer<TodoRepository> calls) {
+        for (CapturedStatement statement : captureStatements(calls)) {
+            JsonNode plan = explainAnalyze(statement);
+            List<String> problems = new ArrayList<>();
+            collectProblems(plan, problems, true);
+            long visited = rowsVisited(plan);
+            if (visited > ROWS) {
+                problems.add("read " + visited + " rows of todos, which holds " + ROWS);
+            }
+            if (!problems.isEmpty()) {
+                fail(String.join("; ", problems) + "\nStatement: " + statement.sql() + "\nPlan: " + plan.toPrettyString());
+            }
+        }
+    }
+
+    private List<CapturedStatement> captureStatements(Consumer<TodoRepository> calls) {
+        capture.statements.clear();
+        TransactionTemplate transaction = new TransactionTemplate(new DataSourceTransactionManager(capturingDataSource));
+        transaction.executeWithoutResult(status -> {
+            calls.accept(todoRepository);
+            status.setRollbackOnly();
+        });
+
+        assertFalse(capture.statements.isEmpty(), "No statements captured");
+        return List.copyOf(capture.statements);
+    }
+
+    private void assertPlan(CapturedStatement statement) {
+        String json = jdbcTemplate.queryForObject("EXPLAIN (FORMAT JSON) " + statement.sql(), String.class,
+                statement.parameters().toArray());
+        JsonNode plan = readTree(json).get(0).get("Plan");
+        List<String> problems = new ArrayList<>();
+        collectProblems(plan, problems, false);
+        if (!problems.isEmpty()) {
+            fail(String.join("; ", problems) + "\nStatement: " + statement.sql() + "\nPlan: " + plan.toPrettyString());
+        }
+    }
+
+    private JsonNode explainAnalyze(CapturedStatement statement) {
+        TransactionTemplate transaction = new TransactionTemplate(
+                new DataSourceTransactionManager(jdbcTemplate.getDataSource()));
+        return transaction.execute(status -> {
+            status.setRollbackOnly();
+            return readTree(jdbcTemplate.queryForObject("EXPLAIN (ANALYZE, FORMAT JSON) " + statement.sql(),
+                    String.class, statement.parameters().toArray())).get(0).get("Plan");
+        });
+    }
+
+    private void collectProblems(JsonNode node, List<String> problems, boolean todosScansAllowed) {
+        String type = node.get("Node Type").asText();
+        long rows = node.get("Plan Rows").asLong();
+        if (type.equals("Seq Scan")) {
+            String relation = node.get("Relation Name").asText();
+            long size = relationSize(relation);
+            if (size > MAX_ROWS && !(todosScansAllowed && isTodosPartition(relation))) {
+                problems.add("sequential scan of " + relation + " (" + size + " rows)");
+            }
+        } else if (type.equals("Sort") && rows > MAX_ROWS) {
+            problems.add("sort of " + rows + " rows");
+        }
+        if (node.has("Plans")) {
+            node.get("Plans").forEach(child -> collectProblems(child, problems, todosScansAllowed));
+        }
+    }
+
+    private void collectPartitionsRead(JsonNode node, List<String> partitions) {
+        if (node.has("Relation Name") && node.get("Actual Loops").asLong() > 0) {
+            String relation = node.get("Relation Name").asText();
+            if (isTodosPartition(relation)) {
+                partitions.add(relation);
+            }
+        }
+        if (node.has("Plans")) {
+            node.get("Plans").forEach(child -> collectPartitionsRead(child, partitions));
+        }
+    }
+
+    // Rows returned plus rows filtered out, over every scan of a todos partition
+    private static long rowsVisited(JsonNode node) {
+        long visited = 0;
+        if (node.has("Relation Name") && isTodosPartition(node.get("Relation Name").asText())) {
+            visited = (node.path("Actual Rows").asLong() + node.path("Rows Removed by Filter").asLong()
+                    + node.path("Rows Removed by Index Recheck").asLong()) * node.path("Actual Loops").asLong();
+        }
+        if (node.has("Plans")) {
+            for (JsonNode child : node.get("Plans")) {
+                visited += rowsVisited(child);
+            }
+        }
+        return visited;
+    }
+
+    private static boolean isTodosPartition(String relation) {
+        return relation.matches("todos_(p\\d{6}|default)");
+    }
+
+    private long relationSize(String relation) {
+        Long size = jdbcTemplate.queryForObject("SELECT reltuples::bigint FROM pg_class WHERE relname = ?",
+                Long.class, relation);
+        return size == null ? 0 : size;
+    }
+
+    private JsonNode readTree(String json) {
+        try {
+            return objectMapper.readTree(json);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private record CapturedStatement(String sql, List<Object> parameters) {
+    }
+
+    /**
+     * Keeps the SQL and bind values of every statement instead of aggregating them.
+     */
+    private static final class StatementCapture extends SqlProfiler {
+
+        private final List<CapturedStatement> statements = new ArrayList<>();
+
+        StatementCapture() {
+            super(Duration.ZERO, 1, 1, false);
+        }
+
+        @Override
+        public synchronized void record(String sql, List<Object> parameters, long executeNanos, long fetchNanos,
+                                        long rows, boolean failed, DataSource planSource) {
+            List<Object> values = new ArrayList<>(parameters.size());
+            for (Object parameter : parameters) {
+                values.add(parameter instanceof Array array ? arrayLiteral(array) : parameter);
+            }
+            statements.add(new CapturedStatement(sql, values));
+        }
+
+        // The array literal, typed by the statement: the driver cannot bind every element type back, timestamps included
+        private static Object arrayLiteral(Array array) {
+            return new SqlParameterValue(Types.OTHER, array.toString());
+        }
+    }
+}
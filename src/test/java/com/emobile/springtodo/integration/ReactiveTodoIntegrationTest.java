@@ -0,0 +1,244 @@
+package com.emobile.springtodo.integration;
+
+import com.emobile.springtodo.AbstractIntegrationTest;
+import com.emobile.springtodo.dto.request.CreateTodoRequest;
+import com.emobile.springtodo.dto.request.UpdateTodoRequest;
+import com.emobile.springtodo.dto.response.PageResponse;
+import com.emobile.springtodo.model.Todo;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.boot.web.embedded.netty.NettyWebServer;
+import org.springframework.cache.Cache;
+import org.springframework.context.ApplicationContext;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.springframework.test.context.jdbc.Sql.ExecutionPhase.BEFORE_TEST_METHOD;
+
+@DisplayName("Reactive Todo Integration Tests")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("reactive")
+@Sql(scripts = "/sql/cleanup.sql", executionPhase = BEFORE_TEST_METHOD)
+class ReactiveTodoIntegrationTest extends AbstractIntegrationTest {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    @Test
+    @DisplayName("Should serve the API from Netty")
+    void shouldServeFromNetty() {
+        assertInstanceOf(NettyWebServer.class, ((WebServerApplicationContext) applicationContext).getWebServer());
+    }
+
+    @Test
+    @DisplayName("Should create, read, update and delete a todo")
+    void shouldCreateReadUpdateAndDeleteTodo() {
+        CreateTodoRequest request = new CreateTodoRequest();
+        request.setTitle("Reactive Todo");
+        request.setDescription("Created over R2DBC");
+
+        Todo created = webTestClient.post().uri("/api/v1/todos")
+                .bodyValue(request)
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody(Todo.class)
+                .returnResult().getResponseBody();
+        assertNotNull(created);
+        String uri = "/api/v1/todos/" + created.getId();
+
+        String eTag = webTestClient.get().uri(uri)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().exists(HttpHeaders.ETAG)
+                .expectBody()
+                .jsonPath("$.title").isEqualTo("Reactive Todo")
+                .jsonPath("$.completed").isEqualTo(false)
+                .returnResult().getResponseHeaders().getETag();
+
+        webTestClient.get().uri(uri)
+                .header(HttpHeaders.IF_NONE_MATCH, eTag)
+                .exchange()
+                .expectStatus().isNotModified();
+
+        UpdateTodoRequest update = new UpdateTodoRequest();
+        update.setCompleted(true);
+        webTestClient.patch().uri(uri)
+                .bodyValue(update)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.title").isEqualTo("Reactive Todo")
+                .jsonPath("$.description").isEqualTo("Created over R2DBC")
+                .jsonPath("$.completed").isEqualTo(true);
+
+        webTestClient.delete().uri(uri)
+                .exchange()
+                .expectStatus().isNoContent();
+
+        webTestClient.get().uri(uri)
+                .exchange()
+                .expectStatus().isNotFound()
+                .expectBody()
+                .jsonPath("$.message").isEqualTo("Todo not found with id: " + created.getId())
+                .jsonPath("$.path").isEqualTo(uri);
+    }
+
+    @Test
+    @DisplayName("Should page, filter and count todos")
+    @Sql(scripts = "/sql/insert-test-data.sql", executionPhase = BEFORE_TEST_METHOD)
+    void shouldPageFilterAndCountTodos() {
+        webTestClient.get().uri("/api/v1/todos?page=0&size=2")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.content").value(hasSize(2))
+                .jsonPath("$.content[0].id").isEqualTo(4)
+                .jsonPath("$.totalElements").isEqualTo(4)
+                .jsonPath("$.totalPages").isEqualTo(2)
+                .jsonPath("$.last").isEqualTo(false);
+
+        PageResponse<?> firstPage = webTestClient.get().uri("/api/v1/todos/filter?completed=true&size=1&cursor=")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(PageResponse.class)
+                .returnResult().getResponseBody();
+        assertNotNull(firstPage);
+        assertEquals(2L, firstPage.getTotalElements());
+
+        webTestClient.get().uri("/api/v1/todos/filter?completed=true&size=1&cursor=" + firstPage.getNextCursor())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.content[0].id").isEqualTo(2)
+                .jsonPath("$.last").isEqualTo(true);
+
+        String eTag = webTestClient.get().uri("/api/v1/todos/stats")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.total").isEqualTo(4)
+                .jsonPath("$.completed").isEqualTo(2)
+                .returnResult().getResponseHeaders().getETag();
+
+        webTestClient.get().uri("/api/v1/todos/stats")
+                .header(HttpHeaders.IF_NONE_MATCH, eTag)
+                .exchange()
+                .expectStatus().isNotModified();
+    }
+
+    @Test
+    @DisplayName("Should search todos with a cursor")
+    @Sql(scripts = "/sql/insert-test-data.sql", executionPhase = BEFORE_TEST_METHOD)
+    void shouldSearchTodos() {
+        webTestClient.get().uri("/api/v1/todos/search?q=Description&size=3")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.content").value(hasSize(3))
+                .jsonPath("$.last").isEqualTo(false)
+                .jsonPath("$.nextCursor").value(notNullValue());
+
+        webTestClient.get().uri("/api/v1/todos/search?q=description 3&completed=false")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.content").value(hasSize(1))
+                .jsonPath("$.content[0].id").isEqualTo(3);
+
+        webTestClient.get().uri("/api/v1/todos/search?q= ")
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    @DisplayName("Should reject invalid requests")
+    void shouldRejectInvalidRequests() {
+        webTestClient.post().uri("/api/v1/todos")
+                .bodyValue(new CreateTodoRequest())
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.error").isEqualTo("Validation Failed")
+                .jsonPath("$.message").value(containsString("title"));
+
+        webTestClient.get().uri("/api/v1/todos/filter")
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    @DisplayName("Should share cache entries with the servlet cache")
+    @Sql(scripts = "/sql/insert-test-data.sql", executionPhase = BEFORE_TEST_METHOD)
+    void shouldShareCacheEntriesWithServletCache() {
+        webTestClient.get().uri("/api/v1/todos/1")
+                .exchange()
+                .expectStatus().isOk();
+
+        Cache.ValueWrapper cached = cacheManager.getCache("todos").get(1L);
+        assertNotNull(cached);
+        assertEquals("Test Todo 1", ((Todo) cached.get()).getTitle());
+
+        // A direct change is not seen while the entry is cached
+        jdbcTemplate.update("UPDATE todos SET title = 'Changed' WHERE id = 1");
+        webTestClient.get().uri("/api/v1/todos/1")
+                .exchange()
+                .expectBody()
+                .jsonPath("$.title").isEqualTo("Test Todo 1");
+    }
+
+    @Test
+    @DisplayName("Should import and export todos")
+    void shouldImportAndExportTodos() {
+        String body = """
+                {"title": "Imported 1", "completed": true}
+                {"title": ""}
+                {"title": "Imported 2"}
+                """;
+
+        webTestClient.post().uri("/api/v1/todos/import")
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .bodyValue(body)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.imported").isEqualTo(2)
+                .jsonPath("$.rejected").isEqualTo(1);
+
+        String exported = webTestClient.get().uri("/api/v1/todos/export?format=csv")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith("text/csv")
+                .expectHeader().value(HttpHeaders.CONTENT_DISPOSITION, containsString("todos.csv"))
+                .expectBody(String.class)
+                .returnResult().getResponseBody();
+        assertNotNull(exported);
+        assertEquals(3, exported.lines().count());
+    }
+
+    @Test
+    @DisplayName("Should answer 415 for an import that is neither NDJSON nor CSV")
+    void shouldRejectImportWithUnsupportedContentType() {
+        webTestClient.post().uri("/api/v1/todos/import")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("[{\"title\": \"Imported\"}]")
+                .exchange()
+                .expectStatus().isEqualTo(415)
+                .expectBody()
+                .jsonPath("$.status").isEqualTo(415);
+    }
+}
@@ -0,0 +1,170 @@
+package com.emobile.springtodo.integration;
+
+import com.emobile.springtodo.AbstractIntegrationTest;
+import com.emobile.springtodo.dto.request.CreateTodoRequest;
+import com.emobile.springtodo.jdbc.ReadReplicas;
+import com.emobile.springtodo.jdbc.ReadRouting;
+import com.emobile.springtodo.jdbc.ReplicaRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.http.Cookie;
+import liquibase.integration.spring.SpringLiquibase;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.jdbc.Sql;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.context.jdbc.Sql.ExecutionPhase.BEFORE_TEST_METHOD;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.cookie;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@DisplayName("Read Replica Integration Tests")
+@TestPropertySource(properties = {
+        "todo.datasource.replicas.sticky-window=100ms",
+        "todo.datasource.replicas.retry-after=1h",
+        "todo.datasource.replicas.connection-timeout=250ms"
+})
+@Sql(scripts = "/sql/cleanup.sql", executionPhase = BEFORE_TEST_METHOD)
+class ReadReplicaIntegrationTest extends AbstractIntegrationTest {
+
+    // Stands in for a streaming replica; it gets the same schema but its own rows, so reads show where they went
+    @Container
+    static PostgreSQLContainer<?> replicaContainer = new PostgreSQLContainer<>("postgres:15-alpine")
+            .withDatabaseName("replicadb")
+            .withUsername("testuser")
+            .withPassword("testpass");
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private DataSource dataSource;
+
+    private JdbcTemplate replicaJdbcTemplate;
+
+    @DynamicPropertySource
+    static void configureReplicas(DynamicPropertyRegistry registry) {
+        // The second replica points at a database that does not exist, so connecting to it always fails
+        registry.add("todo.datasource.replicas.urls", () -> replicaContainer.getJdbcUrl() + ","
+                + replicaContainer.getJdbcUrl().replace("/replicadb", "/missing"));
+    }
+
+    @BeforeEach
+    void seedReplica() throws Exception {
+        DriverManagerDataSource replica = new DriverManagerDataSource(replicaContainer.getJdbcUrl(),
+                replicaContainer.getUsername(), replicaContainer.getPassword());
+        SpringLiquibase liquibase = new SpringLiquibase();
+        liquibase.setDataSource(replica);
+        liquibase.setChangeLog("classpath:db/changelog/db.changelog-master.yaml");
+        liquibase.setResourceLoader(new DefaultResourceLoader());
+        liquibase.afterPropertiesSet();
+
+        replicaJdbcTemplate = new JdbcTemplate(replica);
+        replicaJdbcTemplate.update("DELETE FROM todos");
+        replicaJdbcTemplate.update("INSERT INTO todos (title, completed, created_at, updated_at) " +
+                "VALUES ('Replica todo', false, NOW(), NOW())");
+        jdbcTemplate.update("INSERT INTO todos (title, completed, created_at, updated_at) " +
+                "VALUES ('Primary todo', false, NOW(), NOW())");
+    }
+
+    @Test
+    @DisplayName("Should serve reads from a healthy replica and skip one that is down")
+    void shouldReadFromHealthyReplica() throws Exception {
+        Set<String> titles = new HashSet<>();
+        for (int i = 0; i < 20 && titles.size() < 2; i++) {
+            titles.add(firstTitle(null));
+            Thread.sleep(50);
+        }
+
+        assertEquals(Set.of("Replica todo"), titles);
+        assertTrue(meterRegistry.get("jdbc.replica.reads").tag("pool", "replica-1").functionCounter().count() >= 2);
+        assertTrue(meterRegistry.get("jdbc.replica.failures").tag("pool", "replica-2").functionCounter().count() >= 1);
+    }
+
+    @Test
+    @DisplayName("Should fall back to the primary when no replica is available")
+    void shouldFallBackToPrimaryWhenNoReplicaIsAvailable() throws Exception {
+        try (ReadReplicas unavailable = new ReadReplicas(List.of(replicaContainer.getJdbcUrl().replace("/replicadb", "/missing")),
+                replicaContainer.getUsername(), replicaContainer.getPassword(), 1, 0, Duration.ofMillis(250),
+                ReadReplicas.Selection.ROUND_ROBIN, Duration.ofHours(1), new SimpleMeterRegistry())) {
+            ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(
+                    dataSource.unwrap(HikariDataSource.class), unavailable, () -> 0);
+
+            boolean previous = ReadRouting.beginReplicaRead();
+            try {
+                String title = new JdbcTemplate(routing).queryForObject("SELECT title FROM todos", String.class);
+                assertEquals("Primary todo", title);
+            } finally {
+                ReadRouting.endReplicaRead(previous);
+            }
+            assertEquals(1, unavailable.getFallbacks());
+        }
+    }
+
+    @Test
+    @DisplayName("Should keep a client off replicas that have not replayed its own write")
+    void shouldReadOwnWriteFromPrimary() throws Exception {
+        CreateTodoRequest request = new CreateTodoRequest();
+        request.setTitle("Written");
+        Cookie written = mockMvc.perform(post("/api/v1/todos")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isCreated())
+                .andExpect(cookie().exists("todo-write-position"))
+                .andReturn().getResponse().getCookie("todo-write-position");
+
+        assertEquals(2, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM todos", Integer.class));
+        assertEquals(1, replicaJdbcTemplate.queryForObject("SELECT COUNT(*) FROM todos", Integer.class));
+        assertTrue(Long.parseLong(written.getValue()) > 0);
+
+        // The stand-in replica is not replaying WAL, so it can never show that it has the write
+        for (int i = 0; i < 3; i++) {
+            Thread.sleep(50);
+            assertEquals("Written", firstTitle(written));
+        }
+        assertTrue(meterRegistry.get("jdbc.replica.lagging").functionCounter().count() >= 1);
+    }
+
+    @Test
+    @DisplayName("Should not hand out a write position for a rejected write")
+    void shouldNotSetPositionForRejectedWrite() throws Exception {
+        mockMvc.perform(post("/api/v1/todos")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new CreateTodoRequest())))
+                .andExpect(status().isBadRequest())
+                .andExpect(cookie().doesNotExist("todo-write-position"));
+    }
+
+    private String firstTitle(Cookie cookie) throws Exception {
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+        var request = get("/api/v1/todos").param("size", "1");
+        if (cookie != null) {
+            request.cookie(cookie);
+        }
+        String body = mockMvc.perform(request)
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body).get("content").get(0).get("title").asText();
+    }
+}
@@ -0,0 +1,96 @@
+package com.emobile.springtodo.integration;
+
+import com.emobile.springtodo.AbstractIntegrationTest;
+import com.emobile.springtodo.dto.request.CreateTodoRequest;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@DisplayName("SQL Profiler Integration Tests")
+@TestPropertySource(properties = {
+        "todo.sql-profiler.enabled=true",
+        "todo.sql-profiler.slow-threshold=0ms",
+        "todo.sql-profiler.explain=true"
+})
+class SqlProfilerIntegrationTest extends AbstractIntegrationTest {
+
+    @Test
+    @DisplayName("Should aggregate statements by shape and rank them by total time")
+    void shouldAggregateStatementsByShape() throws Exception {
+        mockMvc.perform(delete("/actuator/sqlprofile"))
+                .andExpect(status().isNoContent());
+
+        for (int i = 0; i < 3; i++) {
+            CreateTodoRequest request = new CreateTodoRequest();
+            request.setTitle("Profiled " + i);
+            mockMvc.perform(post("/api/v1/todos")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(request)))
+                    .andExpect(status().isCreated());
+        }
+        jdbcTemplate.queryForList("SELECT id FROM todos WHERE title = 'Profiled 1' AND id > 0");
+
+        String body = mockMvc.perform(get("/actuator/sqlprofile").param("limit", "50"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.statements", hasSize(lessThanOrEqualTo(50))))
+                .andExpect(jsonPath("$.statements[*].statement",
+                        hasItem("SELECT id FROM todos WHERE title = ? AND id > ?")))
+                .andExpect(jsonPath("$.slowStatements", not(empty())))
+                .andReturn().getResponse().getContentAsString();
+
+        JsonNode statements = objectMapper.readTree(body).get("statements");
+        double previous = Double.MAX_VALUE;
+        boolean insertsGrouped = false;
+        for (JsonNode statement : statements) {
+            double total = statement.get("totalMillis").asDouble();
+            assertTrue(total <= previous);
+            previous = total;
+            if (statement.get("statement").asText().startsWith("INSERT INTO todos")) {
+                insertsGrouped |= statement.get("count").asLong() >= 3 && statement.get("rows").asLong() >= 3;
+            }
+        }
+        assertTrue(insertsGrouped);
+    }
+
+    @Test
+    @DisplayName("Should capture slow statements with parameter types and their plans")
+    void shouldCaptureSlowStatementsWithPlans() throws Exception {
+        mockMvc.perform(delete("/actuator/sqlprofile"))
+                .andExpect(status().isNoContent());
+        mockMvc.perform(get("/api/v1/todos").param("size", "5"))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/actuator/sqlprofile"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.slowStatements[*].statement", hasItem(startsWith("SELECT"))))
+                .andExpect(jsonPath("$.slowStatements[*].parameterTypes", hasItem(startsWith("["))));
+
+        boolean planned = false;
+        for (int attempt = 0; attempt < 50 && !planned; attempt++) {
+            String body = mockMvc.perform(get("/actuator/sqlprofile"))
+                    .andReturn().getResponse().getContentAsString();
+            for (JsonNode statement : objectMapper.readTree(body).get("statements")) {
+                planned |= statement.hasNonNull("plan") && statement.get("plan").asText().contains("Scan");
+            }
+            if (!planned) {
+                Thread.sleep(100);
+            }
+        }
+        assertTrue(planned);
+    }
+}
@@ -0,0 +1,86 @@
+package com.emobile.springtodo.integration;
+
+import com.emobile.springtodo.AbstractIntegrationTest;
+import com.emobile.springtodo.config.RedisConfig;
+import com.emobile.springtodo.model.Todo;
+import com.emobile.springtodo.service.TodoArchiveService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.jdbc.Sql;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.springframework.test.context.jdbc.Sql.ExecutionPhase.AFTER_TEST_METHOD;
+import static org.springframework.test.context.jdbc.Sql.ExecutionPhase.BEFORE_TEST_METHOD;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@DisplayName("Todo Archive Cache Integration Tests")
+@Sql(scripts = {"/sql/cleanup.sql", "/sql/insert-test-data.sql"}, executionPhase = BEFORE_TEST_METHOD)
+@Sql(scripts = "/sql/cleanup.sql", executionPhase = AFTER_TEST_METHOD)
+@TestPropertySource(properties = {
+        "todo.archive.enabled=true",
+        "todo.archive.interval=PT1H",
+        "todo.archive.batch-size=500",
+        "todo.cache.redis.write-queue-capacity=10"
+})
+class TodoArchiveCacheIntegrationTest extends AbstractIntegrationTest {
+
+    @Autowired
+    private TodoArchiveService todoArchiveService;
+
+    @Test
+    @DisplayName("Should keep reading the cache from Redis after archiving more todos than the writer queue holds")
+    void shouldKeepRedisTierAfterLargeArchiveRun() throws Exception {
+        jdbcTemplate.update("INSERT INTO todos (id, title, completed, created_at, updated_at) " +
+                "SELECT g, 'Old ' || g, true, '2024-01-05 10:00:00', '2024-01-05 10:00:00' " +
+                "FROM generate_series(100, 1099) g");
+        jdbcTemplate.update("INSERT INTO todos (id, title, completed, created_at, updated_at) " +
+                "VALUES (5, 'Test Todo 5', 'Description 5', false, '2024-01-05 10:00:00', '2024-01-05 10:00:00')");
+        mockMvc.perform(get("/api/v1/todos/1")).andExpect(status().isOk());
+        assertNotNull(awaitRedisValue("todos::1"));
+
+        assertEquals(1002, todoArchiveService.archiveCompleted());
+
+        // Writes are applied in order, so once this one is in Redis the evictions before it have run
+        mockMvc.perform(get("/api/v1/todos/3")).andExpect(status().isOk());
+        assertNotNull(awaitRedisValue("todos::3"));
+        assertNotNull(awaitRedisValue("todos::1"));
+
+        Todo cached = new Todo(5L, "Cached in Redis", "Not loaded from the database", false,
+                LocalDateTime.of(2024, 1, 5, 10, 0), LocalDateTime.of(2024, 1, 5, 10, 0));
+        try (RedisConnection connection = redisConnectionFactory.getConnection()) {
+            connection.stringCommands().set(key("todos::5"),
+                    RedisConfig.cacheValueSerializer("binary", 512).serialize(cached));
+        }
+        mockMvc.perform(get("/api/v1/todos/5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.title", is("Cached in Redis")));
+    }
+
+    // Redis is filled by the background writer
+    private byte[] awaitRedisValue(String key) throws InterruptedException {
+        byte[] stored = null;
+        for (int attempt = 0; attempt < 50 && stored == null; attempt++) {
+            try (RedisConnection connection = redisConnectionFactory.getConnection()) {
+                stored = connection.stringCommands().get(key(key));
+            }
+            if (stored == null) {
+                Thread.sleep(20);
+            }
+        }
+        return stored;
+    }
+
+    private static byte[] key(String key) {
+        return key.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,116 @@
+package com.emobile.springtodo.integration;
+
+import com.emobile.springtodo.AbstractIntegrationTest;
+import com.emobile.springtodo.service.TodoArchiveService;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.jdbc.Sql;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.springframework.test.context.jdbc.Sql.ExecutionPhase.BEFORE_TEST_METHOD;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@DisplayName("Todo Archive Integration Tests")
+@Sql(scripts = {"/sql/cleanup.sql", "/sql/insert-test-data.sql"}, executionPhase = BEFORE_TEST_METHOD)
+@TestPropertySource(properties = {
+        "todo.archive.enabled=true",
+        "todo.archive.interval=PT1H",
+        "todo.archive.batch-size=1"
+})
+class TodoArchiveIntegrationTest extends AbstractIntegrationTest {
+
+    @Autowired
+    private TodoArchiveService todoArchiveService;
+
+    @Test
+    @DisplayName("Should move old completed todos out of the regular views into the archive")
+    void shouldArchiveOldCompletedTodos() throws Exception {
+        // Warm the caches so archiving has to invalidate them
+        mockMvc.perform(get("/api/v1/todos/2")).andExpect(status().isOk());
+        mockMvc.perform(get("/api/v1/todos/stats")).andExpect(jsonPath("$.total", is(4)));
+
+        assertEquals(2, todoArchiveService.archiveCompleted());
+
+        mockMvc.perform(get("/api/v1/todos").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[*].id", contains(3, 1)))
+                .andExpect(jsonPath("$.totalElements", is(2)));
+        mockMvc.perform(get("/api/v1/todos/2")).andExpect(status().isNotFound());
+        mockMvc.perform(get("/api/v1/todos/stats"))
+                .andExpect(jsonPath("$.total", is(2)))
+                .andExpect(jsonPath("$.completed", is(0)));
+
+        mockMvc.perform(get("/api/v1/todos").param("archived", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[*].id", contains(4, 2)))
+                .andExpect(jsonPath("$.content[0].completed", is(true)))
+                .andExpect(jsonPath("$.totalElements").doesNotExist())
+                .andExpect(jsonPath("$.last", is(true)));
+
+        assertEquals(0, todoArchiveService.archiveCompleted());
+    }
+
+    @Test
+    @DisplayName("Should not record archived todos in the change feed")
+    void shouldNotRecordArchivingAsChanges() {
+        assertEquals(2, todoArchiveService.archiveCompleted());
+
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT count(*) FROM todo_events WHERE type <> 'C'", Integer.class));
+    }
+
+    @Test
+    @DisplayName("Should page through archived todos with a cursor")
+    void shouldPageArchivedTodosWithCursor() throws Exception {
+        todoArchiveService.archiveCompleted();
+
+        String body = mockMvc.perform(get("/api/v1/todos")
+                        .param("archived", "true")
+                        .param("cursor", "")
+                        .param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[*].id", contains(4)))
+                .andExpect(jsonPath("$.last", is(false)))
+                .andExpect(jsonPath("$.nextCursor", notNullValue()))
+                .andReturn().getResponse().getContentAsString();
+        JsonNode page = objectMapper.readTree(body);
+
+        mockMvc.perform(get("/api/v1/todos")
+                        .param("archived", "true")
+                        .param("cursor", page.get("nextCursor").asText())
+                        .param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[*].id", contains(2)))
+                .andExpect(jsonPath("$.last", is(true)));
+    }
+
+    @Test
+    @DisplayName("Should keep recent completed todos and store new todos in the current month's partition")
+    void shouldKeepRecentTodosInCurrentPartition() throws Exception {
+        jdbcTemplate.update("INSERT INTO todos (title, completed, created_at, updated_at) " +
+                "VALUES ('Recent', true, LOCALTIMESTAMP, LOCALTIMESTAMP)");
+
+        assertEquals(2, todoArchiveService.archiveCompleted());
+        assertEquals(0, todoArchiveService.createPartitions());
+
+        String partition = "todos_p" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMM"));
+        assertNotNull(jdbcTemplate.queryForObject("SELECT to_regclass(?)::text", String.class, partition));
+        assertEquals(partition, jdbcTemplate.queryForObject(
+                "SELECT tableoid::regclass::text FROM todos WHERE title = 'Recent'", String.class));
+        mockMvc.perform(get("/api/v1/todos").param("archived", "true"))
+                .andExpect(jsonPath("$.content", hasSize(2)));
+    }
+}
@@ -2,23 +2,48 @@ package com.emobile.springtodo.integration;
 
 
 import com.emobile.springtodo.AbstractIntegrationTest;
+import com.emobile.springtodo.dto.request.BatchCreateTodoRequest;
+import com.emobile.springtodo.dto.request.BulkTodosRequest;
+import com.emobile.springtodo.dto.request.BulkUpdateTodosRequest;
 import com.emobile.springtodo.dto.request.CreateTodoRequest;
 import com.emobile.springtodo.dto.request.UpdateTodoRequest;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.context.jdbc.Sql;
 
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.TimeZone;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.notNullValue;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.test.context.jdbc.Sql.ExecutionPhase.BEFORE_TEST_METHOD;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @DisplayName("Todo Controller Integration Tests")
@@ -138,6 +163,36 @@ class TodoControllerIntegrationTest extends AbstractIntegrationTest {
                 .andExpect(jsonPath("$.error", is("Not Found")));
     }
 
+    @Test
+    @DisplayName("Should patch only the supplied fields")
+    @Sql(scripts = "/sql/insert-test-data.sql", executionPhase = BEFORE_TEST_METHOD)
+    void shouldPatchOnlySuppliedFields() throws Exception {
+        mockMvc.perform(get("/api/v1/todos/1"))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(patch("/api/v1/todos/1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"completed\": true}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.title", is("Test Todo 1")))
+                .andExpect(jsonPath("$.description", is("Description 1")))
+                .andExpect(jsonPath("$.completed", is(true)));
+
+        mockMvc.perform(get("/api/v1/todos/1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.completed", is(true)));
+    }
+
+    @Test
+    @DisplayName("Should return 404 when patching non-existent todo")
+    void shouldReturn404WhenPatchingNonExistentTodo() throws Exception {
+        mockMvc.perform(patch("/api/v1/todos/999")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"title\": \"Patched\"}"))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.message", containsString("Todo not found")));
+    }
+
     @Test
     @DisplayName("Should delete todo successfully")
     @Sql(scripts = "/sql/insert-test-data.sql", executionPhase = BEFORE_TEST_METHOD)
@@ -203,4 +258,588 @@ class TodoControllerIntegrationTest extends AbstractIntegrationTest {
                 .andExpect(jsonPath("$.error", is("Validation Failed")))
                 .andExpect(jsonPath("$.message", containsString("255 characters")));
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Should walk all todos with keyset cursor")
+    @Sql(scripts = "/sql/insert-test-data.sql", executionPhase = BEFORE_TEST_METHOD)
+    void shouldWalkAllTodosWithKeysetCursor() throws Exception {
+        String firstPage = mockMvc.perform(get("/api/v1/todos")
+                        .param("cursor", "")
+                        .param("size", "3")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(3)))
+                .andExpect(jsonPath("$.content[0].id", is(4)))
+                .andExpect(jsonPath("$.content[2].id", is(2)))
+                .andExpect(jsonPath("$.totalElements", is(4)))
+                .andExpect(jsonPath("$.last", is(false)))
+                .andExpect(jsonPath("$.nextCursor", notNullValue()))
+                .andReturn().getResponse().getContentAsString();
+        String nextCursor = objectMapper.readTree(firstPage).get("nextCursor").asText();
+
+        mockMvc.perform(get("/api/v1/todos")
+                        .param("cursor", nextCursor)
+                        .param("size", "3")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(1)))
+                .andExpect(jsonPath("$.content[0].id", is(1)))
+                .andExpect(jsonPath("$.last", is(true)))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+    }
+
+    @Test
+    @DisplayName("Should filter todos by completion status with keyset cursor")
+    @Sql(scripts = "/sql/insert-test-data.sql", executionPhase = BEFORE_TEST_METHOD)
+    void shouldFilterTodosWithKeysetCursor() throws Exception {
+        String firstPage = mockMvc.perform(get("/api/v1/todos/filter")
+                        .param("completed", "true")
+                        .param("cursor", "")
+                        .param("size", "1")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(1)))
+                .andExpect(jsonPath("$.content[0].id", is(4)))
+                .andExpect(jsonPath("$.totalElements", is(2)))
+                .andReturn().getResponse().getContentAsString();
+        String nextCursor = objectMapper.readTree(firstPage).get("nextCursor").asText();
+
+        mockMvc.perform(get("/api/v1/todos/filter")
+                        .param("completed", "true")
+                        .param("cursor", nextCursor)
+                        .param("size", "1")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(1)))
+                .andExpect(jsonPath("$.content[0].id", is(2)))
+                .andExpect(jsonPath("$.last", is(true)));
+    }
+
+    @Test
+    @DisplayName("Should reject malformed cursor")
+    void shouldRejectMalformedCursor() throws Exception {
+        mockMvc.perform(get("/api/v1/todos")
+                        .param("cursor", "not-a-cursor")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error", is("Bad Request")));
+    }
+
+    @Test
+    @DisplayName("Should cache different pages separately")
+    @Sql(scripts = "/sql/insert-test-data.sql", executionPhase = BEFORE_TEST_METHOD)
+    void shouldCacheDifferentPagesSeparately() throws Exception {
+        mockMvc.perform(get("/api/v1/todos")
+                        .param("page", "0")
+                        .param("size", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].id", is(4)));
+
+        mockMvc.perform(get("/api/v1/todos")
+                        .param("page", "1")
+                        .param("size", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].id", is(2)))
+                .andExpect(jsonPath("$.last", is(true)));
+    }
+
+    @Test
+    @DisplayName("Should refresh cached pages after create without dropping cached todos")
+    @Sql(scripts = "/sql/insert-test-data.sql", executionPhase = BEFORE_TEST_METHOD)
+    void shouldRefreshCachedPagesAfterCreate() throws Exception {
+        mockMvc.perform(get("/api/v1/todos/1"))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/v1/todos"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements", is(4)));
+
+        CreateTodoRequest request = new CreateTodoRequest();
+        request.setTitle("Fresh Todo");
+
+        mockMvc.perform(post("/api/v1/todos")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isCreated());
+
+        mockMvc.perform(get("/api/v1/todos"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements", is(5)))
+                .andExpect(jsonPath("$.content[0].title", is("Fresh Todo")));
+
+        assertNotNull(cacheManager.getCache("todos").get(1L));
+    }
+
+    @Test
+    @DisplayName("Should create todos in batch")
+    void shouldCreateTodosInBatch() throws Exception {
+        BatchCreateTodoRequest request = new BatchCreateTodoRequest();
+        request.setTodos(List.of(createRequest("Batch 1"), createRequest("Batch 2"), createRequest("Batch 3")));
+
+        mockMvc.perform(post("/api/v1/todos/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request))
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$", hasSize(3)))
+                .andExpect(jsonPath("$[0].id", notNullValue()))
+                .andExpect(jsonPath("$[0].title", is("Batch 1")))
+                .andExpect(jsonPath("$[2].title", is("Batch 3")))
+                .andExpect(jsonPath("$[2].completed", is(false)));
+
+        mockMvc.perform(get("/api/v1/todos"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements", is(3)));
+    }
+
+    @Test
+    @DisplayName("Should reject batch with invalid todo")
+    void shouldRejectBatchWithInvalidTodo() throws Exception {
+        BatchCreateTodoRequest request = new BatchCreateTodoRequest();
+        request.setTodos(List.of(createRequest("Valid"), createRequest("")));
+
+        mockMvc.perform(post("/api/v1/todos/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request))
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error", is("Validation Failed")))
+                .andExpect(jsonPath("$.message", containsString("todos[1].title")));
+
+        mockMvc.perform(get("/api/v1/todos"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements", is(0)));
+    }
+
+    @Test
+    @DisplayName("Should complete todos by ids in bulk")
+    @Sql(scripts = "/sql/insert-test-data.sql", executionPhase = BEFORE_TEST_METHOD)
+    void shouldCompleteTodosByIdsInBulk() throws Exception {
+        mockMvc.perform(get("/api/v1/todos/1"))
+                .andExpect(jsonPath("$.completed", is(false)));
+        mockMvc.perform(get("/api/v1/todos/4"))
+                .andExpect(status().isOk());
+
+        BulkUpdateTodosRequest request = new BulkUpdateTodosRequest();
+        request.setIds(List.of(1L, 2L, 3L, 999L));
+        request.setCompleted(true);
+
+        mockMvc.perform(post("/api/v1/todos/bulk/update")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.affected", is(2)));
+
+        // Only the updated rows leave the cache
+        assertNull(cacheManager.getCache("todos").get(1L));
+        assertNotNull(cacheManager.getCache("todos").get(4L));
+        mockMvc.perform(get("/api/v1/todos/1"))
+                .andExpect(jsonPath("$.completed", is(true)));
+        mockMvc.perform(get("/api/v1/todos/filter").param("completed", "true"))
+                .andExpect(jsonPath("$.totalElements", is(4)));
+    }
+
+    @Test
+    @DisplayName("Should delete all completed todos in bulk")
+    @Sql(scripts = "/sql/insert-test-data.sql", executionPhase = BEFORE_TEST_METHOD)
+    void shouldDeleteCompletedTodosInBulk() throws Exception {
+        BulkTodosRequest request = new BulkTodosRequest();
+        request.setCompletedFilter(true);
+
+        mockMvc.perform(post("/api/v1/todos/bulk/delete")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.affected", is(2)));
+
+        mockMvc.perform(get("/api/v1/todos"))
+                .andExpect(jsonPath("$.totalElements", is(2)));
+        mockMvc.perform(get("/api/v1/todos/2"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @DisplayName("Should reject bulk request with both ids and filter")
+    void shouldRejectBulkRequestWithAmbiguousSelector() throws Exception {
+        BulkTodosRequest request = new BulkTodosRequest();
+        request.setIds(List.of(1L));
+        request.setCompletedFilter(true);
+
+        mockMvc.perform(post("/api/v1/todos/bulk/delete")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message", containsString("Exactly one of ids or completedFilter")));
+    }
+
+    @Test
+    @DisplayName("Should keep maintained counters in line with table contents")
+    @Sql(scripts = "/sql/insert-test-data.sql", executionPhase = BEFORE_TEST_METHOD)
+    void shouldKeepCountersInLineWithTable() throws Exception {
+        mockMvc.perform(post("/api/v1/todos")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(createRequest("Counted"))))
+                .andExpect(status().isCreated());
+        mockMvc.perform(delete("/api/v1/todos/2"))
+                .andExpect(status().isNoContent());
+
+        UpdateTodoRequest request = new UpdateTodoRequest();
+        request.setCompleted(true);
+        mockMvc.perform(put("/api/v1/todos/1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk());
+
+        Long total = jdbcTemplate.queryForObject("SELECT SUM(total) FROM todo_counters", Long.class);
+        Long completed = jdbcTemplate.queryForObject("SELECT SUM(completed) FROM todo_counters", Long.class);
+        assertEquals(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM todos", Long.class), total);
+        assertEquals(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM todos WHERE completed", Long.class), completed);
+
+        mockMvc.perform(get("/api/v1/todos/filter").param("completed", "false"))
+                .andExpect(jsonPath("$.totalElements", is(2)));
+        mockMvc.perform(get("/api/v1/todos/filter").param("completed", "true"))
+                .andExpect(jsonPath("$.totalElements", is(2)));
+    }
+
+    @Test
+    @DisplayName("Should return todo statistics")
+    @Sql(scripts = "/sql/insert-test-data.sql", executionPhase = BEFORE_TEST_METHOD)
+    void shouldReturnTodoStatistics() throws Exception {
+        mockMvc.perform(get("/api/v1/todos/stats")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total", is(4)))
+                .andExpect(jsonPath("$.completed", is(2)))
+                .andExpect(jsonPath("$.open", is(2)));
+    }
+
+    @Test
+    @DisplayName("Should return totals for a page past the end")
+    @Sql(scripts = "/sql/insert-test-data.sql", executionPhase = BEFORE_TEST_METHOD)
+    void shouldReturnTotalsForPagePastTheEnd() throws Exception {
+        mockMvc.perform(get("/api/v1/todos")
+                        .param("page", "5")
+                        .param("size", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(0)))
+                .andExpect(jsonPath("$.totalElements", is(4)))
+                .andExpect(jsonPath("$.last", is(true)));
+    }
+
+    @Test
+    @DisplayName("Should export all todos as NDJSON")
+    @Sql(scripts = "/sql/insert-test-data.sql", executionPhase = BEFORE_TEST_METHOD)
+    void shouldExportTodosAsNdjson() throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/v1/todos/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION, containsString("todos.ndjson")))
+                .andReturn().getResponse().getContentAsString();
+
+        List<String> lines = body.lines().toList();
+        assertEquals(4, lines.size());
+        assertEquals("Test Todo 1", objectMapper.readTree(lines.get(0)).get("title").asText());
+    }
+
+    @Test
+    @DisplayName("Should export all todos as CSV")
+    @Sql(scripts = "/sql/insert-test-data.sql", executionPhase = BEFORE_TEST_METHOD)
+    void shouldExportTodosAsCsv() throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/v1/todos/export").param("format", "csv"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("text/csv"))
+                .andReturn().getResponse().getContentAsString();
+
+        List<String> lines = body.lines().toList();
+        assertEquals(5, lines.size());
+        assertEquals("id,title,description,completed,createdAt,updatedAt", lines.get(0));
+        assertEquals("2,Test Todo 2,Description 2,true,2024-01-02T11:00:00,2024-01-02T11:00:00", lines.get(2));
+    }
+
+    @Test
+    @DisplayName("Should keep fractional seconds in CSV export")
+    void shouldKeepFractionalSecondsInCsvExport() throws Exception {
+        jdbcTemplate.update("INSERT INTO todos (title, completed, created_at, updated_at) " +
+                "VALUES ('Precise', false, '2024-01-05 09:30:00.125', '2024-01-05 09:30:00.125')");
+        MvcResult result = mockMvc.perform(get("/api/v1/todos/export").param("format", "csv"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertTrue(body.lines().toList().get(1).endsWith(",2024-01-05T09:30:00.125,2024-01-05T09:30:00.125"));
+    }
+
+    @Test
+    @DisplayName("Should export an empty table as an empty NDJSON body")
+    void shouldExportEmptyTableAsEmptyNdjson() throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/v1/todos/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    @DisplayName("Should reject unknown data format")
+    void shouldRejectUnknownDataFormat() throws Exception {
+        mockMvc.perform(get("/api/v1/todos/export").param("format", "xml"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("Should import NDJSON and report invalid lines")
+    void shouldImportNdjsonAndReportInvalidLines() throws Exception {
+        String body = """
+                {"title": "Imported 1", "description": "First"}
+                {"title": ""}
+
+                not json
+                {"title": "Imported 2"}
+                """;
+
+        mockMvc.perform(post("/api/v1/todos/import")
+                        .contentType("application/x-ndjson")
+                        .content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported", is(2)))
+                .andExpect(jsonPath("$.rejected", is(2)))
+                .andExpect(jsonPath("$.errors[0].line", is(2)))
+                .andExpect(jsonPath("$.errors[0].message", containsString("title")))
+                .andExpect(jsonPath("$.errors[1].line", is(4)));
+
+        mockMvc.perform(get("/api/v1/todos/stats"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total", is(2)));
+
+        mockMvc.perform(get("/api/v1/todos/filter").param("completed", "false"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[*].title", containsInAnyOrder("Imported 1", "Imported 2")));
+    }
+
+    @Test
+    @DisplayName("Should import CSV with quoted fields")
+    void shouldImportCsvWithQuotedFields() throws Exception {
+        String body = "id,title,description,completed\r\n"
+                + "7,\"Buy milk, eggs\",\"Say \"\"please\"\"\nthen leave\",true\r\n"
+                + "8,Plain,,false\r\n";
+
+        mockMvc.perform(post("/api/v1/todos/import")
+                        .contentType("text/csv")
+                        .content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported", is(2)))
+                .andExpect(jsonPath("$.rejected", is(0)));
+
+        mockMvc.perform(get("/api/v1/todos"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[?(@.title == 'Buy milk, eggs')].description",
+                        contains("Say \"please\"\nthen leave")))
+                .andExpect(jsonPath("$.content[*].title", containsInAnyOrder("Buy milk, eggs", "Plain")));
+        mockMvc.perform(get("/api/v1/todos/filter").param("completed", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[*].title", contains("Buy milk, eggs")));
+    }
+
+    @Test
+    @DisplayName("Should skip an overlong CSV record up to its end, even across quoted line breaks")
+    void shouldSkipOverlongCsvRecordWithQuotedLineBreaks() throws Exception {
+        String longDescription = "line\n".repeat(4000);
+        String body = "title,description,completed\n"
+                + "Too long,\"" + longDescription + "\",false\n"
+                + "Wrong flag,,maybe\n"
+                + "Kept,,true\n";
+
+        mockMvc.perform(post("/api/v1/todos/import")
+                        .contentType("text/csv")
+                        .content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported", is(1)))
+                .andExpect(jsonPath("$.rejected", is(2)))
+                .andExpect(jsonPath("$.errors[0].line", is(2)))
+                .andExpect(jsonPath("$.errors[0].message", containsString("exceeds")))
+                .andExpect(jsonPath("$.errors[1].line", is(4003)))
+                .andExpect(jsonPath("$.errors[1].message", containsString("completed")));
+    }
+
+    @Test
+    @DisplayName("Should reject CSV import without title column")
+    void shouldRejectCsvImportWithoutTitleColumn() throws Exception {
+        mockMvc.perform(post("/api/v1/todos/import")
+                        .contentType("text/csv")
+                        .content("name,description\nfoo,bar\n"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("Should answer 415 for an import that is neither NDJSON nor CSV")
+    void shouldRejectImportWithUnsupportedContentType() throws Exception {
+        mockMvc.perform(post("/api/v1/todos/import")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"title\": \"Imported\"}]"))
+                .andExpect(status().isUnsupportedMediaType())
+                .andExpect(header().string(HttpHeaders.ACCEPT, containsString("text/csv")))
+                .andExpect(jsonPath("$.status", is(415)));
+    }
+
+    @Test
+    @DisplayName("Should answer 304 for an unchanged todo")
+    @Sql(scripts = "/sql/insert-test-data.sql", executionPhase = BEFORE_TEST_METHOD)
+    void shouldAnswerNotModifiedForUnchangedTodo() throws Exception {
+        MvcResult first = mockMvc.perform(get("/api/v1/todos/1"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andExpect(header().exists(HttpHeaders.LAST_MODIFIED))
+                .andReturn();
+        String eTag = first.getResponse().getHeader(HttpHeaders.ETAG);
+        String lastModified = first.getResponse().getHeader(HttpHeaders.LAST_MODIFIED);
+
+        mockMvc.perform(get("/api/v1/todos/1").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, eTag))
+                .andExpect(content().string(""));
+
+        mockMvc.perform(get("/api/v1/todos/1").header(HttpHeaders.IF_MODIFIED_SINCE, lastModified))
+                .andExpect(status().isNotModified());
+
+        UpdateTodoRequest update = new UpdateTodoRequest();
+        update.setTitle("Changed");
+        mockMvc.perform(put("/api/v1/todos/1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(update)))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/v1/todos/1").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.title", is("Changed")))
+                .andExpect(header().string(HttpHeaders.ETAG, not(eTag)));
+    }
+
+    @Test
+    @DisplayName("Should send the actual modification time as Last-Modified outside UTC")
+    void shouldSendLastModifiedInstantOutsideUtc() throws Exception {
+        TimeZone defaultZone = TimeZone.getDefault();
+        TimeZone.setDefault(TimeZone.getTimeZone("Asia/Tokyo"));
+        try {
+            Instant before = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+            String body = mockMvc.perform(post("/api/v1/todos")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(createRequest("Tokyo"))))
+                    .andExpect(status().isCreated())
+                    .andReturn().getResponse().getContentAsString();
+            long id = objectMapper.readTree(body).get("id").asLong();
+
+            String lastModified = mockMvc.perform(get("/api/v1/todos/{id}", id))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getHeader(HttpHeaders.LAST_MODIFIED);
+            assertNotNull(lastModified);
+            Instant modified = ZonedDateTime.parse(lastModified, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant();
+            assertFalse(modified.isBefore(before), lastModified);
+            assertFalse(modified.isAfter(Instant.now()), lastModified);
+        } finally {
+            TimeZone.setDefault(defaultZone);
+        }
+    }
+
+    @Test
+    @DisplayName("Should answer 304 for an unchanged page until a write happens")
+    @Sql(scripts = "/sql/insert-test-data.sql", executionPhase = BEFORE_TEST_METHOD)
+    void shouldAnswerNotModifiedForUnchangedPage() throws Exception {
+        String eTag = mockMvc.perform(get("/api/v1/todos").param("size", "2"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotNull(eTag);
+
+        mockMvc.perform(get("/api/v1/todos").param("size", "2").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified());
+        // Same generation, but another view and other parameters
+        mockMvc.perform(get("/api/v1/todos/filter").param("completed", "true").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/v1/todos").param("size", "3").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, not(eTag)));
+
+        mockMvc.perform(post("/api/v1/todos")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(createRequest("New"))))
+                .andExpect(status().isCreated());
+
+        mockMvc.perform(get("/api/v1/todos").param("size", "2").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements", is(5)));
+    }
+
+    @Test
+    @DisplayName("Should rank title matches above description matches in search")
+    void shouldRankTitleMatchesFirstInSearch() throws Exception {
+        String body = """
+                {"title": "Groceries", "description": "Buy milk and eggs"}
+                {"title": "Buy milk"}
+                {"title": "Call mom", "description": "About the weekend"}
+                """;
+        mockMvc.perform(post("/api/v1/todos/import")
+                        .contentType("application/x-ndjson")
+                        .content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported", is(3)));
+
+        mockMvc.perform(get("/api/v1/todos/search").param("q", "  MILK "))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[*].title", contains("Buy milk", "Groceries")))
+                .andExpect(jsonPath("$.last", is(true)))
+                .andExpect(jsonPath("$.totalElements").doesNotExist())
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+
+        mockMvc.perform(get("/api/v1/todos/search").param("q", "milk -eggs"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[*].title", contains("Buy milk")));
+    }
+
+    @Test
+    @DisplayName("Should page through search results with a cursor and filter by status")
+    @Sql(scripts = "/sql/insert-test-data.sql", executionPhase = BEFORE_TEST_METHOD)
+    void shouldPageThroughSearchResults() throws Exception {
+        MvcResult first = mockMvc.perform(get("/api/v1/todos/search").param("q", "todo").param("size", "3"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(3)))
+                .andExpect(jsonPath("$.last", is(false)))
+                .andExpect(jsonPath("$.nextCursor", notNullValue()))
+                .andReturn();
+        String nextCursor = objectMapper.readTree(first.getResponse().getContentAsString()).get("nextCursor").asText();
+
+        mockMvc.perform(get("/api/v1/todos/search").param("q", "todo").param("size", "3").param("cursor", nextCursor))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[*].title", contains("Test Todo 1")))
+                .andExpect(jsonPath("$.last", is(true)));
+
+        mockMvc.perform(get("/api/v1/todos/search").param("q", "todo").param("completed", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[*].title", contains("Test Todo 4", "Test Todo 2")));
+    }
+
+    @Test
+    @DisplayName("Should reject blank search query and malformed search cursor")
+    void shouldRejectInvalidSearchParameters() throws Exception {
+        mockMvc.perform(get("/api/v1/todos/search").param("q", "   "))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/v1/todos/search").param("q", "todo").param("cursor", "not-a-cursor"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private static CreateTodoRequest createRequest(String title) {
+        CreateTodoRequest request = new CreateTodoRequest();
+        request.setTitle(title);
+        return request;
+    }
+}
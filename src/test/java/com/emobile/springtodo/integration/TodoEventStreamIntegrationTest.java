@@ -0,0 +1,324 @@
+package com.emobile.springtodo.integration;
+
+import com.emobile.springtodo.AbstractIntegrationTest;
+import com.emobile.springtodo.dto.request.CreateTodoRequest;
+import com.emobile.springtodo.dto.request.UpdateTodoRequest;
+import com.emobile.springtodo.model.TodoEvent;
+import com.emobile.springtodo.service.TodoEventFeed;
+import com.fasterxml.jackson.databind.JsonNode;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.jdbc.Sql;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.context.jdbc.Sql.ExecutionPhase.BEFORE_TEST_METHOD;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@DisplayName("Todo Event Stream Integration Tests")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@Sql(scripts = "/sql/cleanup.sql", executionPhase = BEFORE_TEST_METHOD)
+@TestPropertySource(properties = {
+        "todo.events.poll-interval=100ms",
+        "todo.events.heartbeat-interval=1s"
+})
+class TodoEventStreamIntegrationTest extends AbstractIntegrationTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(20);
+
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private TodoEventFeed todoEventFeed;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    @DisplayName("Should stream creates, updates and deletes")
+    void shouldStreamChanges() throws Exception {
+        try (Stream<String> lines = openStream(null).body()) {
+            Iterator<ServerSentEvent> events = new EventParser(lines.iterator());
+
+            long id = createTodo("Streamed");
+            UpdateTodoRequest update = new UpdateTodoRequest();
+            update.setCompleted(true);
+            mockMvc.perform(patch("/api/v1/todos/" + id)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(update)))
+                    .andExpect(status().isOk());
+            mockMvc.perform(delete("/api/v1/todos/" + id)).andExpect(status().isNoContent());
+
+            List<ServerSentEvent> received = assertTimeoutPreemptively(TIMEOUT, () -> nextEventsFor(events, id, 3));
+            assertEquals(List.of("created", "updated", "deleted"), received.stream().map(ServerSentEvent::name).toList());
+            assertEquals("Streamed", data(received.get(0)).get("title").asText());
+            assertFalse(data(received.get(0)).get("completed").asBoolean());
+            assertTrue(data(received.get(1)).get("completed").asBoolean());
+            assertTrue(Long.parseLong(received.get(0).id()) < Long.parseLong(received.get(1).id()));
+        }
+    }
+
+    @Test
+    @DisplayName("Should replay missed events after Last-Event-ID")
+    void shouldResumeAfterLastEventId() throws Exception {
+        long first;
+        String lastEventId;
+        try (Stream<String> lines = openStream(null).body()) {
+            Iterator<ServerSentEvent> events = new EventParser(lines.iterator());
+            first = createTodo("First");
+            lastEventId = assertTimeoutPreemptively(TIMEOUT, () -> nextEventsFor(events, first, 1)).get(0).id();
+        }
+
+        // Written while no stream is open
+        long missed = createTodo("Missed");
+
+        try (Stream<String> lines = openStream(lastEventId).body()) {
+            Iterator<ServerSentEvent> events = new EventParser(lines.iterator());
+            long live = createTodo("Live");
+
+            ServerSentEvent replayed = assertTimeoutPreemptively(TIMEOUT, () -> nextEventsFor(events, missed, 1)).get(0);
+            assertEquals("created", replayed.name());
+            assertEquals("Missed", data(replayed).get("title").asText());
+            ServerSentEvent next = assertTimeoutPreemptively(TIMEOUT, () -> nextEventsFor(events, live, 1)).get(0);
+            assertTrue(Long.parseLong(next.id()) > Long.parseLong(replayed.id()));
+        }
+    }
+
+    @Test
+    @DisplayName("Should ask to reload when Last-Event-ID is no longer in the log")
+    void shouldSendResetForUnknownLastEventId() throws Exception {
+        try (Stream<String> lines = openStream("999999999").body()) {
+            Iterator<ServerSentEvent> events = new EventParser(lines.iterator());
+            ServerSentEvent event = assertTimeoutPreemptively(TIMEOUT, events::next);
+            assertEquals("reset", event.name());
+
+            long id = createTodo("After reset");
+            assertEquals("created", assertTimeoutPreemptively(TIMEOUT, () -> nextEventsFor(events, id, 1)).get(0).name());
+        }
+    }
+
+    @Test
+    @DisplayName("Should cut off a subscriber that falls behind and let it resume without gaps")
+    void shouldCutOffSlowSubscriberAndResumeWithoutGaps() throws Exception {
+        int rows = 1500;
+        Counter dropped = meterRegistry.counter("todo.events.dropped.subscribers");
+        double droppedBefore = dropped.count();
+        TodoEventFeed.Subscription slow = todoEventFeed.subscribe(null);
+        // In statements small enough to be logged row by row
+        List<Long> ids = new ArrayList<>();
+        for (int from = 0; from < rows; from += 50) {
+            ids.addAll(jdbcTemplate.queryForList("INSERT INTO todos (title, completed, created_at, updated_at) " +
+                    "SELECT 'Bulk ' || g, false, LOCALTIMESTAMP, LOCALTIMESTAMP FROM generate_series(1, 50) g RETURNING id",
+                    Long.class));
+        }
+
+        List<TodoEvent> received = new ArrayList<>();
+        assertTimeoutPreemptively(TIMEOUT, () -> {
+            // Nothing is read until the buffer of 1000 has overflowed
+            while (dropped.count() == droppedBefore) {
+                Thread.sleep(50);
+            }
+            TodoEvent event;
+            while ((event = slow.poll()) != null) {
+                received.add(event);
+            }
+        });
+        assertFalse(slow.isOpen());
+        assertTrue(received.size() < rows);
+
+        try (TodoEventFeed.Subscription resumed = todoEventFeed.subscribe(received.getLast().getId())) {
+            assertFalse(resumed.isResetRequired());
+            assertTimeoutPreemptively(TIMEOUT, () -> {
+                while (received.stream().filter(event -> ids.contains(event.getTodo().getId())).count() < rows) {
+                    TodoEvent event = resumed.poll();
+                    if (event != null) {
+                        received.add(event);
+                    }
+                }
+            });
+        }
+
+        List<Long> streamedIds = received.stream()
+                .map(event -> event.getTodo().getId())
+                .filter(ids::contains)
+                .toList();
+        assertEquals(ids.stream().sorted().toList(), streamedIds);
+    }
+
+    @Test
+    @DisplayName("Should send one reset per import or bulk delete, without cutting off subscribers")
+    void shouldCoalesceBulkChangesForManySubscribers() throws Exception {
+        int rows = 1500;
+        Counter dropped = meterRegistry.counter("todo.events.dropped.subscribers");
+        double droppedBefore = dropped.count();
+        List<TodoEventFeed.Subscription> subscriptions = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            subscriptions.add(todoEventFeed.subscribe(null));
+        }
+
+        try (Stream<String> lines = openStream(null).body()) {
+            Iterator<ServerSentEvent> events = new EventParser(lines.iterator());
+
+            StringBuilder body = new StringBuilder();
+            for (int i = 1; i <= rows; i++) {
+                body.append("{\"title\": \"Imported ").append(i).append("\"}\n");
+            }
+            mockMvc.perform(post("/api/v1/todos/import")
+                            .contentType("application/x-ndjson")
+                            .content(body.toString()))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.imported", is(rows)));
+            assertEquals(rows, jdbcTemplate.update("DELETE FROM todos WHERE title LIKE 'Imported %'"));
+
+            ServerSentEvent reset = assertTimeoutPreemptively(TIMEOUT, () -> nextEventNamed(events, "reset"));
+            assertNotNull(reset.id());
+
+            for (TodoEventFeed.Subscription subscription : subscriptions) {
+                List<TodoEvent> received = assertTimeoutPreemptively(TIMEOUT, () -> pollUntilResets(subscription, 2));
+                assertTrue(subscription.isOpen());
+                assertTrue(received.stream()
+                        .filter(event -> event.getType() != TodoEvent.Type.RESET)
+                        .noneMatch(event -> event.getTodo().getTitle().startsWith("Imported")));
+            }
+        } finally {
+            subscriptions.forEach(TodoEventFeed.Subscription::close);
+        }
+        assertEquals(droppedBefore, dropped.count());
+    }
+
+    private HttpResponse<Stream<String>> openStream(String lastEventId) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/v1/todos/stream"))
+                .header(HttpHeaders.ACCEPT, MediaType.TEXT_EVENT_STREAM_VALUE);
+        if (lastEventId != null) {
+            request.header("Last-Event-ID", lastEventId);
+        }
+        HttpResponse<Stream<String>> response = httpClient.send(request.build(), HttpResponse.BodyHandlers.ofLines());
+        assertEquals(200, response.statusCode());
+        return response;
+    }
+
+    private long createTodo(String title) throws Exception {
+        CreateTodoRequest request = new CreateTodoRequest();
+        request.setTitle(title);
+        String body = mockMvc.perform(post("/api/v1/todos")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body).get("id").asLong();
+    }
+
+    // Other tests' cleanup also shows up in the stream, so only events for the given todo are kept
+    private List<ServerSentEvent> nextEventsFor(Iterator<ServerSentEvent> events, long todoId, int count) throws Exception {
+        List<ServerSentEvent> matching = new ArrayList<>();
+        while (matching.size() < count) {
+            ServerSentEvent event = events.next();
+            if (event.data() != null && data(event).path("id").asLong() == todoId) {
+                matching.add(event);
+            }
+        }
+        return matching;
+    }
+
+    private ServerSentEvent nextEventNamed(Iterator<ServerSentEvent> events, String name) {
+        while (true) {
+            ServerSentEvent event = events.next();
+            if (name.equals(event.name())) {
+                return event;
+            }
+        }
+    }
+
+    private List<TodoEvent> pollUntilResets(TodoEventFeed.Subscription subscription, int resets) throws Exception {
+        List<TodoEvent> received = new ArrayList<>();
+        while (received.stream().filter(event -> event.getType() == TodoEvent.Type.RESET).count() < resets) {
+            TodoEvent event = subscription.poll();
+            if (event != null) {
+                received.add(event);
+            }
+        }
+        return received;
+    }
+
+    private JsonNode data(ServerSentEvent event) throws Exception {
+        JsonNode data = objectMapper.readTree(event.data());
+        assertNotNull(data);
+        return data;
+    }
+
+    private record ServerSentEvent(String id, String name, String data) {
+    }
+
+    /**
+     * Reads events from the lines of a {@code text/event-stream}, skipping comments.
+     */
+    private static class EventParser implements Iterator<ServerSentEvent> {
+
+        private final Iterator<String> lines;
+
+        EventParser(Iterator<String> lines) {
+            this.lines = lines;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return lines.hasNext();
+        }
+
+        @Override
+        public ServerSentEvent next() {
+            String id = null;
+            String name = null;
+            StringBuilder data = null;
+            while (lines.hasNext()) {
+                String line = lines.next();
+                if (line.isEmpty()) {
+                    if (name != null || data != null) {
+                        return new ServerSentEvent(id, name, data == null ? null : data.toString());
+                    }
+                    continue;
+                }
+                int colon = line.indexOf(':');
+                String field = colon < 0 ? line : line.substring(0, colon);
+                String value = colon < 0 ? "" : line.substring(colon + 1).stripLeading();
+                switch (field) {
+                    case "id" -> id = value;
+                    case "event" -> name = value;
+                    case "data" -> data = data == null ? new StringBuilder(value) : data.append('\n').append(value);
+                    default -> {
+                    }
+                }
+            }
+            throw new IllegalStateException("Event stream ended");
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package com.emobile.springtodo.integration;
+
+import com.emobile.springtodo.AbstractIntegrationTest;
+import com.emobile.springtodo.dto.request.CreateTodoRequest;
+import com.emobile.springtodo.jdbc.BulkheadDataSource;
+import com.emobile.springtodo.jdbc.SqlProfiler;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.jdbc.Sql;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import static org.springframework.test.context.jdbc.Sql.ExecutionPhase.BEFORE_TEST_METHOD;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@DisplayName("Virtual Thread Mode Integration Tests")
+@TestPropertySource(properties = {
+        "spring.threads.virtual.enabled=true",
+        "spring.datasource.hikari.connection-timeout=2s",
+        "todo.threads.pinned-threshold=10ms",
+        "todo.sql-profiler.enabled=true",
+        "todo.sql-profiler.slow-threshold=0ms",
+        "todo.sql-profiler.explain=true"
+})
+@Sql(scripts = "/sql/cleanup.sql", executionPhase = BEFORE_TEST_METHOD)
+class VirtualThreadIntegrationTest extends AbstractIntegrationTest {
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private SqlProfiler sqlProfiler;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    @DisplayName("Should guard the connection pool with a bulkhead")
+    void shouldGuardConnectionPoolWithBulkhead() throws Exception {
+        BulkheadDataSource bulkhead = assertInstanceOf(BulkheadDataSource.class, dataSource);
+        assertEquals(8, bulkhead.getMaxConcurrent());
+        assertEquals(2, bulkhead.getMaxLongRunning());
+
+        mockMvc.perform(get("/actuator/metrics"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.names", hasItem("jdbc.bulkhead.waiting")));
+    }
+
+    @Test
+    @DisplayName("Should serve more concurrent requests than pooled connections")
+    void shouldServeMoreConcurrentRequestsThanPooledConnections() throws Exception {
+        int requests = 200;
+        List<Future<Integer>> results = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < requests; i++) {
+                CreateTodoRequest request = new CreateTodoRequest();
+                request.setTitle("Concurrent " + i);
+                String body = objectMapper.writeValueAsString(request);
+                results.add(executor.submit(() -> mockMvc.perform(post("/api/v1/todos")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(body))
+                        .andReturn().getResponse().getStatus()));
+            }
+        }
+        for (Future<Integer> result : results) {
+            assertEquals(201, result.get());
+        }
+
+        BulkheadDataSource bulkhead = (BulkheadDataSource) dataSource;
+        assertEquals(bulkhead.getMaxConcurrent(), bulkhead.getAvailablePermits());
+
+        mockMvc.perform(get("/api/v1/todos/stats"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total", is(requests)));
+    }
+
+    @Test
+    @DisplayName("Should keep serving requests while long-running work holds all its connections")
+    void shouldServeRequestsWhileLongRunningWorkHoldsConnections() throws Exception {
+        BulkheadDataSource bulkhead = (BulkheadDataSource) dataSource;
+        List<Connection> held = new ArrayList<>();
+        boolean previous = BulkheadDataSource.beginLongRunning();
+        try {
+            for (int i = 0; i < bulkhead.getMaxLongRunning(); i++) {
+                held.add(dataSource.getConnection());
+            }
+        } finally {
+            BulkheadDataSource.endLongRunning(previous);
+        }
+
+        try {
+            assertEquals(0, bulkhead.getAvailableLongRunningPermits());
+            assertEquals(bulkhead.getMaxConcurrent(), bulkhead.getAvailablePermits());
+            mockMvc.perform(get("/api/v1/todos/stats"))
+                    .andExpect(status().isOk());
+        } finally {
+            for (Connection connection : held) {
+                connection.close();
+            }
+        }
+        assertEquals(bulkhead.getMaxLongRunning(), bulkhead.getAvailableLongRunningPermits());
+    }
+
+    @Test
+    @DisplayName("Should answer 503 when every connection permit stays taken")
+    void shouldAnswerServiceUnavailableWhenBulkheadIsSaturated() throws Exception {
+        BulkheadDataSource bulkhead = (BulkheadDataSource) dataSource;
+        List<Connection> held = new ArrayList<>();
+        try {
+            for (int i = 0; i < bulkhead.getMaxConcurrent(); i++) {
+                held.add(dataSource.getConnection());
+            }
+
+            CreateTodoRequest request = new CreateTodoRequest();
+            request.setTitle("Saturated");
+            mockMvc.perform(post("/api/v1/todos")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(request)))
+                    .andExpect(status().isServiceUnavailable())
+                    .andExpect(header().string(HttpHeaders.RETRY_AFTER, "1"));
+            mockMvc.perform(get("/api/v1/todos/{id}", 999))
+                    .andExpect(status().isServiceUnavailable())
+                    .andExpect(jsonPath("$.status", is(503)));
+        } finally {
+            for (Connection connection : held) {
+                connection.close();
+            }
+        }
+
+        mockMvc.perform(get("/api/v1/todos/{id}", 999))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @DisplayName("Should count virtual threads pinned to their carrier")
+    void shouldCountPinnedVirtualThreads() throws Exception {
+        assumeTrue(Runtime.version().feature() < 24, "Blocking in synchronized no longer pins from JDK 24");
+        Counter pinned = meterRegistry.get("jvm.threads.virtual.pinned").counter();
+        double before = pinned.count();
+        Object monitor = new Object();
+        Thread.ofVirtual().start(() -> {
+            synchronized (monitor) {
+                try {
+                    Thread.sleep(100);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }).join();
+
+        // JFR hands events to the stream about once a second
+        assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+            while (pinned.count() <= before) {
+                Thread.sleep(100);
+            }
+        });
+    }
+
+    @Test
+    @DisplayName("Should wait for a connection permit before explaining a slow statement")
+    void shouldExplainThroughBulkhead() throws Exception {
+        String sql = "SELECT count(*) FROM todos WHERE completed";
+        BulkheadDataSource bulkhead = (BulkheadDataSource) dataSource;
+        sqlProfiler.reset();
+        List<Connection> held = new ArrayList<>();
+        try {
+            for (int i = 0; i < bulkhead.getMaxConcurrent(); i++) {
+                held.add(dataSource.getConnection());
+            }
+            try (Statement statement = held.get(0).createStatement()) {
+                statement.executeQuery(sql).close();
+            }
+            // The pool still has idle connections, but every request permit is taken
+            Thread.sleep(500);
+            assertNull(plan(sql));
+        } finally {
+            for (Connection connection : held) {
+                connection.close();
+            }
+        }
+
+        assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+            while (plan(sql) == null) {
+                Thread.sleep(50);
+            }
+        });
+    }
+
+    private String plan(String sql) {
+        return sqlProfiler.getTopStatements(Integer.MAX_VALUE).stream()
+                .filter(statement -> statement.statement().equals(sql))
+                .findFirst()
+                .map(SqlProfiler.StatementSummary::plan)
+                .orElse(null);
+    }
+}
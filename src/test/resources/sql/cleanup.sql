@@ -1 +1,3 @@
-DELETE FROM todos;
\ No newline at end of file
+DELETE FROM todos;
+DELETE FROM todos_archive;
+DELETE FROM todo_events;